@@ -15,6 +15,7 @@ public class User {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private LocalDateTime lastLoginAt;
+    private LocalDateTime lastSeenAt;
     private Set<String> roles;
     
     public enum UserStatus {
@@ -113,6 +114,14 @@ public class User {
         this.lastLoginAt = lastLoginAt;
     }
     
+    public LocalDateTime getLastSeenAt() {
+        return lastSeenAt;
+    }
+    
+    public void setLastSeenAt(LocalDateTime lastSeenAt) {
+        this.lastSeenAt = lastSeenAt;
+    }
+    
     public Set<String> getRoles() {
         return roles;
     }
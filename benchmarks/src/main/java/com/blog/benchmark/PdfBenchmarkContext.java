@@ -0,0 +1,54 @@
+package com.blog.benchmark;
+
+import com.blog.web.config.PdfConfig;
+import com.blog.web.pdf.FontRegistry;
+import com.blog.web.pdf.ImageCache;
+import com.blog.web.pdf.PdfGenerationService;
+import com.blog.web.pdf.TemplateCache;
+import com.blog.web.pdf.strategy.CjkCMapStrategy;
+import com.blog.web.pdf.strategy.FullEmbedStrategy;
+import com.blog.web.pdf.strategy.HybridStrategy;
+import com.blog.web.pdf.strategy.SubsetEmbedStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * 只包含PDF生成相关组件的Spring上下文
+ *
+ * 与应用使用相同的组件和配置绑定，但不连接数据库、Redis，也不启动Web容器。
+ * 配置可以用系统属性覆盖，如 -Dpdf.font-path=/path/to/NotoSerifCJKsc-Regular.otf
+ */
+@Configuration
+@EnableConfigurationProperties
+@Import({PdfConfig.class, FontRegistry.class, TemplateCache.class, ImageCache.class,
+        FullEmbedStrategy.class, SubsetEmbedStrategy.class, HybridStrategy.class, CjkCMapStrategy.class,
+        PdfGenerationService.class})
+public class PdfBenchmarkContext {
+
+    /**
+     * 在仓库根目录运行时的默认字体位置
+     */
+    private static final Map<String, Object> DEFAULTS = Map.of(
+            "pdf.font-path", "web/src/main/resources/fonts/NotoSerifCJKsc-Regular.otf");
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    public static AnnotationConfigApplicationContext start() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addLast(new MapPropertySource("benchmarkDefaults", DEFAULTS));
+        context.register(PdfBenchmarkContext.class);
+        context.refresh();
+        return context;
+    }
+}
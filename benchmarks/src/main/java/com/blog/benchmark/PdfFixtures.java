@@ -0,0 +1,218 @@
+package com.blog.benchmark;
+
+import com.blog.web.pdf.CommonSubsetFontBuilder;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.itextpdf.text.pdf.TextField;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试用的模板和数据
+ *
+ * 模板由代码生成（A4表单，文本字段按行排列，不含图片和嵌入字体），不依赖仓库外的文件；
+ * 数据由固定种子的随机数生成，同一模板、同一数据集每次运行的内容完全相同。
+ */
+public final class PdfFixtures {
+
+    private static final long SEED = 20240101L;
+
+    /**
+     * 模板规格
+     */
+    public enum Template {
+        /** 单页表单，12个字段 */
+        FORM("form", 1, 12),
+        /** 4页报表，每页30个字段 */
+        REPORT("report", 4, 30);
+
+        private final String name;
+        private final int pages;
+        private final int fieldsPerPage;
+
+        Template(String name, int pages, int fieldsPerPage) {
+            this.name = name;
+            this.pages = pages;
+            this.fieldsPerPage = fieldsPerPage;
+        }
+
+        public static Template of(String name) {
+            for (Template template : values()) {
+                if (template.name.equals(name)) {
+                    return template;
+                }
+            }
+            throw new IllegalArgumentException("未知的模板: " + name);
+        }
+
+        public List<String> fieldNames() {
+            List<String> names = new ArrayList<>(pages * fieldsPerPage);
+            for (int page = 1; page <= pages; page++) {
+                for (int i = 1; i <= fieldsPerPage; i++) {
+                    names.add(String.format("p%d_f%02d", page, i));
+                }
+            }
+            return names;
+        }
+    }
+
+    /**
+     * 数据集：决定字段值用到的字符范围
+     */
+    public enum DataSet {
+        /** 只有 ASCII 字母数字 */
+        LATIN("latin"),
+        /** 常用字子集内的汉字（GB2312一级汉字），混有数字 */
+        COMMON("common"),
+        /** 常用字为主，每个字段夹带子集外的汉字（GB2312二级汉字），子集嵌入需要回退到完整字体 */
+        RARE("rare");
+
+        private final String name;
+
+        DataSet(String name) {
+            this.name = name;
+        }
+
+        public static DataSet of(String name) {
+            for (DataSet dataSet : values()) {
+                if (dataSet.name.equals(name)) {
+                    return dataSet;
+                }
+            }
+            throw new IllegalArgumentException("未知的数据集: " + name);
+        }
+    }
+
+    private static final String LATIN_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int[] COMMON_HANZI = Arrays.stream(CommonSubsetFontBuilder.commonCodePoints())
+            .filter(c -> c >= 0x4E00)
+            .toArray();
+    private static final int[] RARE_HANZI = gb2312Rows(0xD8, 0xF7);
+
+    private PdfFixtures() {
+    }
+
+    /**
+     * 生成模板文件
+     */
+    public static Path writeTemplate(Template template, Path dir) throws IOException {
+        Path file = dir.resolve(template.name + ".pdf");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            Document document = new Document(PageSize.A4);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            document.open();
+            BaseFont label = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+            List<String> names = template.fieldNames();
+
+            float left = 50;
+            float right = PageSize.A4.getWidth() - 50;
+            float rowHeight = (PageSize.A4.getHeight() - 160) / template.fieldsPerPage;
+            for (int page = 0; page < template.pages; page++) {
+                if (page > 0) {
+                    document.newPage();
+                }
+                PdfContentByte canvas = writer.getDirectContent();
+                canvas.beginText();
+                canvas.setFontAndSize(label, 16);
+                canvas.showTextAligned(Element.ALIGN_LEFT, "Benchmark " + template.name + " - page " + (page + 1),
+                        left, PageSize.A4.getHeight() - 60, 0);
+                canvas.endText();
+
+                for (int i = 0; i < template.fieldsPerPage; i++) {
+                    String name = names.get(page * template.fieldsPerPage + i);
+                    float top = PageSize.A4.getHeight() - 90 - i * rowHeight;
+                    float bottom = top - Math.min(rowHeight - 4, 22);
+
+                    canvas.beginText();
+                    canvas.setFontAndSize(label, 9);
+                    canvas.showTextAligned(Element.ALIGN_LEFT, name, left, bottom + 6, 0);
+                    canvas.endText();
+                    canvas.rectangle(left + 60, bottom, right - left - 60, top - bottom);
+                    canvas.stroke();
+
+                    TextField field = new TextField(writer, new Rectangle(left + 60, bottom, right, top), name);
+                    field.setFontSize(10);
+                    writer.addAnnotation(field.getTextField());
+                }
+            }
+            document.close();
+        } catch (DocumentException e) {
+            throw new IOException("生成模板失败: " + e.getMessage(), e);
+        }
+        return file;
+    }
+
+    /**
+     * 模板所有字段的数据
+     */
+    public static Map<String, String> data(Template template, DataSet dataSet) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Map<String, String> data = new LinkedHashMap<>();
+        for (String name : template.fieldNames()) {
+            data.put(name, value(dataSet, random, 8 + random.nextInt(17)));
+        }
+        return data;
+    }
+
+    private static String value(DataSet dataSet, SplittableRandom random, int length) {
+        StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            switch (dataSet) {
+                case LATIN:
+                    value.append(LATIN_CHARS.charAt(random.nextInt(LATIN_CHARS.length())));
+                    break;
+                case COMMON:
+                    if (random.nextInt(5) == 0) {
+                        value.append((char) ('0' + random.nextInt(10)));
+                    } else {
+                        value.appendCodePoint(COMMON_HANZI[random.nextInt(COMMON_HANZI.length)]);
+                    }
+                    break;
+                default:
+                    int[] pool = i == 0 ? RARE_HANZI : COMMON_HANZI;
+                    value.appendCodePoint(pool[random.nextInt(pool.length)]);
+            }
+        }
+        return value.toString();
+    }
+
+    private static int[] gb2312Rows(int firstRow, int lastRow) {
+        CharsetDecoder decoder = Charset.forName("GB2312").newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        List<Integer> codePoints = new ArrayList<>();
+        byte[] bytes = new byte[2];
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int cell = 0xA1; cell <= 0xFE; cell++) {
+                bytes[0] = (byte) row;
+                bytes[1] = (byte) cell;
+                try {
+                    decoder.decode(ByteBuffer.wrap(bytes)).toString().codePoints().forEach(codePoints::add);
+                } catch (CharacterCodingException e) {
+                    // 码位未定义（区内空位）
+                }
+            }
+        }
+        return codePoints.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
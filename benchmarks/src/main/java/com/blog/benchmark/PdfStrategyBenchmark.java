@@ -0,0 +1,130 @@
+package com.blog.benchmark;
+
+import com.blog.web.pdf.PdfGenerationService;
+import com.blog.web.pdf.PdfRequest;
+import com.blog.web.pdf.PdfResult;
+import com.blog.web.pdf.strategy.CjkCMapStrategy;
+import com.blog.web.pdf.strategy.FullEmbedStrategy;
+import com.blog.web.pdf.strategy.HybridStrategy;
+import com.blog.web.pdf.strategy.SubsetEmbedStrategy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 各PDF策略的生成吞吐量和输出大小
+ *
+ * 每个 策略 x 模板 x 数据集 组合单独测量，输出写入空输出流，只计生成本身的耗时和内存分配。
+ * 除吞吐量外还报告辅助指标 outputBytes（每个文档的平均字节数）；
+ * 内存分配用 gc profiler 测量（{@link BenchmarkMain} 默认开启），看 gc.alloc.rate.norm（每个文档分配的字节数）。
+ * outputBytes 按线程求和，多线程运行（-t）时需要除以线程数。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PdfStrategyBenchmark {
+
+    @Param({FullEmbedStrategy.NAME, SubsetEmbedStrategy.NAME, HybridStrategy.NAME, CjkCMapStrategy.NAME})
+    public String strategy;
+
+    @Param({"form", "report"})
+    public String template;
+
+    @Param({"latin", "common", "rare"})
+    public String dataSet;
+
+    private ConfigurableApplicationContext context;
+    private PdfGenerationService generationService;
+    private Path dir;
+    private PdfRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("pdf-benchmark-");
+        PdfFixtures.Template spec = PdfFixtures.Template.of(template);
+        Path templateFile = PdfFixtures.writeTemplate(spec, dir);
+        request = new PdfRequest(templateFile.toString(), PdfFixtures.data(spec, PdfFixtures.DataSet.of(dataSet)))
+                .strategy(strategy);
+
+        context = PdfBenchmarkContext.start();
+        generationService = context.getBean(PdfGenerationService.class);
+
+        // 首次生成时解析字体、生成常用字子集并缓存模板，不计入测量
+        try {
+            generationService.generate(request, OutputStream.nullOutputStream());
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("PDF生成失败，请确认字体存在（运行 web/src/main/resources/fonts/download-fonts.sh，"
+                    + "或用 -Dpdf.font-path 指定字体文件）: " + e.getMessage(), e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        if (dir != null) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public PdfResult generate(OutputSize size) throws IOException {
+        PdfResult result = generationService.generate(request, OutputStream.nullOutputStream());
+        size.record(result.getBytes());
+        return result;
+    }
+
+    /**
+     * 每次迭代生成的文档平均大小
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OutputSize {
+
+        public long outputBytes;
+
+        private long totalBytes;
+        private long documents;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            outputBytes = 0;
+            totalBytes = 0;
+            documents = 0;
+        }
+
+        void record(long bytes) {
+            totalBytes += bytes;
+            documents++;
+            outputBytes = totalBytes / documents;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.blog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 用户导入耗时：逐个调用 POST /api/users 与一次调用 POST /api/users/import 创建相同数量的用户
+ *
+ * 需要运行中的服务和管理员令牌，通过系统属性传入：
+ * -Duser-import.base-url=http://localhost:8081 -Duser-import.token=管理员accessToken
+ * 未指定 user-import.token 时 {@link BenchmarkMain} 默认不运行本测试。
+ * 每次调用创建 users 个新用户（用户名前缀不重复，可重复执行）；逐个创建的并发数由 concurrency 指定，1 为顺序调用。
+ * 创建成功的用户数少于 users 时该次调用失败，避免出错的请求被误当成更快的结果。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserImportBenchmark {
+
+    static final String TOKEN_PROPERTY = "user-import.token";
+
+    @Param({"1000"})
+    public int users;
+
+    private HttpClient client;
+    private String baseUrl;
+    private String token;
+    private String runId;
+    private int invocation;
+
+    private List<String> individualBodies;
+    private String importBody;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        baseUrl = System.getProperty("user-import.base-url", "http://localhost:8081");
+        token = System.getProperty(TOKEN_PROPERTY, "");
+        if (token.isEmpty()) {
+            throw new IllegalStateException("请用 -D" + TOKEN_PROPERTY + " 指定管理员accessToken");
+        }
+        client = HttpClient.newHttpClient();
+        runId = Long.toString(System.currentTimeMillis(), 36);
+    }
+
+    /**
+     * 请求体在计时之外准备，每次调用使用新的用户名前缀
+     */
+    @Setup(Level.Invocation)
+    public void prepareUsers() {
+        String prefix = "u" + runId + "_" + (invocation++) + "_";
+        individualBodies = new ArrayList<>(users);
+        StringBuilder body = new StringBuilder(users * 128);
+        for (int i = 0; i < users; i++) {
+            String json = userJson(prefix + i, prefix + i + "@bench.local");
+            individualBodies.add(json);
+            body.append(json).append('\n');
+        }
+        importBody = body.toString();
+    }
+
+    @Benchmark
+    public int createIndividually(Individual individual) throws Exception {
+        List<Future<Integer>> futures = new ArrayList<>(users);
+        for (String json : individualBodies) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/users"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+            futures.add(individual.pool.submit(
+                    () -> client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+        }
+        int created = 0;
+        for (Future<Integer> future : futures) {
+            if (future.get() == 200) {
+                created++;
+            }
+        }
+        return expectCreated(created);
+    }
+
+    @Benchmark
+    public int importBatch() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/import"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(importBody))
+                .build();
+        HttpResponse<Stream<String>> response =
+                client.send(request, HttpResponse.BodyHandlers.ofLines());
+        long created = response.body().filter(line -> line.contains("\"CREATED\"")).count();
+        return expectCreated((int) created);
+    }
+
+    private int expectCreated(int created) {
+        if (created != users) {
+            throw new IllegalStateException("只创建了 " + created + "/" + users + " 个用户，请检查服务日志和令牌权限");
+        }
+        return created;
+    }
+
+    private static String userJson(String username, String email) {
+        return "{\"username\":\"" + username + "\",\"email\":\"" + email
+                + "\",\"password\":\"Bench@123456\",\"fullName\":\"" + username + "\"}";
+    }
+
+    /**
+     * 逐个创建使用的线程池，只有 createIndividually 按 concurrency 展开
+     */
+    @State(Scope.Benchmark)
+    public static class Individual {
+
+        @Param({"1", "8"})
+        public int concurrency;
+
+        private ExecutorService pool;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pool = Executors.newFixedThreadPool(concurrency);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdownNow();
+        }
+    }
+}
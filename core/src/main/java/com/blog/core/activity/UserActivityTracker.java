@@ -0,0 +1,192 @@
+package com.blog.core.activity;
+
+import com.blog.api.model.User;
+import com.blog.persistence.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 用户活跃度记录器（写回缓存）
+ *
+ * 最后登录时间和最后活跃时间先记录在内存中，同一用户的多次事件合并为一条，
+ * 定期以单条批量 UPDATE ... CASE 语句写入数据库，避免在登录事务和每个请求中同步写库。
+ * 应用关闭时会把剩余记录全部写入。
+ */
+@Component
+public class UserActivityTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserActivityTracker.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${user.activity.max-pending:50000}")
+    private int maxPending;
+
+    @Value("${user.activity.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final Map<Long, PendingActivity> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong droppedSeenEvents = new AtomicLong();
+
+    /**
+     * 记录登录事件
+     */
+    public void recordLogin(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (pending.size() >= maxPending && !pending.containsKey(userId)) {
+            // 登录事件不能丢，缓冲区满时在当前线程同步写入一次
+            flush();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        pending.merge(userId, new PendingActivity(now, now), PendingActivity::merge);
+    }
+
+    /**
+     * 记录活跃事件（每个已认证请求调用一次）
+     */
+    public void recordSeen(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (pending.size() >= maxPending && !pending.containsKey(userId)) {
+            // 活跃时间只是辅助信息，缓冲区满时直接丢弃，不阻塞请求
+            droppedSeenEvents.incrementAndGet();
+            return;
+        }
+        pending.merge(userId, new PendingActivity(null, LocalDateTime.now()), PendingActivity::merge);
+    }
+
+    /**
+     * 把尚未写入数据库的活跃时间叠加到用户模型上，保证读到的是最新值
+     */
+    public User overlay(User user) {
+        if (user == null || user.getId() == null) {
+            return user;
+        }
+        PendingActivity activity = pending.get(user.getId());
+        if (activity != null) {
+            user.setLastLoginAt(PendingActivity.later(user.getLastLoginAt(), activity.lastLoginAt));
+            user.setLastSeenAt(PendingActivity.later(user.getLastSeenAt(), activity.lastSeenAt));
+        }
+        return user;
+    }
+
+    /**
+     * 待写入的用户数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 定期把合并后的活跃记录批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${user.activity.flush-interval-ms:10000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return; // 已有线程在写入
+        }
+
+        try {
+            int written = 0;
+            Map<Long, LocalDateTime> lastLoginAt = new HashMap<>();
+            Map<Long, LocalDateTime> lastSeenAt = new HashMap<>();
+
+            for (Long userId : pending.keySet()) {
+                PendingActivity activity = pending.remove(userId);
+                if (activity == null) {
+                    continue;
+                }
+                if (activity.lastLoginAt != null) {
+                    lastLoginAt.put(userId, activity.lastLoginAt);
+                }
+                if (activity.lastSeenAt != null) {
+                    lastSeenAt.put(userId, activity.lastSeenAt);
+                }
+
+                if (lastLoginAt.size() + lastSeenAt.size() >= flushBatchSize) {
+                    written += writeBatch(lastLoginAt, lastSeenAt);
+                    lastLoginAt = new HashMap<>();
+                    lastSeenAt = new HashMap<>();
+                }
+            }
+            written += writeBatch(lastLoginAt, lastSeenAt);
+
+            long dropped = droppedSeenEvents.getAndSet(0);
+            if (written > 0 || dropped > 0) {
+                logger.debug("用户活跃记录写入完成: {} 行, 丢弃活跃事件 {} 条", written, dropped);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int writeBatch(Map<Long, LocalDateTime> lastLoginAt, Map<Long, LocalDateTime> lastSeenAt) {
+        if (lastLoginAt.isEmpty() && lastSeenAt.isEmpty()) {
+            return 0;
+        }
+        try {
+            return userRepository.updateActivityTimestamps(lastLoginAt, lastSeenAt);
+        } catch (Exception e) {
+            logger.error("用户活跃记录写入失败，下次重试: {}", e.getMessage());
+            // 放回缓冲区，与期间新产生的事件合并
+            lastLoginAt.forEach((userId, time) ->
+                    pending.merge(userId, new PendingActivity(time, null), PendingActivity::merge));
+            lastSeenAt.forEach((userId, time) ->
+                    pending.merge(userId, new PendingActivity(null, time), PendingActivity::merge));
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("应用关闭，写入剩余用户活跃记录: {} 个用户", pending.size());
+        // 等待正在进行的定时写入结束，再把剩余记录写完
+        flushLock.lock();
+        flushLock.unlock();
+        flush();
+    }
+
+    /**
+     * 合并后的待写入活跃记录（不可变）
+     */
+    private static final class PendingActivity {
+        private final LocalDateTime lastLoginAt;
+        private final LocalDateTime lastSeenAt;
+
+        PendingActivity(LocalDateTime lastLoginAt, LocalDateTime lastSeenAt) {
+            this.lastLoginAt = lastLoginAt;
+            this.lastSeenAt = lastSeenAt;
+        }
+
+        static PendingActivity merge(PendingActivity a, PendingActivity b) {
+            return new PendingActivity(later(a.lastLoginAt, b.lastLoginAt), later(a.lastSeenAt, b.lastSeenAt));
+        }
+
+        static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return a.isAfter(b) ? a : b;
+        }
+    }
+}
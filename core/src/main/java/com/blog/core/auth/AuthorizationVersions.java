@@ -0,0 +1,88 @@
+package com.blog.core.auth;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 授权数据版本号
+ *
+ * 用户资料、状态或角色变化时递增该用户的版本号；
+ * 角色或权限定义变化（影响所有持有者）时递增全局版本号。
+ * 各类缓存（认证主体、权限目录等）以版本号判断是否失效，无需主动通知。
+ *
+ * 版本号只在本进程内有效，多节点部署时由缓存自身的过期时间兜底。
+ */
+@Component
+public class AuthorizationVersions {
+
+    private final Map<Long, AtomicLong> userVersions = new ConcurrentHashMap<>();
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    /**
+     * 获取用户的版本号
+     */
+    public long getUserVersion(Long userId) {
+        AtomicLong version = userVersions.get(userId);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * 获取全局（RBAC定义）版本号
+     */
+    public long getGlobalVersion() {
+        return globalVersion.get();
+    }
+
+    /**
+     * 用户资料、状态或角色发生变化
+     */
+    public void bumpUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        runNowAndAfterCommit(() -> userVersions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet());
+    }
+
+    /**
+     * 批量用户发生变化
+     */
+    public void bumpUsers(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        runNowAndAfterCommit(() -> {
+            for (Long userId : userIds) {
+                userVersions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 角色或权限定义发生变化
+     */
+    public void bumpGlobal() {
+        runNowAndAfterCommit(globalVersion::incrementAndGet);
+    }
+
+    /**
+     * 立即递增一次，事务提交后再递增一次：
+     * 避免并发读取在提交前加载到旧数据后，以新版本号写入缓存
+     */
+    private void runNowAndAfterCommit(Runnable bump) {
+        bump.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.blog.core.auth;
+
+import com.blog.persistence.repository.RoleMembershipRepository;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 权限 -> 角色 -> 用户 的反向索引（"谁拥有权限X"查询）
+ *
+ * 每个角色的成员保存为一个压缩位图（RoaringBitmap），查询时把拥有该权限的各角色位图求并集，
+ * 总数和分页都直接在位图上完成，不需要加载用户实体。
+ * 位图写时复制：修改时复制出新位图再替换，读操作不加锁。
+ * 启动时从 user_roles / role_permissions 加载，之后由各服务在事务提交后增量更新，并定期全量重建兜底。
+ * 用户ID按 int 存储（超过 Integer.MAX_VALUE 的ID会被忽略并记录日志）。
+ */
+@Component
+public class PermissionHolderIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PermissionHolderIndex.class);
+
+    @Autowired
+    private RoleMembershipRepository roleMembershipRepository;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final Object lock = new Object();
+
+    private volatile Map<Long, RoaringBitmap> usersByRole = new ConcurrentHashMap<>();
+    private volatile Map<Long, Set<Long>> rolesByPermission = Map.of();
+
+    /**
+     * 重建期间的增量操作，重建完成后在新数据上重放
+     */
+    private List<Consumer<Map<Long, RoaringBitmap>>> pendingDuringRebuild;
+    private boolean permissionsReloadedDuringRebuild;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        if (started.compareAndSet(false, true)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 全量重建（同步其他节点的修改）
+     */
+    @Scheduled(fixedDelayString = "${rbac.holder-index.rebuild-interval-ms:600000}",
+               initialDelayString = "${rbac.holder-index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (lock) {
+            pendingDuringRebuild = new ArrayList<>();
+            permissionsReloadedDuringRebuild = false;
+        }
+
+        Map<Long, RoaringBitmap> loaded = new HashMap<>();
+        Map<Long, Set<Long>> permissions;
+        try {
+            roleMembershipRepository.streamUserRoles((userId, roleId) -> {
+                if (fitsInt(userId)) {
+                    loaded.computeIfAbsent(roleId, id -> new RoaringBitmap()).add((int) userId);
+                }
+            });
+            permissions = roleMembershipRepository.findRoleIdsByPermission();
+        } catch (Exception e) {
+            synchronized (lock) {
+                pendingDuringRebuild = null;
+            }
+            logger.error("权限持有者索引构建失败: {}", e.getMessage());
+            return;
+        }
+
+        Map<Long, RoaringBitmap> next = new ConcurrentHashMap<>();
+        loaded.forEach((roleId, bitmap) -> {
+            bitmap.runOptimize();
+            next.put(roleId, bitmap);
+        });
+
+        synchronized (lock) {
+            for (Consumer<Map<Long, RoaringBitmap>> operation : pendingDuringRebuild) {
+                operation.accept(next);
+            }
+            pendingDuringRebuild = null;
+            usersByRole = next;
+            // 重建期间已重新加载过的角色权限关联比这里读到的更新
+            if (!permissionsReloadedDuringRebuild) {
+                rolesByPermission = permissions;
+            }
+        }
+        logger.info("权限持有者索引构建完成: {} 个角色, 耗时 {} ms", next.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 用户获得角色（事务提交后调用）
+     */
+    public void addUsersToRole(Long roleId, Collection<Long> userIds) {
+        RoaringBitmap delta = toBitmap(userIds);
+        apply(map -> map.compute(roleId, (id, existing) -> existing == null ? delta.clone() : RoaringBitmap.or(existing, delta)));
+    }
+
+    /**
+     * 用户失去角色（事务提交后调用）
+     */
+    public void removeUsersFromRole(Long roleId, Collection<Long> userIds) {
+        RoaringBitmap delta = toBitmap(userIds);
+        apply(map -> map.computeIfPresent(roleId, (id, existing) -> RoaringBitmap.andNot(existing, delta)));
+    }
+
+    /**
+     * 删除用户（事务提交后调用）
+     */
+    public void removeUser(Long userId) {
+        if (!fitsInt(userId)) {
+            return;
+        }
+        int id = userId.intValue();
+        apply(map -> map.replaceAll((roleId, existing) -> {
+            if (!existing.contains(id)) {
+                return existing;
+            }
+            RoaringBitmap copy = existing.clone();
+            copy.remove(id);
+            return copy;
+        }));
+    }
+
+    /**
+     * 删除角色（事务提交后调用）
+     */
+    public void removeRole(Long roleId) {
+        apply(map -> map.remove(roleId));
+        reloadRolePermissions();
+    }
+
+    /**
+     * 角色的权限发生变化或权限被删除（事务提交后调用），权限关联表很小，直接整体重新加载
+     */
+    public void reloadRolePermissions() {
+        synchronized (lock) {
+            try {
+                rolesByPermission = roleMembershipRepository.findRoleIdsByPermission();
+                if (pendingDuringRebuild != null) {
+                    permissionsReloadedDuringRebuild = true;
+                }
+            } catch (Exception e) {
+                logger.error("重新加载角色权限关联失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 拥有该权限的用户，按用户ID升序分页
+     */
+    public Page holders(Long permissionId, int offset, int limit) {
+        Map<Long, RoaringBitmap> roles = usersByRole;
+        Set<Long> roleIds = rolesByPermission.getOrDefault(permissionId, Set.of());
+
+        Map<Long, Integer> countByRole = new LinkedHashMap<>();
+        List<RoaringBitmap> bitmaps = new ArrayList<>(roleIds.size());
+        for (Long roleId : roleIds) {
+            RoaringBitmap bitmap = roles.get(roleId);
+            countByRole.put(roleId, bitmap != null ? bitmap.getCardinality() : 0);
+            if (bitmap != null) {
+                bitmaps.add(bitmap);
+            }
+        }
+
+        RoaringBitmap union = bitmaps.isEmpty() ? new RoaringBitmap() : FastAggregation.or(bitmaps.iterator());
+        long total = union.getLongCardinality();
+
+        List<Long> userIds = new ArrayList<>(Math.max(0, Math.min(limit, (int) Math.max(0, total - offset))));
+        if (offset < total && limit > 0) {
+            PeekableIntIterator iterator = union.getIntIterator();
+            iterator.advanceIfNeeded(union.select(offset));
+            while (iterator.hasNext() && userIds.size() < limit) {
+                userIds.add(Integer.toUnsignedLong(iterator.next()));
+            }
+        }
+        return new Page(total, countByRole, userIds);
+    }
+
+    private void apply(Consumer<Map<Long, RoaringBitmap>> operation) {
+        synchronized (lock) {
+            operation.accept(usersByRole);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(operation);
+            }
+        }
+    }
+
+    private static RoaringBitmap toBitmap(Collection<Long> userIds) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (Long userId : userIds) {
+            if (userId != null && fitsInt(userId)) {
+                bitmap.add(userId.intValue());
+            }
+        }
+        return bitmap;
+    }
+
+    private static boolean fitsInt(long userId) {
+        if (userId < 0 || userId > Integer.MAX_VALUE) {
+            logger.warn("用户ID超出权限持有者索引范围: {}", userId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 一页查询结果
+     */
+    public static class Page {
+        private final long total;
+        private final Map<Long, Integer> userCountByRole;
+        private final List<Long> userIds;
+
+        Page(long total, Map<Long, Integer> userCountByRole, List<Long> userIds) {
+            this.total = total;
+            this.userCountByRole = userCountByRole;
+            this.userIds = userIds;
+        }
+
+        public long getTotal() { return total; }
+        public Map<Long, Integer> getUserCountByRole() { return userCountByRole; }
+        public List<Long> getUserIds() { return userIds; }
+    }
+}
@@ -0,0 +1,33 @@
+package com.blog.core.auth;
+
+import com.blog.core.directory.UserDirectoryEntry;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 拥有某个权限的用户（一页）及各角色的成员数
+ */
+public class PermissionHolders {
+
+    private final Long permissionId;
+    private final String permissionName;
+    private final long total;
+    private final Map<String, Integer> userCountByRole;
+    private final List<UserDirectoryEntry> users;
+
+    public PermissionHolders(Long permissionId, String permissionName, long total,
+                             Map<String, Integer> userCountByRole, List<UserDirectoryEntry> users) {
+        this.permissionId = permissionId;
+        this.permissionName = permissionName;
+        this.total = total;
+        this.userCountByRole = userCountByRole;
+        this.users = users;
+    }
+
+    public Long getPermissionId() { return permissionId; }
+    public String getPermissionName() { return permissionName; }
+    public long getTotal() { return total; }
+    public Map<String, Integer> getUserCountByRole() { return userCountByRole; }
+    public List<UserDirectoryEntry> getUsers() { return users; }
+}
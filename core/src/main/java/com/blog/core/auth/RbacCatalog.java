@@ -0,0 +1,88 @@
+package com.blog.core.auth;
+
+import com.blog.api.model.Role;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 角色/权限目录（管理后台一次性渲染用），构建后只读
+ */
+public class RbacCatalog {
+
+    private final List<Role> roles;
+    private final Map<String, List<String>> actionsByResource;
+    private final String etag;
+
+    public RbacCatalog(List<Role> roles, Map<String, List<String>> actionsByResource) {
+        this.roles = List.copyOf(roles);
+        // 保留调用方给出的资源顺序，JSON 输出顺序稳定
+        Map<String, List<String>> actions = new LinkedHashMap<>();
+        actionsByResource.forEach((resource, list) -> actions.put(resource, List.copyOf(list)));
+        this.actionsByResource = Collections.unmodifiableMap(actions);
+        this.etag = computeEtag(this.roles, this.actionsByResource);
+    }
+
+    public List<Role> getRoles() { return roles; }
+    public Map<String, List<String>> getActionsByResource() { return actionsByResource; }
+
+    /**
+     * 由内容计算，各节点对相同数据得到相同的值
+     */
+    public String getEtag() { return etag; }
+
+    /**
+     * 按输出顺序对各字段做规范序列化（长度前缀，null 单独标记）后取 SHA-256
+     */
+    private static String computeEtag(List<Role> roles, Map<String, List<String>> actionsByResource) {
+        StringBuilder canonical = new StringBuilder();
+        for (Role role : roles) {
+            append(canonical, "role");
+            append(canonical, role.getId());
+            append(canonical, role.getName());
+            append(canonical, role.getDescription());
+            append(canonical, role.getIsSystem());
+            append(canonical, role.getCreatedAt());
+            appendAll(canonical, role.getPermissions());
+        }
+        for (Map.Entry<String, List<String>> entry : actionsByResource.entrySet()) {
+            append(canonical, "resource");
+            append(canonical, entry.getKey());
+            appendAll(canonical, entry.getValue());
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"rbac-" + HexFormat.of().formatHex(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void appendAll(StringBuilder canonical, Collection<String> values) {
+        if (values == null) {
+            append(canonical, null);
+            return;
+        }
+        canonical.append('[').append(values.size()).append(']');
+        for (String value : values) {
+            append(canonical, value);
+        }
+    }
+
+    private static void append(StringBuilder canonical, Object value) {
+        if (value == null) {
+            canonical.append("-;");
+            return;
+        }
+        String text = value.toString();
+        canonical.append(text.length()).append(':').append(text).append(';');
+    }
+}
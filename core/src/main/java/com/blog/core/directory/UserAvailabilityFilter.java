@@ -0,0 +1,205 @@
+package com.blog.core.directory;
+
+import com.blog.core.util.AfterCommit;
+import com.blog.core.util.BloomFilter;
+import com.blog.persistence.repository.UserBulkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户名/邮箱占用情况的布隆过滤器
+ *
+ * 过滤器判断"一定不存在"时直接返回，不再查询数据库；判断"可能存在"时由调用方做精确查询。
+ * 每个节点各自维护过滤器，其他节点新增的用户按ID增量同步（默认每5秒），
+ * 同步间隔内的"一定不存在"可能已过时；插入时由 username/email 的唯一约束兜底。
+ * 其他节点的改名，以及ID较小却较晚提交的插入，要到下次定期重建才会同步。
+ * 布隆过滤器不支持删除，删除和改名留下的旧值只会造成误判（多一次查库），
+ * 失效条目过多或插入数超出容量时重建。
+ * 过滤器构建完成前一律返回"可能存在"。
+ */
+@Component
+public class UserAvailabilityFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAvailabilityFilter.class);
+
+    @Autowired
+    private UserBulkRepository userBulkRepository;
+
+    @Value("${user.availability.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${user.availability.min-capacity:100000}")
+    private long minCapacity;
+
+    @Value("${user.availability.max-stale-ratio:0.2}")
+    private double maxStaleRatio;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicLong staleCount = new AtomicLong();
+
+    private volatile Filters current;
+    private volatile Filters building;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        if (started.compareAndSet(false, true)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 用户名可能已被占用（false 表示一定未被占用）
+     */
+    public boolean mightContainUsername(String username) {
+        Filters filters = current;
+        return filters == null || username == null || filters.usernames.mightContain(normalize(username));
+    }
+
+    /**
+     * 邮箱可能已被占用（false 表示一定未被占用）
+     */
+    public boolean mightContainEmail(String email) {
+        Filters filters = current;
+        return filters == null || email == null || filters.emails.mightContain(normalize(email));
+    }
+
+    /**
+     * 新增用户或修改用户名/邮箱时调用
+     * 立即写入一次（提交前多出的条目只会造成误判），事务提交后再写入一次，避免与重建交错时丢失
+     */
+    public void add(String username, String email) {
+        addNow(username, email);
+        AfterCommit.run(() -> addNow(username, email));
+    }
+
+    private void addNow(String username, String email) {
+        // 重建期间同时写入新旧两个过滤器；先读 building 再读 current，保证切换前后都不会丢失
+        Filters next = building;
+        Filters target = current;
+        for (Filters filters : new Filters[] {next, target}) {
+            if (filters != null) {
+                filters.add(username, email);
+            }
+        }
+    }
+
+    /**
+     * 删除用户或修改用户名/邮箱后调用，旧值仍留在过滤器中，累计到阈值后重建
+     */
+    public void markStale() {
+        staleCount.incrementAndGet();
+    }
+
+    /**
+     * 增量同步其他节点新增的用户
+     */
+    @Scheduled(fixedDelayString = "${user.availability.sync-interval-ms:5000}",
+               initialDelayString = "${user.availability.sync-interval-ms:5000}")
+    public synchronized void syncNewUsers() {
+        Filters filters = current;
+        if (filters == null) {
+            return;
+        }
+        try {
+            userBulkRepository.streamDirectoryAfter(filters.maxUserId, (id, username, email, fullName) -> {
+                filters.add(username, email);
+                filters.maxUserId = id;
+            });
+        } catch (Exception e) {
+            logger.warn("同步新增用户到用户名/邮箱过滤器失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定期重建：同步其他节点的改名，清理失效条目
+     */
+    @Scheduled(fixedDelayString = "${user.availability.rebuild-interval-ms:600000}",
+               initialDelayString = "${user.availability.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * 失效条目过多或容量不足时提前重建
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void rebuildIfNeeded() {
+        Filters filters = current;
+        if (filters == null) {
+            return;
+        }
+        boolean overCapacity = filters.insertions.get() > filters.capacity;
+        boolean tooStale = staleCount.get() > filters.insertions.get() * maxStaleRatio;
+        if (overCapacity || tooStale) {
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Filters filters = current;
+        long expected = Math.max(minCapacity, filters != null ? filters.insertions.get() * 2 : 0);
+
+        Filters next = new Filters(expected, falsePositiveRate);
+        building = next;
+        staleCount.set(0);
+        try {
+            userBulkRepository.streamDirectory((id, username, email, fullName) -> {
+                next.add(username, email);
+                next.maxUserId = Math.max(next.maxUserId, id);
+            });
+        } catch (Exception e) {
+            building = null;
+            logger.error("用户名/邮箱过滤器构建失败: {}", e.getMessage());
+            return;
+        }
+
+        current = next;
+        building = null;
+        logger.info("用户名/邮箱过滤器构建完成: {} 个用户, {} KB, 耗时 {} ms",
+                next.insertions.get(), (next.usernames.sizeInBytes() + next.emails.sizeInBytes()) / 1024,
+                System.currentTimeMillis() - start);
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Filters {
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+        private final long capacity;
+        private final AtomicLong insertions = new AtomicLong();
+
+        /**
+         * 已同步的最大用户ID，只在持有外部对象锁（rebuild/syncNewUsers）时修改
+         */
+        private volatile long maxUserId;
+
+        Filters(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.usernames = new BloomFilter(capacity, falsePositiveRate);
+            this.emails = new BloomFilter(capacity, falsePositiveRate);
+        }
+
+        void add(String username, String email) {
+            if (username != null) {
+                usernames.put(normalize(username));
+            }
+            if (email != null) {
+                emails.put(normalize(email));
+            }
+            insertions.incrementAndGet();
+        }
+    }
+}
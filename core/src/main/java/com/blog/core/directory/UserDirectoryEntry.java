@@ -0,0 +1,54 @@
+package com.blog.core.directory;
+
+/**
+ * 用户目录中的一条记录（不可变）
+ */
+public class UserDirectoryEntry {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String fullName;
+    private final String normalizedUsername;
+    private final String normalizedEmail;
+    private final String[] keys;
+
+    UserDirectoryEntry(Long id, String username, String email, String fullName) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.fullName = fullName;
+        this.normalizedUsername = UserSearchNormalizer.normalize(username);
+        this.normalizedEmail = UserSearchNormalizer.normalize(email);
+        this.keys = UserSearchNormalizer.keys(username, email, fullName).toArray(new String[0]);
+    }
+
+    /**
+     * 任一搜索键以该前缀开头
+     */
+    boolean matches(String normalizedPrefix) {
+        for (String key : keys) {
+            if (key.startsWith(normalizedPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    String[] keys() {
+        return keys;
+    }
+
+    String normalizedUsername() {
+        return normalizedUsername;
+    }
+
+    String normalizedEmail() {
+        return normalizedEmail;
+    }
+
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public String getEmail() { return email; }
+    public String getFullName() { return fullName; }
+}
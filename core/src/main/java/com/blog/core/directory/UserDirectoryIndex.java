@@ -0,0 +1,315 @@
+package com.blog.core.directory;
+
+import com.blog.api.model.User;
+import com.blog.persistence.repository.UserBulkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用户目录内存索引（管理后台用户搜索/自动补全）
+ *
+ * 主体是按搜索键排序的数组快照，前缀查询为一次二分查找加顺序扫描；
+ * 快照之后的新增和修改写入跳表增量，删除和修改后的旧键不从快照中移除，
+ * 而是在返回前用当前记录重新校验。增量过大时定期合并生成新快照。
+ * 启动时从 users 表流式加载，之后由 UserServiceImpl 的写操作在事务提交后维护。
+ */
+@Component
+public class UserDirectoryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectoryIndex.class);
+
+    /**
+     * 每个结果最多检查的候选数倍数，防止极短前缀扫描整个快照
+     */
+    private static final int CANDIDATE_FACTOR = 8;
+
+    @Autowired
+    private UserBulkRepository userBulkRepository;
+
+    @Value("${user.directory.compact-threshold:10000}")
+    private int compactThreshold;
+
+    /**
+     * 用户ID -> 当前记录，搜索结果以此为准
+     */
+    private final Map<Long, UserDirectoryEntry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean loaded = new AtomicBoolean();
+    private final Set<Long> removedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+
+    /**
+     * 快照中已失效（被修改或删除）的用户数，与增量大小一起决定何时合并
+     */
+    private final AtomicInteger staleCount = new AtomicInteger();
+
+    private volatile State state = new State(Snapshot.EMPTY, null, new ConcurrentSkipListSet<>());
+
+    /**
+     * 应用启动后从数据库加载
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        if (loaded.compareAndSet(false, true)) {
+            load();
+        }
+    }
+
+    private synchronized void load() {
+        long start = System.currentTimeMillis();
+        loading = true;
+        removedWhileLoading.clear();
+        try {
+            userBulkRepository.streamDirectory((id, username, email, fullName) -> {
+                // 加载期间的实时写入以实时数据为准
+                if (!removedWhileLoading.contains(id)) {
+                    entries.putIfAbsent(id, new UserDirectoryEntry(id, username, email, fullName));
+                }
+            });
+        } catch (Exception e) {
+            logger.error("用户目录索引加载失败: {}", e.getMessage());
+        } finally {
+            loading = false;
+            removedWhileLoading.clear();
+        }
+        compact();
+        logger.info("用户目录索引加载完成: {} 个用户, 耗时 {} ms", entries.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 新增或更新用户（事务提交后调用）
+     */
+    public void upsert(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        UserDirectoryEntry entry = new UserDirectoryEntry(user.getId(), user.getUsername(), user.getEmail(), user.getFullName());
+        if (entries.put(entry.getId(), entry) != null) {
+            staleCount.incrementAndGet();
+        }
+
+        NavigableSet<Key> delta = state.delta;
+        for (String key : entry.keys()) {
+            delta.add(new Key(key, entry.getId()));
+        }
+    }
+
+    /**
+     * 移除用户（事务提交后调用）
+     */
+    public void remove(Long userId) {
+        if (loading) {
+            removedWhileLoading.add(userId);
+        }
+        if (entries.remove(userId) != null) {
+            staleCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 前缀搜索，匹配用户名、邮箱、姓名中任一单词开头
+     */
+    public List<UserDirectoryEntry> search(String prefix, int limit) {
+        String query = UserSearchNormalizer.normalizeQuery(prefix);
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        State current = state;
+        int maxCandidates = limit * CANDIDATE_FACTOR;
+        Set<Long> candidates = new LinkedHashSet<>();
+        current.snapshot.collect(query, candidates, maxCandidates);
+        if (current.frozenDelta != null) {
+            collect(current.frozenDelta, query, candidates, maxCandidates * 2);
+        }
+        collect(current.delta, query, candidates, maxCandidates * 3);
+
+        List<UserDirectoryEntry> results = new ArrayList<>();
+        for (Long id : candidates) {
+            UserDirectoryEntry entry = entries.get(id);
+            if (entry != null && entry.matches(query)) {
+                results.add(entry);
+            }
+        }
+
+        results.sort(Comparator
+                .comparingInt((UserDirectoryEntry entry) -> rank(entry, query))
+                .thenComparingInt(entry -> entry.getUsername().length())
+                .thenComparing(UserDirectoryEntry::getUsername));
+        return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+    }
+
+    /**
+     * 按ID批量读取用户目录信息，保持传入顺序；索引中没有的用户只返回ID
+     */
+    public List<UserDirectoryEntry> lookup(Collection<Long> userIds) {
+        List<UserDirectoryEntry> results = new ArrayList<>(userIds.size());
+        for (Long id : userIds) {
+            UserDirectoryEntry entry = entries.get(id);
+            results.add(entry != null ? entry : new UserDirectoryEntry(id, null, null, null));
+        }
+        return results;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 增量超过阈值时合并为新快照
+     */
+    @Scheduled(fixedDelayString = "${user.directory.compact-interval-ms:60000}")
+    public void compactIfNeeded() {
+        if (state.delta.size() + staleCount.get() >= compactThreshold) {
+            compact();
+        }
+    }
+
+    private synchronized void compact() {
+        // 先冻结当前增量并切换到新的增量，合并期间的写入进入新增量，搜索同时查三处
+        State before = state;
+        NavigableSet<Key> newDelta = new ConcurrentSkipListSet<>();
+        state = new State(before.snapshot, before.delta, newDelta);
+        staleCount.set(0);
+
+        Snapshot snapshot = Snapshot.build(entries.values());
+        state = new State(snapshot, null, newDelta);
+        logger.debug("用户目录索引合并完成: {} 个搜索键", snapshot.keys.length);
+    }
+
+    private static void collect(NavigableSet<Key> delta, String query, Set<Long> candidates, int maxCandidates) {
+        for (Key key : delta.tailSet(new Key(query, Long.MIN_VALUE), true)) {
+            if (!key.key.startsWith(query) || candidates.size() >= maxCandidates) {
+                break;
+            }
+            candidates.add(key.userId);
+        }
+    }
+
+    private static int rank(UserDirectoryEntry entry, String query) {
+        if (entry.normalizedUsername().startsWith(query)) {
+            return 0;
+        }
+        if (entry.normalizedEmail().startsWith(query)) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private static final class State {
+        private final Snapshot snapshot;
+        private final NavigableSet<Key> frozenDelta;
+        private final NavigableSet<Key> delta;
+
+        State(Snapshot snapshot, NavigableSet<Key> frozenDelta, NavigableSet<Key> delta) {
+            this.snapshot = snapshot;
+            this.frozenDelta = frozenDelta;
+            this.delta = delta;
+        }
+    }
+
+    /**
+     * 排序后的 (搜索键, 用户ID) 数组，构建后只读
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(new String[0], new long[0]);
+
+        private final String[] keys;
+        private final long[] userIds;
+
+        private Snapshot(String[] keys, long[] userIds) {
+            this.keys = keys;
+            this.userIds = userIds;
+        }
+
+        static Snapshot build(Iterable<UserDirectoryEntry> source) {
+            List<Key> all = new ArrayList<>();
+            for (UserDirectoryEntry entry : source) {
+                for (String key : entry.keys()) {
+                    all.add(new Key(key, entry.getId()));
+                }
+            }
+            Key[] sorted = all.toArray(new Key[0]);
+            Arrays.sort(sorted);
+
+            String[] keys = new String[sorted.length];
+            long[] userIds = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                keys[i] = sorted[i].key;
+                userIds[i] = sorted[i].userId;
+            }
+            return new Snapshot(keys, userIds);
+        }
+
+        void collect(String query, Set<Long> candidates, int maxCandidates) {
+            int index = lowerBound(query);
+            while (index < keys.length && keys[index].startsWith(query) && candidates.size() < maxCandidates) {
+                candidates.add(userIds[index]);
+                index++;
+            }
+        }
+
+        private int lowerBound(String query) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(query) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final String key;
+        private final long userId;
+
+        Key(String key, long userId) {
+            this.key = key;
+            this.userId = userId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = key.compareTo(other.key);
+            return result != 0 ? result : Long.compare(userId, other.userId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return userId == other.userId && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + Long.hashCode(userId);
+        }
+    }
+}
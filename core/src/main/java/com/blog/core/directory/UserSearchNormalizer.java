@@ -0,0 +1,131 @@
+package com.blog.core.directory;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 用户搜索键的归一化
+ *
+ * 统一转小写、全角转半角、去除变音符号（é -> e），并为每个字段生成多个可按前缀匹配的键：
+ * 用户名和邮箱在 . _ - @ 及字母数字交界处切分，支持从中间单词开始匹配；
+ * 姓名生成各单词、从任一单词开始的连写（zhang san feng -> zhangsanfeng / sanfeng）和首字母（zsf），
+ * 中文姓名生成所有后缀，支持输入名而不输入姓。
+ */
+public final class UserSearchNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NAME_SEPARATORS = Pattern.compile("[\\s\\p{Punct}·・]+");
+    private static final int MAX_CJK_SUFFIX_LENGTH = 16;
+
+    private UserSearchNormalizer() {
+    }
+
+    /**
+     * 归一化单个字符串
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * 归一化搜索输入，去掉空白以匹配姓名的连写键
+     */
+    public static String normalizeQuery(String query) {
+        return normalize(query).replaceAll("\\s+", "");
+    }
+
+    /**
+     * 生成一个用户的全部搜索键
+     */
+    public static Set<String> keys(String username, String email, String fullName) {
+        Set<String> keys = new LinkedHashSet<>();
+        addIdentifierKeys(keys, normalize(username));
+
+        String normalizedEmail = normalize(email);
+        addIdentifierKeys(keys, normalizedEmail);
+
+        addNameKeys(keys, normalize(fullName));
+        keys.remove("");
+        return keys;
+    }
+
+    /**
+     * 用户名/邮箱：整串 + 每个单词边界开始的后缀
+     */
+    private static void addIdentifierKeys(Set<String> keys, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        keys.add(value);
+        for (int i = 1; i < value.length(); i++) {
+            char previous = value.charAt(i - 1);
+            char current = value.charAt(i);
+            boolean separator = previous == '.' || previous == '_' || previous == '-' || previous == '@' || previous == '+';
+            boolean transition = Character.isDigit(previous) != Character.isDigit(current)
+                    && Character.isLetterOrDigit(previous) && Character.isLetterOrDigit(current);
+            if ((separator || transition) && Character.isLetterOrDigit(current)) {
+                keys.add(value.substring(i));
+            }
+        }
+    }
+
+    private static void addNameKeys(Set<String> keys, String name) {
+        if (name.isEmpty()) {
+            return;
+        }
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : NAME_SEPARATORS.split(name)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        StringBuilder initials = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            keys.add(String.join("", tokens.subList(i, tokens.size())));
+            initials.append(tokens.get(i).charAt(0));
+        }
+        if (tokens.size() > 1) {
+            keys.add(initials.toString());
+        }
+
+        for (String token : tokens) {
+            addCjkSuffixes(keys, token);
+        }
+    }
+
+    /**
+     * 中文等表意文字没有空格分词，为每段连续的表意文字生成后缀
+     */
+    private static void addCjkSuffixes(Set<String> keys, String token) {
+        int start = -1;
+        for (int i = 0; i <= token.length(); i++) {
+            boolean ideographic = i < token.length() && Character.isIdeographic(token.charAt(i));
+            if (ideographic && start < 0) {
+                start = i;
+            } else if (!ideographic && start >= 0) {
+                String run = token.substring(start, i);
+                for (int j = 1; j < run.length(); j++) {
+                    String suffix = run.substring(j);
+                    if (suffix.length() <= MAX_CJK_SUFFIX_LENGTH) {
+                        keys.add(suffix);
+                    }
+                }
+                start = -1;
+            }
+        }
+    }
+}
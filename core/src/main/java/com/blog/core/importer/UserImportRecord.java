@@ -0,0 +1,33 @@
+package com.blog.core.importer;
+
+import java.util.Set;
+
+/**
+ * 待导入的一行用户数据
+ */
+public class UserImportRecord {
+
+    private final long line;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final String fullName;
+    private final Set<String> roles;
+
+    public UserImportRecord(long line, String username, String email, String password,
+                            String fullName, Set<String> roles) {
+        this.line = line;
+        this.username = username;
+        this.email = email;
+        this.password = password;
+        this.fullName = fullName;
+        this.roles = roles != null ? roles : Set.of();
+    }
+
+    public long getLine() { return line; }
+    public String getUsername() { return username; }
+    public String getEmail() { return email; }
+    public String getPassword() { return password; }
+    public String getFullName() { return fullName; }
+    public Set<String> getRoles() { return roles; }
+}
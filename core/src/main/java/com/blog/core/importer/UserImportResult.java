@@ -0,0 +1,42 @@
+package com.blog.core.importer;
+
+/**
+ * 单行导入结果
+ */
+public class UserImportResult {
+
+    public enum Status {
+        CREATED,    // 已创建
+        DUPLICATE,  // 用户名或邮箱已存在
+        INVALID,    // 数据校验失败
+        FAILED      // 写库失败
+    }
+
+    private final long line;
+    private final String username;
+    private final Status status;
+    private final Long userId;
+    private final String message;
+
+    private UserImportResult(long line, String username, Status status, Long userId, String message) {
+        this.line = line;
+        this.username = username;
+        this.status = status;
+        this.userId = userId;
+        this.message = message;
+    }
+
+    public static UserImportResult created(UserImportRecord record, Long userId) {
+        return new UserImportResult(record.getLine(), record.getUsername(), Status.CREATED, userId, null);
+    }
+
+    public static UserImportResult rejected(UserImportRecord record, Status status, String message) {
+        return new UserImportResult(record.getLine(), record.getUsername(), status, null, message);
+    }
+
+    public long getLine() { return line; }
+    public String getUsername() { return username; }
+    public Status getStatus() { return status; }
+    public Long getUserId() { return userId; }
+    public String getMessage() { return message; }
+}
@@ -1,6 +1,7 @@
 package com.blog.core.service;
 
 import com.blog.api.model.Permission;
+import com.blog.core.auth.PermissionHolders;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -73,4 +74,9 @@ public interface PermissionService {
      * 获取指定资源的所有操作
      */
     List<String> getActionsByResource(String resource);
-}
\ No newline at end of file
+    
+    /**
+     * 拥有该权限的用户（按用户ID升序分页，内存索引）
+     */
+    PermissionHolders getPermissionHolders(Long permissionId, int page, int size);
+}
@@ -0,0 +1,11 @@
+package com.blog.core.service;
+
+import com.blog.core.auth.RbacCatalog;
+
+public interface RbacCatalogService {
+    
+    /**
+     * 获取角色/权限目录（按RBAC全局版本号缓存）
+     */
+    RbacCatalog getCatalog();
+}
@@ -0,0 +1,20 @@
+package com.blog.core.service;
+
+import com.blog.core.importer.UserImportRecord;
+import com.blog.core.importer.UserImportResult;
+
+import java.util.List;
+
+public interface UserImportService {
+
+    /**
+     * 导入一批用户，结果顺序与输入一致
+     * 每批在单独的事务中写入，批次之间互不影响
+     */
+    List<UserImportResult> importChunk(List<UserImportRecord> records);
+
+    /**
+     * 每批导入的行数
+     */
+    int getChunkSize();
+}
@@ -1,11 +1,20 @@
 package com.blog.core.service;
 
 import com.blog.api.model.User;
+import com.blog.core.directory.UserDirectoryEntry;
+import com.blog.persistence.repository.UserBulkRepository;
+import com.blog.persistence.repository.UserFilter;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserService {
     
@@ -44,6 +53,21 @@ public interface UserService {
      */
     Page<User> getUsers(Pageable pageable);
     
+    /**
+     * 按ID倒序滚动获取用户（键集分页，不统计总数）
+     */
+    Slice<User> scrollUsers(Long beforeId, int size);
+    
+    /**
+     * 流式导出全部用户及其角色，按用户ID顺序逐个回调（在同一只读事务中执行，数据为一致快照）
+     */
+    void exportUsers(Consumer<User> consumer);
+    
+    /**
+     * 按用户名、邮箱或姓名前缀搜索用户（内存索引）
+     */
+    List<UserDirectoryEntry> searchUsers(String prefix, int limit);
+    
     /**
      * 检查用户名是否存在
      */
@@ -64,6 +88,26 @@ public interface UserService {
      */
     void removeRole(Long userId, Long roleId);
     
+    /**
+     * 为一批用户分配角色，返回新增的关联数
+     */
+    int assignRoleToUsers(Long roleId, Collection<Long> userIds);
+    
+    /**
+     * 撤销一批用户的角色，返回删除的关联数
+     */
+    int revokeRoleFromUsers(Long roleId, Collection<Long> userIds);
+    
+    /**
+     * 为匹配筛选条件的全部用户分配角色
+     */
+    int assignRoleToMatchingUsers(Long roleId, UserFilter filter);
+    
+    /**
+     * 撤销匹配筛选条件的全部用户的角色
+     */
+    int revokeRoleFromMatchingUsers(Long roleId, UserFilter filter);
+    
     /**
      * 获取用户的所有角色
      */
@@ -74,11 +118,21 @@ public interface UserService {
      */
     boolean hasPermission(Long userId, String resource, String action);
     
+    /**
+     * 获取用户拥有的全部权限（resource:action 格式）
+     */
+    Set<String> getUserPermissionKeys(Long userId);
+    
     /**
      * 更新用户最后登录时间
      */
     void updateLastLoginTime(Long userId);
     
+    /**
+     * 直接更新已加密的密码哈希（登录时密码重新加密使用）
+     */
+    void updatePasswordHash(Long userId, String passwordHash);
+    
     /**
      * 锁定用户
      */
@@ -89,6 +143,28 @@ public interface UserService {
      */
     void unlockUser(Long userId);
     
+    /**
+     * 批量修改用户状态（单条 UPDATE），返回每个用户的处理结果
+     */
+    Map<Long, StatusChangeOutcome> changeStatus(Collection<Long> userIds, User.UserStatus status);
+    
+    /**
+     * 临时锁定到指定时间，到期后由 {@link #unlockExpiredLockouts()} 解锁；只锁定 ACTIVE 的用户
+     *
+     * @return 是否锁定
+     */
+    boolean lockTemporarily(Long userId, LocalDateTime until);
+    
+    /**
+     * 解锁临时锁定已到期的用户，返回解锁的用户ID
+     */
+    List<Long> unlockExpiredLockouts();
+    
+    /**
+     * 遍历临时锁定中的用户（启动时恢复锁定信息）
+     */
+    void forEachTemporaryLock(UserBulkRepository.TemporaryLockHandler handler);
+    
     /**
      * 激活用户
      */
@@ -98,4 +174,11 @@ public interface UserService {
      * 停用用户
      */
     void deactivateUser(Long userId);
-}
\ No newline at end of file
+    
+    /**
+     * 批量修改状态时单个用户的处理结果
+     */
+    enum StatusChangeOutcome {
+        UPDATED, UNCHANGED, NOT_FOUND
+    }
+}
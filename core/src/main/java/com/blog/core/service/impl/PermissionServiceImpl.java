@@ -1,8 +1,14 @@
 package com.blog.core.service.impl;
 
 import com.blog.api.model.Permission;
+import com.blog.core.auth.AuthorizationVersions;
+import com.blog.core.auth.PermissionHolderIndex;
+import com.blog.core.auth.PermissionHolders;
+import com.blog.core.directory.UserDirectoryIndex;
 import com.blog.core.service.PermissionService;
+import com.blog.core.util.AfterCommit;
 import com.blog.persistence.repository.PermissionRepository;
+import com.blog.persistence.repository.RoleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,7 +16,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,6 +28,18 @@ public class PermissionServiceImpl implements PermissionService {
     @Autowired
     private PermissionRepository permissionRepository;
     
+    @Autowired
+    private AuthorizationVersions authorizationVersions;
+    
+    @Autowired
+    private PermissionHolderIndex permissionHolderIndex;
+    
+    @Autowired
+    private RoleRepository roleRepository;
+    
+    @Autowired
+    private UserDirectoryIndex userDirectoryIndex;
+    
     @Override
     public Permission createPermission(Permission permission) {
         // 检查权限名是否已存在
@@ -35,7 +55,9 @@ public class PermissionServiceImpl implements PermissionService {
         // 设置创建时间
         permission.setCreatedAt(LocalDateTime.now());
         
-        return permissionRepository.save(permission);
+        Permission savedPermission = permissionRepository.save(permission);
+        authorizationVersions.bumpGlobal();
+        return savedPermission;
     }
     
     @Override
@@ -62,7 +84,9 @@ public class PermissionServiceImpl implements PermissionService {
         existingPermission.setResource(permission.getResource());
         existingPermission.setAction(permission.getAction());
         
-        return permissionRepository.save(existingPermission);
+        Permission savedPermission = permissionRepository.save(existingPermission);
+        authorizationVersions.bumpGlobal();
+        return savedPermission;
     }
     
     @Override
@@ -75,6 +99,8 @@ public class PermissionServiceImpl implements PermissionService {
         // 这里为简化暂时直接删除，实际应用中需要更谨慎的处理
         
         permissionRepository.deleteById(permissionId);
+        authorizationVersions.bumpGlobal();
+        AfterCommit.run(permissionHolderIndex::reloadRolePermissions);
     }
     
     @Override
@@ -136,4 +162,22 @@ public class PermissionServiceImpl implements PermissionService {
     public List<String> getActionsByResource(String resource) {
         return permissionRepository.findActionsByResource(resource);
     }
-}
\ No newline at end of file
+    
+    @Override
+    @Transactional(readOnly = true)
+    public PermissionHolders getPermissionHolders(Long permissionId, int page, int size) {
+        Permission permission = permissionRepository.findById(permissionId)
+                .orElseThrow(() -> new RuntimeException("权限不存在: " + permissionId));
+        
+        PermissionHolderIndex.Page holders = permissionHolderIndex.holders(permissionId, page * size, size);
+        
+        // 角色名一条投影查询取出
+        Map<Long, String> roleNames = roleRepository.findNamesByIds(holders.getUserCountByRole().keySet());
+        Map<String, Integer> userCountByRole = new LinkedHashMap<>();
+        holders.getUserCountByRole().forEach((roleId, count) ->
+                userCountByRole.put(roleNames.getOrDefault(roleId, String.valueOf(roleId)), count));
+        
+        return new PermissionHolders(permissionId, permission.getName(), holders.getTotal(),
+                userCountByRole, userDirectoryIndex.lookup(holders.getUserIds()));
+    }
+}
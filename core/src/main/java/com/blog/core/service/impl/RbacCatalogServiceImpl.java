@@ -0,0 +1,75 @@
+package com.blog.core.service.impl;
+
+import com.blog.api.model.Role;
+import com.blog.core.auth.AuthorizationVersions;
+import com.blog.core.auth.RbacCatalog;
+import com.blog.core.service.RbacCatalogService;
+import com.blog.persistence.repository.PermissionRepository;
+import com.blog.persistence.repository.RoleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 角色/权限目录
+ *
+ * 两条查询构建：角色和权限名一条 JOIN 投影查询，资源和操作一条 SELECT DISTINCT。
+ * 结果按 RBAC 全局版本号缓存，角色或权限定义变化后下一次请求重新构建；
+ * 版本号只在本节点有效，其他节点的修改由过期时间兜底。
+ */
+@Service
+public class RbacCatalogServiceImpl implements RbacCatalogService {
+    
+    @Autowired
+    private RoleRepository roleRepository;
+    
+    @Autowired
+    private PermissionRepository permissionRepository;
+    
+    @Autowired
+    private AuthorizationVersions authorizationVersions;
+    
+    @Value("${rbac.catalog.ttl-ms:60000}")
+    private long ttlMillis;
+    
+    private volatile Cached cached;
+    
+    @Override
+    @Transactional(readOnly = true)
+    public RbacCatalog getCatalog() {
+        // 先读版本号再加载，加载期间发生的修改会让下一次请求重新加载
+        long version = authorizationVersions.getGlobalVersion();
+        Cached current = cached;
+        if (current != null && current.version == version
+                && System.currentTimeMillis() - current.loadedAt < ttlMillis) {
+            return current.catalog;
+        }
+        
+        List<Role> roles = roleRepository.findAll();
+        for (Role role : roles) {
+            role.setPermissions(new TreeSet<>(role.getPermissions()));
+        }
+        Map<String, List<String>> actions = permissionRepository.findActionsGroupedByResource();
+        
+        RbacCatalog catalog = new RbacCatalog(roles, actions);
+        cached = new Cached(version, System.currentTimeMillis(), catalog);
+        return catalog;
+    }
+    
+    private static final class Cached {
+        private final long version;
+        private final long loadedAt;
+        private final RbacCatalog catalog;
+        
+        Cached(long version, long loadedAt, RbacCatalog catalog) {
+            this.version = version;
+            this.loadedAt = loadedAt;
+            this.catalog = catalog;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.blog.core.service.impl;
 
 import com.blog.api.model.Role;
+import com.blog.core.auth.AuthorizationVersions;
+import com.blog.core.auth.PermissionHolderIndex;
 import com.blog.core.service.RoleService;
+import com.blog.core.util.AfterCommit;
 import com.blog.persistence.repository.RoleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -21,6 +24,12 @@ public class RoleServiceImpl implements RoleService {
     @Autowired
     private RoleRepository roleRepository;
     
+    @Autowired
+    private AuthorizationVersions authorizationVersions;
+    
+    @Autowired
+    private PermissionHolderIndex permissionHolderIndex;
+    
     @Override
     public Role createRole(Role role) {
         // 检查角色名是否已存在
@@ -32,7 +41,9 @@ public class RoleServiceImpl implements RoleService {
         role.setIsSystem(false); // 新创建的角色默认不是系统角色
         role.setCreatedAt(LocalDateTime.now());
         
-        return roleRepository.save(role);
+        Role savedRole = roleRepository.save(role);
+        authorizationVersions.bumpGlobal();
+        return savedRole;
     }
     
     @Override
@@ -59,7 +70,9 @@ public class RoleServiceImpl implements RoleService {
             existingRole.setIsSystem(role.getIsSystem());
         }
         
-        return roleRepository.save(existingRole);
+        Role savedRole = roleRepository.save(existingRole);
+        authorizationVersions.bumpGlobal();
+        return savedRole;
     }
     
     @Override
@@ -73,6 +86,8 @@ public class RoleServiceImpl implements RoleService {
         }
         
         roleRepository.deleteById(roleId);
+        authorizationVersions.bumpGlobal();
+        AfterCommit.run(() -> permissionHolderIndex.removeRole(roleId));
     }
     
     @Override
@@ -111,6 +126,8 @@ public class RoleServiceImpl implements RoleService {
             throw new RuntimeException("角色不存在: " + roleId);
         }
         roleRepository.assignPermission(roleId, permissionId);
+        authorizationVersions.bumpGlobal();
+        AfterCommit.run(permissionHolderIndex::reloadRolePermissions);
     }
     
     @Override
@@ -119,6 +136,8 @@ public class RoleServiceImpl implements RoleService {
             throw new RuntimeException("角色不存在: " + roleId);
         }
         roleRepository.removePermission(roleId, permissionId);
+        authorizationVersions.bumpGlobal();
+        AfterCommit.run(permissionHolderIndex::reloadRolePermissions);
     }
     
     @Override
@@ -139,6 +158,8 @@ public class RoleServiceImpl implements RoleService {
         for (Long permissionId : permissionIds) {
             roleRepository.assignPermission(roleId, permissionId);
         }
+        authorizationVersions.bumpGlobal();
+        AfterCommit.run(permissionHolderIndex::reloadRolePermissions);
     }
     
     @Override
@@ -0,0 +1,275 @@
+package com.blog.core.service.impl;
+
+import com.blog.api.model.User;
+import com.blog.core.auth.PermissionHolderIndex;
+import com.blog.core.directory.UserAvailabilityFilter;
+import com.blog.core.directory.UserDirectoryIndex;
+import com.blog.core.importer.UserImportRecord;
+import com.blog.core.importer.UserImportResult;
+import com.blog.core.service.UserImportService;
+import com.blog.persistence.repository.UserBulkRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * 用户批量导入
+ *
+ * 每批数据：先在内存中校验和去重，再用 IN 查询一次性检查已存在的用户名/邮箱，
+ * 密码在专用的 ForkJoinPool 中并行加密（不占用事务和数据库连接），
+ * 最后在一个短事务中批量插入用户和用户角色。
+ */
+@Service
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportServiceImpl.class);
+
+    @Autowired
+    private UserBulkRepository userBulkRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserDirectoryIndex userDirectoryIndex;
+
+    @Autowired
+    private UserAvailabilityFilter userAvailabilityFilter;
+
+    @Autowired
+    private PermissionHolderIndex permissionHolderIndex;
+
+    @Value("${user.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${user.import.hash-threads:0}")
+    private int hashThreads;
+
+    private ForkJoinPool hashPool;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        int parallelism = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        hashPool = new ForkJoinPool(parallelism);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public List<UserImportResult> importChunk(List<UserImportRecord> records) {
+        Map<UserImportRecord, UserImportResult> results = new LinkedHashMap<>();
+        records.forEach(record -> results.put(record, null));
+
+        // 1. 格式校验和文件内去重
+        List<UserImportRecord> candidates = new ArrayList<>();
+        Set<String> seenUsernames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        for (UserImportRecord record : records) {
+            String error = validate(record);
+            if (error != null) {
+                results.put(record, UserImportResult.rejected(record, UserImportResult.Status.INVALID, error));
+            } else if (!seenUsernames.add(lower(record.getUsername())) || !seenEmails.add(lower(record.getEmail()))) {
+                results.put(record, UserImportResult.rejected(record, UserImportResult.Status.DUPLICATE, "导入数据中用户名或邮箱重复"));
+            } else {
+                candidates.add(record);
+            }
+        }
+
+        // 2. 角色名解析
+        Set<String> roleNames = candidates.stream()
+                .flatMap(record -> record.getRoles().stream())
+                .collect(Collectors.toSet());
+        Map<String, Long> roleIds = userBulkRepository.findRoleIdsByNames(roleNames);
+        candidates.removeIf(record -> {
+            for (String role : record.getRoles()) {
+                if (!roleIds.containsKey(role)) {
+                    results.put(record, UserImportResult.rejected(record, UserImportResult.Status.INVALID, "角色不存在: " + role));
+                    return true;
+                }
+            }
+            return false;
+        });
+
+        // 3. 与数据库去重（集合查询）
+        candidates = removeExisting(candidates, results);
+        if (candidates.isEmpty()) {
+            return new ArrayList<>(results.values());
+        }
+
+        // 4. 并行加密密码
+        Map<UserImportRecord, String> hashes;
+        try {
+            hashes = hashPasswords(candidates);
+        } catch (Exception e) {
+            logger.error("批量加密密码失败: {}", e.getMessage());
+            markFailed(candidates, results, "密码加密失败");
+            return new ArrayList<>(results.values());
+        }
+
+        // 5. 批量写库，并发导入导致唯一键冲突时重新去重后重试一次
+        try {
+            insert(candidates, hashes, roleIds, results);
+        } catch (DuplicateKeyException e) {
+            candidates = removeExisting(candidates, results);
+            try {
+                insert(candidates, hashes, roleIds, results);
+            } catch (Exception retryError) {
+                logger.error("批量导入用户失败: {}", retryError.getMessage());
+                markFailed(candidates, results, "写入失败: " + retryError.getMessage());
+            }
+        } catch (Exception e) {
+            logger.error("批量导入用户失败: {}", e.getMessage());
+            markFailed(candidates, results, "写入失败: " + e.getMessage());
+        }
+
+        return new ArrayList<>(results.values());
+    }
+
+    private List<UserImportRecord> removeExisting(List<UserImportRecord> candidates,
+                                                  Map<UserImportRecord, UserImportResult> results) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        Set<String> existingUsernames = userBulkRepository.findExistingUsernames(
+                candidates.stream().map(UserImportRecord::getUsername).collect(Collectors.toList()));
+        Set<String> existingEmails = userBulkRepository.findExistingEmails(
+                candidates.stream().map(UserImportRecord::getEmail).collect(Collectors.toList()));
+
+        List<UserImportRecord> remaining = new ArrayList<>(candidates.size());
+        for (UserImportRecord record : candidates) {
+            if (existingUsernames.contains(lower(record.getUsername()))) {
+                results.put(record, UserImportResult.rejected(record, UserImportResult.Status.DUPLICATE, "用户名已存在"));
+            } else if (existingEmails.contains(lower(record.getEmail()))) {
+                results.put(record, UserImportResult.rejected(record, UserImportResult.Status.DUPLICATE, "邮箱已存在"));
+            } else {
+                remaining.add(record);
+            }
+        }
+        return remaining;
+    }
+
+    private Map<UserImportRecord, String> hashPasswords(List<UserImportRecord> candidates)
+            throws InterruptedException, ExecutionException {
+        return hashPool.submit(() -> candidates.parallelStream()
+                .collect(Collectors.toMap(record -> record, record -> passwordEncoder.encode(record.getPassword()))))
+                .get();
+    }
+
+    private void insert(List<UserImportRecord> candidates, Map<UserImportRecord, String> hashes,
+                        Map<String, Long> roleIds, Map<UserImportRecord, UserImportResult> results) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> userIds = transactionTemplate.execute(status -> {
+            List<User> users = new ArrayList<>(candidates.size());
+            for (UserImportRecord record : candidates) {
+                User user = new User(record.getUsername(), record.getEmail(), hashes.get(record), record.getFullName());
+                users.add(user);
+            }
+            Map<String, Long> ids = userBulkRepository.insertUsers(users);
+
+            Map<Long, Set<Long>> userRoles = new HashMap<>();
+            for (UserImportRecord record : candidates) {
+                Long userId = ids.get(lower(record.getUsername()));
+                if (userId != null && !record.getRoles().isEmpty()) {
+                    userRoles.put(userId, record.getRoles().stream().map(roleIds::get).collect(Collectors.toSet()));
+                }
+            }
+            userBulkRepository.insertUserRoles(userRoles);
+            return ids;
+        });
+
+        Map<Long, List<Long>> usersByRole = new HashMap<>();
+        for (UserImportRecord record : candidates) {
+            Long userId = userIds.get(lower(record.getUsername()));
+            if (userId != null) {
+                for (String role : record.getRoles()) {
+                    usersByRole.computeIfAbsent(roleIds.get(role), id -> new ArrayList<>()).add(userId);
+                }
+            }
+        }
+        usersByRole.forEach(permissionHolderIndex::addUsersToRole);
+
+        for (UserImportRecord record : candidates) {
+            Long userId = userIds.get(lower(record.getUsername()));
+            if (userId != null) {
+                User user = new User(record.getUsername(), record.getEmail(), null, record.getFullName());
+                user.setId(userId);
+                userDirectoryIndex.upsert(user);
+                userAvailabilityFilter.add(user.getUsername(), user.getEmail());
+                results.put(record, UserImportResult.created(record, userId));
+            } else {
+                results.put(record, UserImportResult.rejected(record, UserImportResult.Status.FAILED, "写入后未找到用户"));
+            }
+        }
+    }
+
+    private void markFailed(List<UserImportRecord> records, Map<UserImportRecord, UserImportResult> results, String message) {
+        for (UserImportRecord record : records) {
+            results.put(record, UserImportResult.rejected(record, UserImportResult.Status.FAILED, message));
+        }
+    }
+
+    private String validate(UserImportRecord record) {
+        String username = record.getUsername();
+        if (username == null || username.isBlank()) {
+            return "用户名不能为空";
+        }
+        if (username.length() < 3 || username.length() > 50) {
+            return "用户名长度必须在3-50个字符之间";
+        }
+        String email = record.getEmail();
+        if (email == null || email.isBlank()) {
+            return "邮箱不能为空";
+        }
+        if (email.length() > 100 || email.indexOf('@') <= 0 || email.indexOf('@') != email.lastIndexOf('@')) {
+            return "邮箱格式不正确";
+        }
+        String password = record.getPassword();
+        if (password == null || password.length() < 6 || password.length() > 100) {
+            return "密码长度必须在6-100个字符之间";
+        }
+        if (record.getFullName() != null && record.getFullName().length() > 100) {
+            return "姓名长度不能超过100个字符";
+        }
+        return null;
+    }
+
+    private String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdown();
+    }
+}
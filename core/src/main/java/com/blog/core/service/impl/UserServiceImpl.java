@@ -1,18 +1,38 @@
 package com.blog.core.service.impl;
 
 import com.blog.api.model.User;
+import com.blog.core.activity.UserActivityTracker;
+import com.blog.core.auth.AuthorizationVersions;
+import com.blog.core.auth.PermissionHolderIndex;
+import com.blog.core.directory.UserAvailabilityFilter;
+import com.blog.core.directory.UserDirectoryEntry;
+import com.blog.core.directory.UserDirectoryIndex;
 import com.blog.core.service.UserService;
+import com.blog.core.util.AfterCommit;
+import com.blog.persistence.repository.RoleRepository;
+import com.blog.persistence.repository.UserBulkRepository;
+import com.blog.persistence.repository.UserFilter;
 import com.blog.persistence.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
@@ -21,17 +41,38 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserBulkRepository userBulkRepository;
+    
+    @Autowired
+    private RoleRepository roleRepository;
+    
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private UserActivityTracker userActivityTracker;
+    
+    @Autowired
+    private AuthorizationVersions authorizationVersions;
+    
+    @Autowired
+    private UserDirectoryIndex userDirectoryIndex;
+    
+    @Autowired
+    private UserAvailabilityFilter userAvailabilityFilter;
+    
+    @Autowired
+    private PermissionHolderIndex permissionHolderIndex;
+    
     @Override
     public User createUser(User user) {
         // 检查用户名和邮箱是否已存在
-        if (userRepository.existsByUsername(user.getUsername())) {
+        if (existsByUsername(user.getUsername())) {
             throw new RuntimeException("用户名已存在: " + user.getUsername());
         }
         
-        if (userRepository.existsByEmail(user.getEmail())) {
+        if (existsByEmail(user.getEmail())) {
             throw new RuntimeException("邮箱已存在: " + user.getEmail());
         }
         
@@ -45,7 +86,16 @@ public class UserServiceImpl implements UserService {
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // 过滤器尚未同步其他节点刚注册的用户时，由唯一约束拦截
+            throw new RuntimeException("用户名或邮箱已存在: " + user.getUsername());
+        }
+        userAvailabilityFilter.add(savedUser.getUsername(), savedUser.getEmail());
+        AfterCommit.run(() -> userDirectoryIndex.upsert(savedUser));
+        return savedUser;
     }
     
     @Override
@@ -55,16 +105,19 @@ public class UserServiceImpl implements UserService {
         
         // 检查用户名是否被其他用户使用
         if (!existingUser.getUsername().equals(user.getUsername()) && 
-            userRepository.existsByUsername(user.getUsername())) {
+            existsByUsername(user.getUsername())) {
             throw new RuntimeException("用户名已存在: " + user.getUsername());
         }
         
         // 检查邮箱是否被其他用户使用
         if (!existingUser.getEmail().equals(user.getEmail()) && 
-            userRepository.existsByEmail(user.getEmail())) {
+            existsByEmail(user.getEmail())) {
             throw new RuntimeException("邮箱已存在: " + user.getEmail());
         }
         
+        boolean identifiersChanged = !existingUser.getUsername().equals(user.getUsername()) ||
+                                     !existingUser.getEmail().equals(user.getEmail());
+        
         // 更新用户信息
         existingUser.setUsername(user.getUsername());
         existingUser.setEmail(user.getEmail());
@@ -82,7 +135,14 @@ public class UserServiceImpl implements UserService {
         
         existingUser.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        authorizationVersions.bumpUser(userId);
+        if (identifiersChanged) {
+            userAvailabilityFilter.markStale();
+            userAvailabilityFilter.add(savedUser.getUsername(), savedUser.getEmail());
+        }
+        AfterCommit.run(() -> userDirectoryIndex.upsert(savedUser));
+        return savedUser;
     }
     
     @Override
@@ -91,42 +151,67 @@ public class UserServiceImpl implements UserService {
             throw new RuntimeException("用户不存在: " + userId);
         }
         userRepository.deleteById(userId);
+        authorizationVersions.bumpUser(userId);
+        AfterCommit.run(() -> {
+            userDirectoryIndex.remove(userId);
+            permissionHolderIndex.removeUser(userId);
+        });
+        userAvailabilityFilter.markStale();
     }
     
     @Override
     @Transactional(readOnly = true)
     public Optional<User> getUserById(Long userId) {
-        return userRepository.findById(userId);
+        return userRepository.findById(userId).map(userActivityTracker::overlay);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Optional<User> getUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userRepository.findByUsername(username).map(userActivityTracker::overlay);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Optional<User> getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return userRepository.findByEmail(email).map(userActivityTracker::overlay);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Page<User> getUsers(Pageable pageable) {
-        return userRepository.findAll(pageable);
+        return userRepository.findAll(pageable).map(userActivityTracker::overlay);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<User> scrollUsers(Long beforeId, int size) {
+        return userRepository.findBeforeId(beforeId, size).map(userActivityTracker::overlay);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<User> consumer) {
+        userBulkRepository.streamUsersWithRoles(user -> consumer.accept(userActivityTracker.overlay(user)));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<UserDirectoryEntry> searchUsers(String prefix, int limit) {
+        return userDirectoryIndex.search(prefix, limit);
     }
     
     @Override
     @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
+        // 过滤器判断一定不存在时不查库
+        return userAvailabilityFilter.mightContainUsername(username) && userRepository.existsByUsername(username);
     }
     
     @Override
     @Transactional(readOnly = true)
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return userAvailabilityFilter.mightContainEmail(email) && userRepository.existsByEmail(email);
     }
     
     @Override
@@ -134,7 +219,7 @@ public class UserServiceImpl implements UserService {
         if (!userRepository.findById(userId).isPresent()) {
             throw new RuntimeException("用户不存在: " + userId);
         }
-        userRepository.assignRole(userId, roleId);
+        assignRoleToUsers(roleId, List.of(userId));
     }
     
     @Override
@@ -142,7 +227,60 @@ public class UserServiceImpl implements UserService {
         if (!userRepository.findById(userId).isPresent()) {
             throw new RuntimeException("用户不存在: " + userId);
         }
-        userRepository.removeRole(userId, roleId);
+        revokeRoleFromUsers(roleId, List.of(userId));
+    }
+    
+    @Override
+    public int assignRoleToUsers(Long roleId, Collection<Long> userIds) {
+        requireRole(roleId);
+        int affected = userBulkRepository.assignRole(roleId, userIds);
+        authorizationVersions.bumpUsers(userIds);
+        List<Long> existing = userBulkRepository.findExistingUserIds(userIds);
+        AfterCommit.run(() -> permissionHolderIndex.addUsersToRole(roleId, existing));
+        return affected;
+    }
+    
+    @Override
+    public int revokeRoleFromUsers(Long roleId, Collection<Long> userIds) {
+        requireRole(roleId);
+        int affected = userBulkRepository.revokeRole(roleId, userIds);
+        authorizationVersions.bumpUsers(userIds);
+        AfterCommit.run(() -> permissionHolderIndex.removeUsersFromRole(roleId, userIds));
+        return affected;
+    }
+    
+    @Override
+    public int assignRoleToMatchingUsers(Long roleId, UserFilter filter) {
+        requireRole(roleId);
+        requireFilter(filter);
+        List<Long> userIds = userBulkRepository.findUserIds(filter);
+        int affected = userBulkRepository.assignRole(roleId, filter);
+        authorizationVersions.bumpUsers(userIds);
+        AfterCommit.run(() -> permissionHolderIndex.addUsersToRole(roleId, userIds));
+        return affected;
+    }
+    
+    @Override
+    public int revokeRoleFromMatchingUsers(Long roleId, UserFilter filter) {
+        requireRole(roleId);
+        requireFilter(filter);
+        List<Long> userIds = userBulkRepository.findUserIds(filter);
+        int affected = userBulkRepository.revokeRole(roleId, filter);
+        authorizationVersions.bumpUsers(userIds);
+        AfterCommit.run(() -> permissionHolderIndex.removeUsersFromRole(roleId, userIds));
+        return affected;
+    }
+    
+    private void requireRole(Long roleId) {
+        if (!roleRepository.findById(roleId).isPresent()) {
+            throw new RuntimeException("角色不存在: " + roleId);
+        }
+    }
+    
+    private void requireFilter(UserFilter filter) {
+        if (filter == null || filter.isEmpty()) {
+            throw new RuntimeException("筛选条件不能为空");
+        }
     }
     
     @Override
@@ -158,43 +296,102 @@ public class UserServiceImpl implements UserService {
     }
     
     @Override
+    @Transactional(readOnly = true)
+    public Set<String> getUserPermissionKeys(Long userId) {
+        return userRepository.getUserPermissionKeys(userId);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void updateLastLoginTime(Long userId) {
-        userRepository.updateLastLoginTime(userId);
+        // 写回缓存，由UserActivityTracker定期批量写库
+        userActivityTracker.recordLogin(userId);
+    }
+    
+    @Override
+    public void updatePasswordHash(Long userId, String passwordHash) {
+        userRepository.updatePasswordHash(userId, passwordHash);
+        authorizationVersions.bumpUser(userId);
     }
     
     @Override
     public void lockUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在: " + userId));
-        user.setStatus(User.UserStatus.LOCKED);
-        user.setUpdatedAt(LocalDateTime.now());
-        userRepository.save(user);
+        changeSingleStatus(userId, User.UserStatus.LOCKED);
     }
     
     @Override
     public void unlockUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在: " + userId));
-        user.setStatus(User.UserStatus.ACTIVE);
-        user.setUpdatedAt(LocalDateTime.now());
-        userRepository.save(user);
+        changeSingleStatus(userId, User.UserStatus.ACTIVE);
     }
     
     @Override
     public void activateUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在: " + userId));
-        user.setStatus(User.UserStatus.ACTIVE);
-        user.setUpdatedAt(LocalDateTime.now());
-        userRepository.save(user);
+        changeSingleStatus(userId, User.UserStatus.ACTIVE);
     }
     
     @Override
     public void deactivateUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在: " + userId));
-        user.setStatus(User.UserStatus.INACTIVE);
-        user.setUpdatedAt(LocalDateTime.now());
-        userRepository.save(user);
+        changeSingleStatus(userId, User.UserStatus.INACTIVE);
+    }
+    
+    @Override
+    public Map<Long, StatusChangeOutcome> changeStatus(Collection<Long> userIds, User.UserStatus status) {
+        if (status == null) {
+            throw new RuntimeException("用户状态不能为空");
+        }
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        
+        // 锁定这些行后再比较，保证返回的结果与实际更新一致
+        Map<Long, User.UserStatus> current = userBulkRepository.lockStatuses(ids);
+        
+        Map<Long, StatusChangeOutcome> outcomes = new LinkedHashMap<>();
+        List<Long> changed = new ArrayList<>();
+        List<Long> unchanged = new ArrayList<>();
+        for (Long id : ids) {
+            User.UserStatus existing = current.get(id);
+            if (existing == null) {
+                outcomes.put(id, StatusChangeOutcome.NOT_FOUND);
+            } else if (existing == status) {
+                outcomes.put(id, StatusChangeOutcome.UNCHANGED);
+                unchanged.add(id);
+            } else {
+                outcomes.put(id, StatusChangeOutcome.UPDATED);
+                changed.add(id);
+            }
+        }
+        
+        // 手动修改状态后不再自动解锁（状态未变的也要清除临时锁定的到期时间）
+        userBulkRepository.updateStatus(changed, status);
+        userBulkRepository.clearLockedUntil(unchanged);
+        authorizationVersions.bumpUsers(changed);
+        return outcomes;
+    }
+    
+    @Override
+    public boolean lockTemporarily(Long userId, LocalDateTime until) {
+        boolean locked = userBulkRepository.lockUntil(userId, until);
+        if (locked) {
+            authorizationVersions.bumpUser(userId);
+        }
+        return locked;
+    }
+    
+    @Override
+    public List<Long> unlockExpiredLockouts() {
+        List<Long> unlocked = userBulkRepository.unlockExpired(LocalDateTime.now());
+        authorizationVersions.bumpUsers(unlocked);
+        return unlocked;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachTemporaryLock(UserBulkRepository.TemporaryLockHandler handler) {
+        userBulkRepository.streamTemporaryLocks(handler);
+    }
+    
+    private void changeSingleStatus(Long userId, User.UserStatus status) {
+        if (changeStatus(List.of(userId), status).get(userId) == StatusChangeOutcome.NOT_FOUND) {
+            throw new RuntimeException("用户不存在: " + userId);
+        }
     }
-}
\ No newline at end of file
+}
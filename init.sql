@@ -25,9 +25,12 @@ CREATE TABLE IF NOT EXISTS users (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     last_login_at TIMESTAMP NULL,
+    last_seen_at TIMESTAMP NULL,
+    locked_until TIMESTAMP NULL,
     INDEX idx_username (username),
     INDEX idx_email (email),
-    INDEX idx_status (status)
+    INDEX idx_status (status),
+    INDEX idx_locked_until (locked_until)
 );
 
 -- 创建角色表
@@ -80,7 +83,8 @@ INSERT INTO permissions (name, description, resource, action) VALUES
 ('role:read', '查看角色信息', 'role', 'read'),
 ('role:write', '创建和编辑角色', 'role', 'write'),
 ('role:delete', '删除角色', 'role', 'delete'),
-('system:admin', '系统管理', 'system', 'admin');
+('system:admin', '系统管理', 'system', 'admin'),
+('pdf:generate', '生成PDF文档', 'pdf', 'generate');
 
 -- 插入默认角色数据
 INSERT INTO roles (name, description, is_system) VALUES 
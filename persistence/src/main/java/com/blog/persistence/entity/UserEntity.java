@@ -41,6 +41,15 @@ public class UserEntity {
     @Column(name = "last_login_at")
     private LocalDateTime lastLoginAt;
     
+    @Column(name = "last_seen_at")
+    private LocalDateTime lastSeenAt;
+    
+    /**
+     * 登录失败临时锁定的到期时间，只由 UserBulkRepository 读写，保存实体时不覆盖
+     */
+    @Column(name = "locked_until", insertable = false, updatable = false)
+    private LocalDateTime lockedUntil;
+    
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "user_roles",
@@ -140,6 +149,18 @@ public class UserEntity {
         this.lastLoginAt = lastLoginAt;
     }
 
+    public LocalDateTime getLastSeenAt() {
+        return lastSeenAt;
+    }
+
+    public void setLastSeenAt(LocalDateTime lastSeenAt) {
+        this.lastSeenAt = lastSeenAt;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
     public Set<RoleEntity> getRoles() {
         return roles;
     }
@@ -22,4 +22,16 @@ public interface JpaPermissionRepository extends JpaRepository<PermissionEntity,
     
     @Query("SELECT p FROM PermissionEntity p WHERE p.resource = :resource")
     List<PermissionEntity> findAllByResource(@Param("resource") String resource);
-}
\ No newline at end of file
+    
+    @Query("SELECT DISTINCT p.resource FROM PermissionEntity p ORDER BY p.resource")
+    List<String> findDistinctResources();
+    
+    @Query("SELECT DISTINCT p.action FROM PermissionEntity p WHERE p.resource = :resource ORDER BY p.action")
+    List<String> findDistinctActionsByResource(@Param("resource") String resource);
+    
+    /**
+     * 全部资源和操作组合，返回 [resource, action]
+     */
+    @Query("SELECT DISTINCT p.resource, p.action FROM PermissionEntity p ORDER BY p.resource, p.action")
+    List<Object[]> findDistinctResourceActions();
+}
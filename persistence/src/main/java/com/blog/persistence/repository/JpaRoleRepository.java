@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -21,4 +23,18 @@ public interface JpaRoleRepository extends JpaRepository<RoleEntity, Long> {
     
     @Query("SELECT r FROM RoleEntity r JOIN FETCH r.permissions WHERE r.name IN :names")
     Set<RoleEntity> findByNameInWithPermissions(@Param("names") Set<String> names);
-}
\ No newline at end of file
+    
+    /**
+     * 全部角色及其权限名（投影查询，一条 JOIN 语句，不加载实体）
+     * 返回 [id, name, description, isSystem, createdAt, permissionName]，没有权限的角色 permissionName 为 null
+     */
+    @Query("SELECT r.id, r.name, r.description, r.isSystem, r.createdAt, p.name " +
+           "FROM RoleEntity r LEFT JOIN r.permissions p ORDER BY r.id")
+    List<Object[]> findAllWithPermissionNames();
+    
+    /**
+     * 角色ID和名称（投影查询），返回 [id, name]
+     */
+    @Query("SELECT r.id, r.name FROM RoleEntity r WHERE r.id IN :ids")
+    List<Object[]> findNamesByIdIn(@Param("ids") Collection<Long> ids);
+}
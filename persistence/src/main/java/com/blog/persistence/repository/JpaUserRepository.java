@@ -1,12 +1,17 @@
 package com.blog.persistence.repository;
 
 import com.blog.persistence.entity.UserEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface JpaUserRepository extends JpaRepository<UserEntity, Long> {
@@ -21,4 +26,30 @@ public interface JpaUserRepository extends JpaRepository<UserEntity, Long> {
     
     @Query("SELECT u FROM UserEntity u LEFT JOIN FETCH u.roles r LEFT JOIN FETCH r.permissions WHERE u.username = :username")
     Optional<UserEntity> findByUsernameWithRolesAndPermissions(@Param("username") String username);
+    
+    @Query("SELECT u FROM UserEntity u LEFT JOIN FETCH u.roles r LEFT JOIN FETCH r.permissions WHERE u.id = :id")
+    Optional<UserEntity> findByIdWithRolesAndPermissions(@Param("id") Long id);
+    
+    /**
+     * 批量查询一组用户的角色名，返回 [userId, roleName]
+     */
+    @Query("SELECT u.id, r.name FROM UserEntity u JOIN u.roles r WHERE u.id IN :userIds")
+    List<Object[]> findRoleNamesByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 键集分页：按ID倒序取第一页（不执行COUNT）
+     */
+    List<UserEntity> findAllByOrderByIdDesc(Pageable pageable);
+    
+    /**
+     * 键集分页：取ID小于游标的下一页（不执行COUNT）
+     */
+    List<UserEntity> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+    
+    @Query("SELECT DISTINCT CONCAT(p.resource, ':', p.action) FROM UserEntity u JOIN u.roles r JOIN r.permissions p WHERE u.id = :userId")
+    Set<String> findPermissionKeysByUserId(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.passwordHash = :passwordHash WHERE u.id = :userId")
+    int updatePasswordHash(@Param("userId") Long userId, @Param("passwordHash") String passwordHash);
 }
\ No newline at end of file
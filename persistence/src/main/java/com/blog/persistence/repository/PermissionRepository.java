@@ -5,6 +5,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface PermissionRepository {
@@ -32,4 +33,9 @@ public interface PermissionRepository {
     List<String> findAllResources();
     
     List<String> findActionsByResource(String resource);
+    
+    /**
+     * 资源 -> 操作列表（按资源、操作排序）
+     */
+    Map<String, List<String>> findActionsGroupedByResource();
 }
\ No newline at end of file
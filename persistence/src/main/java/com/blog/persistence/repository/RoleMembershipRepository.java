@@ -0,0 +1,25 @@
+package com.blog.persistence.repository;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 角色成员关系的批量读取（基于JDBC，供内存索引加载使用）
+ */
+public interface RoleMembershipRepository {
+
+    /**
+     * 流式读取全部用户角色关联，按角色ID排序
+     */
+    void streamUserRoles(UserRoleRowHandler handler);
+
+    /**
+     * 权限ID -> 拥有该权限的角色ID
+     */
+    Map<Long, Set<Long>> findRoleIdsByPermission();
+
+    @FunctionalInterface
+    interface UserRoleRowHandler {
+        void accept(long userId, long roleId);
+    }
+}
@@ -4,7 +4,9 @@ import com.blog.api.model.Role;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -33,4 +35,9 @@ public interface RoleRepository {
     List<Role> findByIsSystemFalse();
     
     boolean isSystemRole(Long roleId);
+    
+    /**
+     * 批量查询角色名（投影查询，不加载实体），不存在的角色不在结果中
+     */
+    Map<Long, String> findNamesByIds(Collection<Long> roleIds);
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.blog.persistence.repository;
+
+import com.blog.api.model.User;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 用户批量操作仓储（基于JDBC批处理，不经过JPA实体）
+ */
+public interface UserBulkRepository {
+
+    /**
+     * 返回已存在的用户名（小写）
+     */
+    Set<String> findExistingUsernames(Collection<String> usernames);
+
+    /**
+     * 返回已存在的邮箱（小写）
+     */
+    Set<String> findExistingEmails(Collection<String> emails);
+
+    /**
+     * 根据角色名查询角色ID
+     */
+    Map<String, Long> findRoleIdsByNames(Collection<String> roleNames);
+
+    /**
+     * 批量插入用户（密码需已加密）
+     *
+     * @return 用户名（小写） -> 新用户ID
+     */
+    Map<String, Long> insertUsers(List<User> users);
+
+    /**
+     * 批量插入用户角色关联
+     */
+    int insertUserRoles(Map<Long, Set<Long>> roleIdsByUserId);
+
+    /**
+     * 返回其中存在的用户ID
+     */
+    List<Long> findExistingUserIds(Collection<Long> userIds);
+
+    /**
+     * 查询匹配筛选条件的用户ID
+     */
+    List<Long> findUserIds(UserFilter filter);
+
+    /**
+     * 为指定用户分配角色（INSERT ... SELECT，已有该角色的用户跳过）
+     *
+     * @return 新增的关联数
+     */
+    int assignRole(Long roleId, Collection<Long> userIds);
+
+    /**
+     * 为匹配筛选条件的全部用户分配角色
+     */
+    int assignRole(Long roleId, UserFilter filter);
+
+    /**
+     * 撤销指定用户的角色
+     *
+     * @return 删除的关联数
+     */
+    int revokeRole(Long roleId, Collection<Long> userIds);
+
+    /**
+     * 撤销匹配筛选条件的全部用户的角色
+     */
+    int revokeRole(Long roleId, UserFilter filter);
+
+    /**
+     * 查询并锁定（SELECT ... FOR UPDATE）指定用户的当前状态，不存在的用户不在结果中
+     */
+    Map<Long, User.UserStatus> lockStatuses(Collection<Long> userIds);
+
+    /**
+     * 批量修改用户状态（单条 UPDATE），同时清除临时锁定的到期时间
+     *
+     * @return 更新的行数
+     */
+    int updateStatus(Collection<Long> userIds, User.UserStatus status);
+
+    /**
+     * 清除临时锁定的到期时间（取消自动解锁），状态不变
+     */
+    int clearLockedUntil(Collection<Long> userIds);
+
+    /**
+     * 临时锁定：只有 ACTIVE 的用户会被改为 LOCKED 并记录到期时间
+     *
+     * @return 是否锁定
+     */
+    boolean lockUntil(Long userId, LocalDateTime until);
+
+    /**
+     * 把临时锁定已到期的用户恢复为 ACTIVE
+     *
+     * @return 解锁的用户ID
+     */
+    List<Long> unlockExpired(LocalDateTime now);
+
+    /**
+     * 读取临时锁定中（LOCKED 且 locked_until 未清除）的用户
+     */
+    void streamTemporaryLocks(TemporaryLockHandler handler);
+
+    /**
+     * 流式读取全部用户的目录信息（不把结果集整体读入内存）
+     */
+    void streamDirectory(DirectoryRowHandler handler);
+
+    /**
+     * 按ID顺序读取ID大于 afterId 的用户的目录信息（增量同步新增的用户）
+     */
+    void streamDirectoryAfter(long afterId, DirectoryRowHandler handler);
+
+    /**
+     * 按ID顺序流式读取全部用户及其角色（单条 JOIN 查询，逐个用户回调，roles 已填充）
+     */
+    void streamUsersWithRoles(Consumer<User> consumer);
+
+    @FunctionalInterface
+    interface DirectoryRowHandler {
+        void accept(Long id, String username, String email, String fullName);
+    }
+
+    @FunctionalInterface
+    interface TemporaryLockHandler {
+        void accept(Long id, String username, LocalDateTime lockedUntil);
+    }
+}
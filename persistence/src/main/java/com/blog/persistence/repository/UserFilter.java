@@ -0,0 +1,38 @@
+package com.blog.persistence.repository;
+
+import com.blog.api.model.User;
+
+/**
+ * 批量操作的用户筛选条件，各条件之间为 AND 关系，为空的条件不参与筛选
+ */
+public class UserFilter {
+
+    private User.UserStatus status;
+    private Long roleId;
+    private String usernamePrefix;
+
+    public UserFilter() {}
+
+    public UserFilter(User.UserStatus status, Long roleId, String usernamePrefix) {
+        this.status = status;
+        this.roleId = roleId;
+        this.usernamePrefix = usernamePrefix;
+    }
+
+    /**
+     * 是否没有任何条件（即匹配全部用户）
+     */
+    public boolean isEmpty() {
+        return status == null && roleId == null && (usernamePrefix == null || usernamePrefix.isEmpty());
+    }
+
+    // Getters and Setters
+    public User.UserStatus getStatus() { return status; }
+    public void setStatus(User.UserStatus status) { this.status = status; }
+
+    public Long getRoleId() { return roleId; }
+    public void setRoleId(Long roleId) { this.roleId = roleId; }
+
+    public String getUsernamePrefix() { return usernamePrefix; }
+    public void setUsernamePrefix(String usernamePrefix) { this.usernamePrefix = usernamePrefix; }
+}
@@ -3,7 +3,10 @@ package com.blog.persistence.repository;
 import com.blog.api.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -19,6 +22,13 @@ public interface UserRepository {
     
     Page<User> findAll(Pageable pageable);
     
+    /**
+     * 按ID倒序的键集分页，不执行COUNT查询
+     * 
+     * @param beforeId 上一页最后一个用户的ID，为空时从最新用户开始
+     */
+    Slice<User> findBeforeId(Long beforeId, int size);
+    
     void deleteById(Long id);
     
     boolean existsByUsername(String username);
@@ -33,5 +43,16 @@ public interface UserRepository {
     
     boolean hasPermission(Long userId, String resource, String action);
     
+    Set<String> getUserPermissionKeys(Long userId);
+    
     void updateLastLoginTime(Long userId);
+    
+    void updatePasswordHash(Long userId, String passwordHash);
+    
+    /**
+     * 批量更新最后登录/最后活跃时间，只会把时间向后推进
+     * 
+     * @return 受影响的行数
+     */
+    int updateActivityTimestamps(Map<Long, LocalDateTime> lastLoginAt, Map<Long, LocalDateTime> lastSeenAt);
 }
\ No newline at end of file
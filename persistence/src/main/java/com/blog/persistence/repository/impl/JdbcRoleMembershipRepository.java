@@ -0,0 +1,43 @@
+package com.blog.persistence.repository.impl;
+
+import com.blog.persistence.repository.RoleMembershipRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+public class JdbcRoleMembershipRepository implements RoleMembershipRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void streamUserRoles(UserRoleRowHandler handler) {
+        // MySQL 驱动只有在 fetchSize 为 Integer.MIN_VALUE 时才会逐行流式返回结果
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT user_id, role_id FROM user_roles ORDER BY role_id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return statement;
+        }, rs -> {
+            handler.accept(rs.getLong("user_id"), rs.getLong("role_id"));
+        });
+    }
+
+    @Override
+    public Map<Long, Set<Long>> findRoleIdsByPermission() {
+        Map<Long, Set<Long>> roleIds = new HashMap<>();
+        jdbcTemplate.query("SELECT permission_id, role_id FROM role_permissions", rs -> {
+            roleIds.computeIfAbsent(rs.getLong("permission_id"), id -> new HashSet<>()).add(rs.getLong("role_id"));
+        });
+        return roleIds;
+    }
+}
@@ -0,0 +1,366 @@
+package com.blog.persistence.repository.impl;
+
+import com.blog.api.model.User;
+import com.blog.persistence.repository.UserBulkRepository;
+import com.blog.persistence.repository.UserFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Repository
+public class JdbcUserBulkRepository implements UserBulkRepository {
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT LOWER(username) FROM users WHERE username IN (:usernames)",
+                new MapSqlParameterSource("usernames", usernames), String.class));
+    }
+
+    @Override
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT LOWER(email) FROM users WHERE email IN (:emails)",
+                new MapSqlParameterSource("emails", emails), String.class));
+    }
+
+    @Override
+    public Map<String, Long> findRoleIdsByNames(Collection<String> roleNames) {
+        Map<String, Long> roleIds = new HashMap<>();
+        if (roleNames.isEmpty()) {
+            return roleIds;
+        }
+        jdbcTemplate.query("SELECT id, name FROM roles WHERE name IN (:names)",
+                new MapSqlParameterSource("names", roleNames),
+                rs -> {
+                    roleIds.put(rs.getString("name"), rs.getLong("id"));
+                });
+        return roleIds;
+    }
+
+    @Override
+    public Map<String, Long> insertUsers(List<User> users) {
+        if (users.isEmpty()) {
+            return Map.of();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        MapSqlParameterSource[] batch = users.stream()
+                .map(user -> new MapSqlParameterSource()
+                        .addValue("username", user.getUsername())
+                        .addValue("email", user.getEmail())
+                        .addValue("passwordHash", user.getPasswordHash())
+                        .addValue("fullName", user.getFullName())
+                        .addValue("status", User.UserStatus.ACTIVE.name())
+                        .addValue("now", now))
+                .toArray(MapSqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (username, email, password_hash, full_name, status, created_at, updated_at) " +
+                "VALUES (:username, :email, :passwordHash, :fullName, :status, :now, :now)", batch);
+
+        // 批处理无法可靠返回自增ID，按用户名一次查回
+        List<String> usernames = users.stream().map(User::getUsername).collect(Collectors.toList());
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, username FROM users WHERE username IN (:usernames)",
+                new MapSqlParameterSource("usernames", usernames),
+                rs -> {
+                    ids.put(rs.getString("username").toLowerCase(Locale.ROOT), rs.getLong("id"));
+                });
+        return ids;
+    }
+
+    @Override
+    public int insertUserRoles(Map<Long, Set<Long>> roleIdsByUserId) {
+        List<MapSqlParameterSource> batch = new ArrayList<>();
+        roleIdsByUserId.forEach((userId, roleIds) -> {
+            for (Long roleId : roleIds) {
+                batch.add(new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("roleId", roleId));
+            }
+        });
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles (user_id, role_id) VALUES (:userId, :roleId)",
+                batch.toArray(new MapSqlParameterSource[0]));
+        return batch.size();
+    }
+
+    @Override
+    public List<Long> findExistingUserIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE id IN (:userIds)",
+                new MapSqlParameterSource("userIds", userIds), Long.class);
+    }
+
+    @Override
+    public List<Long> findUserIds(UserFilter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT u.id FROM users u" + filterClause(filter, params).toSql();
+        return jdbcTemplate.queryForList(sql, params, Long.class);
+    }
+
+    @Override
+    public int assignRole(Long roleId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("roleId", roleId)
+                .addValue("userIds", userIds);
+        return jdbcTemplate.update(
+                "INSERT INTO user_roles (user_id, role_id) " +
+                "SELECT u.id, :roleId FROM users u " +
+                "WHERE u.id IN (:userIds) " +
+                "AND NOT EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)",
+                params);
+    }
+
+    @Override
+    public int assignRole(Long roleId, UserFilter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource("roleId", roleId);
+        String clause = filterClause(filter, params).toSql(
+                "NOT EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)");
+        return jdbcTemplate.update(
+                "INSERT INTO user_roles (user_id, role_id) " +
+                "SELECT u.id, :roleId FROM users u" + clause,
+                params);
+    }
+
+    @Override
+    public int revokeRole(Long roleId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("roleId", roleId)
+                .addValue("userIds", userIds);
+        return jdbcTemplate.update(
+                "DELETE FROM user_roles WHERE role_id = :roleId AND user_id IN (:userIds)", params);
+    }
+
+    @Override
+    public int revokeRole(Long roleId, UserFilter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource("roleId", roleId);
+        String clause = filterClause(filter, params).toSql("ur.role_id = :roleId");
+        // MySQL 的 DELETE 不能在子查询中引用被删除的表，筛选条件改用多表 DELETE ... JOIN
+        return jdbcTemplate.update(
+                "DELETE ur FROM user_roles ur JOIN users u ON u.id = ur.user_id" + clause,
+                params);
+    }
+
+    @Override
+    public Map<Long, User.UserStatus> lockStatuses(Collection<Long> userIds) {
+        Map<Long, User.UserStatus> statuses = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return statuses;
+        }
+        jdbcTemplate.query("SELECT id, status FROM users WHERE id IN (:userIds) FOR UPDATE",
+                new MapSqlParameterSource("userIds", userIds),
+                rs -> {
+                    statuses.put(rs.getLong("id"), User.UserStatus.valueOf(rs.getString("status")));
+                });
+        return statuses;
+    }
+
+    @Override
+    public int updateStatus(Collection<Long> userIds, User.UserStatus status) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("status", status.name())
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("userIds", userIds);
+        return jdbcTemplate.update(
+                "UPDATE users SET status = :status, locked_until = NULL, updated_at = :now WHERE id IN (:userIds)",
+                params);
+    }
+
+    @Override
+    public int clearLockedUntil(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(
+                "UPDATE users SET locked_until = NULL WHERE id IN (:userIds) AND locked_until IS NOT NULL",
+                new MapSqlParameterSource("userIds", userIds));
+    }
+
+    @Override
+    public boolean lockUntil(Long userId, LocalDateTime until) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", userId)
+                .addValue("until", Timestamp.valueOf(until))
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+        return jdbcTemplate.update(
+                "UPDATE users SET status = 'LOCKED', locked_until = :until, updated_at = :now " +
+                        "WHERE id = :id AND status = 'ACTIVE'",
+                params) > 0;
+    }
+
+    @Override
+    public List<Long> unlockExpired(LocalDateTime now) {
+        MapSqlParameterSource params = new MapSqlParameterSource("now", Timestamp.valueOf(now));
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE status = 'LOCKED' AND locked_until <= :now FOR UPDATE",
+                params, Long.class);
+        if (!userIds.isEmpty()) {
+            jdbcTemplate.update(
+                    "UPDATE users SET status = 'ACTIVE', locked_until = NULL, updated_at = :now WHERE id IN (:userIds)",
+                    params.addValue("userIds", userIds));
+        }
+        return userIds;
+    }
+
+    @Override
+    public void streamTemporaryLocks(TemporaryLockHandler handler) {
+        streamQuery("SELECT id, username, locked_until FROM users WHERE status = 'LOCKED' AND locked_until IS NOT NULL",
+                rs -> handler.accept(rs.getLong("id"), rs.getString("username"),
+                        rs.getTimestamp("locked_until").toLocalDateTime()));
+    }
+
+    @Override
+    public void streamDirectory(DirectoryRowHandler handler) {
+        streamQuery("SELECT id, username, email, full_name FROM users", rs ->
+                handler.accept(rs.getLong("id"), rs.getString("username"),
+                        rs.getString("email"), rs.getString("full_name")));
+    }
+
+    @Override
+    public void streamDirectoryAfter(long afterId, DirectoryRowHandler handler) {
+        jdbcTemplate.query("SELECT id, username, email, full_name FROM users WHERE id > :afterId ORDER BY id",
+                new MapSqlParameterSource("afterId", afterId),
+                (RowCallbackHandler) rs -> handler.accept(rs.getLong("id"), rs.getString("username"),
+                        rs.getString("email"), rs.getString("full_name")));
+    }
+
+    @Override
+    public void streamUsersWithRoles(Consumer<User> consumer) {
+        String sql = "SELECT u.id, u.username, u.email, u.full_name, u.status, u.created_at, u.last_login_at, r.name AS role_name " +
+                "FROM users u " +
+                "LEFT JOIN user_roles ur ON ur.user_id = u.id " +
+                "LEFT JOIN roles r ON r.id = ur.role_id " +
+                "ORDER BY u.id";
+
+        // 结果按用户ID有序，ID变化时输出上一个用户，内存中只保留当前用户
+        User[] current = new User[1];
+        streamQuery(sql, rs -> {
+            long id = rs.getLong("id");
+            User user = current[0];
+            if (user == null || user.getId() != id) {
+                if (user != null) {
+                    consumer.accept(user);
+                }
+                user = new User(rs.getString("username"), rs.getString("email"), null, rs.getString("full_name"));
+                user.setId(id);
+                user.setStatus(User.UserStatus.valueOf(rs.getString("status")));
+                user.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+                user.setLastLoginAt(toLocalDateTime(rs.getTimestamp("last_login_at")));
+                user.setRoles(new LinkedHashSet<>());
+                current[0] = user;
+            }
+            String roleName = rs.getString("role_name");
+            if (roleName != null) {
+                user.getRoles().add(roleName);
+            }
+        });
+        if (current[0] != null) {
+            consumer.accept(current[0]);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    /**
+     * MySQL 驱动只有在 fetchSize 为 Integer.MIN_VALUE 时才会逐行流式返回结果
+     */
+    private void streamQuery(String sql, RowCallbackHandler handler) {
+        jdbcTemplate.getJdbcOperations().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return statement;
+        }, handler);
+    }
+
+    /**
+     * 生成筛选条件，按角色筛选使用 JOIN（别名 f）而非子查询
+     */
+    private FilterClause filterClause(UserFilter filter, MapSqlParameterSource params) {
+        String joins = "";
+        List<String> conditions = new ArrayList<>();
+
+        if (filter.getRoleId() != null) {
+            joins = " JOIN user_roles f ON f.user_id = u.id AND f.role_id = :filterRoleId";
+            params.addValue("filterRoleId", filter.getRoleId());
+        }
+        if (filter.getStatus() != null) {
+            conditions.add("u.status = :status");
+            params.addValue("status", filter.getStatus().name());
+        }
+        if (filter.getUsernamePrefix() != null && !filter.getUsernamePrefix().isEmpty()) {
+            conditions.add("u.username LIKE :usernamePrefix");
+            params.addValue("usernamePrefix", escapeLike(filter.getUsernamePrefix()) + "%");
+        }
+
+        return new FilterClause(joins, conditions);
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * 筛选条件的 JOIN 部分和 WHERE 条件分开保存，调用方追加的条件总是放在 WHERE 中
+     */
+    private static final class FilterClause {
+        private final String joins;
+        private final List<String> conditions;
+
+        FilterClause(String joins, List<String> conditions) {
+            this.joins = joins;
+            this.conditions = conditions;
+        }
+
+        String toSql(String... extraConditions) {
+            List<String> all = new ArrayList<>(conditions);
+            all.addAll(List.of(extraConditions));
+            return all.isEmpty() ? joins : joins + " WHERE " + String.join(" AND ", all);
+        }
+    }
+}
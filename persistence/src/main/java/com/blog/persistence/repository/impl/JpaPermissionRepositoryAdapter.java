@@ -10,7 +10,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -84,18 +87,21 @@ public class JpaPermissionRepositoryAdapter implements PermissionRepository {
 
     @Override
     public List<String> findAllResources() {
-        return jpaPermissionRepository.findAll().stream()
-                .map(PermissionEntity::getResource)
-                .distinct()
-                .collect(Collectors.toList());
+        return jpaPermissionRepository.findDistinctResources();
     }
 
     @Override
     public List<String> findActionsByResource(String resource) {
-        return jpaPermissionRepository.findByResource(resource).stream()
-                .map(PermissionEntity::getAction)
-                .distinct()
-                .collect(Collectors.toList());
+        return jpaPermissionRepository.findDistinctActionsByResource(resource);
+    }
+
+    @Override
+    public Map<String, List<String>> findActionsGroupedByResource() {
+        Map<String, List<String>> actions = new LinkedHashMap<>();
+        for (Object[] row : jpaPermissionRepository.findDistinctResourceActions()) {
+            actions.computeIfAbsent((String) row[0], resource -> new ArrayList<>()).add((String) row[1]);
+        }
+        return actions;
     }
 
     private PermissionEntity toEntity(Permission permission) {
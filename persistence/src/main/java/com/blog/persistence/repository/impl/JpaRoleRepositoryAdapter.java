@@ -13,7 +13,13 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -49,9 +55,24 @@ public class JpaRoleRepositoryAdapter implements RoleRepository {
     
     @Override
     public List<Role> findAll() {
-        return jpaRoleRepository.findAll().stream()
-                .map(this::toModel)
-                .collect(Collectors.toList());
+        // 一条 JOIN 投影查询取出全部角色和权限名，避免逐个角色加载权限集合
+        Map<Long, Role> roles = new LinkedHashMap<>();
+        for (Object[] row : jpaRoleRepository.findAllWithPermissionNames()) {
+            Role role = roles.computeIfAbsent((Long) row[0], id -> {
+                Role model = new Role();
+                model.setId(id);
+                model.setName((String) row[1]);
+                model.setDescription((String) row[2]);
+                model.setIsSystem((Boolean) row[3]);
+                model.setCreatedAt((LocalDateTime) row[4]);
+                model.setPermissions(new LinkedHashSet<>());
+                return model;
+            });
+            if (row[5] != null) {
+                role.getPermissions().add((String) row[5]);
+            }
+        }
+        return new ArrayList<>(roles.values());
     }
     
     @Override
@@ -106,9 +127,8 @@ public class JpaRoleRepositoryAdapter implements RoleRepository {
     
     @Override
     public List<Role> findByIsSystemFalse() {
-        return jpaRoleRepository.findAll().stream()
-                .filter(role -> !role.getIsSystem())
-                .map(this::toModel)
+        return findAll().stream()
+                .filter(role -> !Boolean.TRUE.equals(role.getIsSystem()))
                 .collect(Collectors.toList());
     }
     
@@ -119,6 +139,18 @@ public class JpaRoleRepositoryAdapter implements RoleRepository {
                 .orElse(false);
     }
     
+    @Override
+    public Map<Long, String> findNamesByIds(Collection<Long> roleIds) {
+        Map<Long, String> names = new HashMap<>();
+        if (roleIds.isEmpty()) {
+            return names;
+        }
+        for (Object[] row : jpaRoleRepository.findNamesByIdIn(roleIds)) {
+            names.put((Long) row[0], (String) row[1]);
+        }
+        return names;
+    }
+    
     private RoleEntity toEntity(Role role) {
         RoleEntity entity = new RoleEntity();
         entity.setId(role.getId());
@@ -6,13 +6,25 @@ import com.blog.persistence.entity.UserEntity;
 import com.blog.persistence.repository.JpaRoleRepository;
 import com.blog.persistence.repository.JpaUserRepository;
 import com.blog.persistence.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -26,6 +38,9 @@ public class JpaUserRepositoryAdapter implements UserRepository {
     @Autowired
     private JpaRoleRepository jpaRoleRepository;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     @Override
     @Transactional
     public User save(User user) {
@@ -54,8 +69,47 @@ public class JpaUserRepositoryAdapter implements UserRepository {
     
     @Override
     public Page<User> findAll(Pageable pageable) {
-        return jpaUserRepository.findAll(pageable)
-                .map(this::toModel);
+        Page<UserEntity> page = jpaUserRepository.findAll(pageable);
+        Map<Long, Set<String>> rolesByUserId = findRoleNames(page.getContent());
+        return page.map(entity -> toModel(entity, rolesByUserId.getOrDefault(entity.getId(), new HashSet<>())));
+    }
+    
+    @Override
+    public Slice<User> findBeforeId(Long beforeId, int size) {
+        // 多取一条用于判断是否还有下一页
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<UserEntity> entities = beforeId == null
+                ? jpaUserRepository.findAllByOrderByIdDesc(limit)
+                : jpaUserRepository.findByIdLessThanOrderByIdDesc(beforeId, limit);
+        
+        boolean hasNext = entities.size() > size;
+        if (hasNext) {
+            entities = entities.subList(0, size);
+        }
+        
+        Map<Long, Set<String>> rolesByUserId = findRoleNames(entities);
+        List<User> users = entities.stream()
+                .map(entity -> toModel(entity, rolesByUserId.getOrDefault(entity.getId(), new HashSet<>())))
+                .collect(Collectors.toList());
+        return new SliceImpl<>(users, PageRequest.of(0, size), hasNext);
+    }
+    
+    /**
+     * 一次查询加载一页用户的角色名，避免逐个触发懒加载
+     */
+    private Map<Long, Set<String>> findRoleNames(List<UserEntity> entities) {
+        if (entities.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> userIds = entities.stream()
+                .map(UserEntity::getId)
+                .collect(Collectors.toList());
+        
+        Map<Long, Set<String>> rolesByUserId = new HashMap<>();
+        for (Object[] row : jpaUserRepository.findRoleNamesByUserIds(userIds)) {
+            rolesByUserId.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+        return rolesByUserId;
     }
     
     @Override
@@ -118,6 +172,11 @@ public class JpaUserRepositoryAdapter implements UserRepository {
                 .orElse(false);
     }
     
+    @Override
+    public Set<String> getUserPermissionKeys(Long userId) {
+        return jpaUserRepository.findPermissionKeysByUserId(userId);
+    }
+    
     @Override
     @Transactional
     public void updateLastLoginTime(Long userId) {
@@ -128,6 +187,73 @@ public class JpaUserRepositoryAdapter implements UserRepository {
                 });
     }
     
+    @Override
+    @Transactional
+    public void updatePasswordHash(Long userId, String passwordHash) {
+        jpaUserRepository.updatePasswordHash(userId, passwordHash);
+    }
+    
+    @Override
+    @Transactional
+    public int updateActivityTimestamps(Map<Long, LocalDateTime> lastLoginAt, Map<Long, LocalDateTime> lastSeenAt) {
+        Set<Long> userIds = new LinkedHashSet<>(lastLoginAt.keySet());
+        userIds.addAll(lastSeenAt.keySet());
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        
+        // UPDATE users SET last_login_at = CASE id WHEN ? THEN ? ... END, ..., updated_at = updated_at WHERE id IN (...)
+        StringBuilder sql = new StringBuilder("UPDATE users SET ");
+        List<Object> params = new ArrayList<>();
+        
+        List<String> assignments = new ArrayList<>();
+        if (!lastLoginAt.isEmpty()) {
+            assignments.add(buildCaseAssignment("last_login_at", lastLoginAt, params));
+        }
+        if (!lastSeenAt.isEmpty()) {
+            assignments.add(buildCaseAssignment("last_seen_at", lastSeenAt, params));
+        }
+        // updated_at 声明了 ON UPDATE CURRENT_TIMESTAMP，显式赋原值，登录/活跃时间不算资料修改
+        assignments.add("updated_at = updated_at");
+        sql.append(String.join(", ", assignments));
+        
+        sql.append(" WHERE id IN (");
+        int index = 0;
+        for (Long userId : userIds) {
+            if (index++ > 0) {
+                sql.append(", ");
+            }
+            params.add(userId);
+            sql.append('?').append(params.size());
+        }
+        sql.append(')');
+        
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        return query.executeUpdate();
+    }
+    
+    /**
+     * 生成 column = CASE id WHEN ?a THEN GREATEST(COALESCE(column, ?b), ?b) ... ELSE column END
+     * 使用GREATEST保证多个节点先后刷新时时间不会倒退
+     */
+    private String buildCaseAssignment(String column, Map<Long, LocalDateTime> values, List<Object> params) {
+        StringBuilder clause = new StringBuilder(column).append(" = CASE id");
+        for (Map.Entry<Long, LocalDateTime> entry : values.entrySet()) {
+            params.add(entry.getKey());
+            int idParam = params.size();
+            params.add(entry.getValue());
+            int valueParam = params.size();
+            clause.append(" WHEN ?").append(idParam)
+                  .append(" THEN GREATEST(COALESCE(").append(column).append(", ?").append(valueParam)
+                  .append("), ?").append(valueParam).append(')');
+        }
+        clause.append(" ELSE ").append(column).append(" END");
+        return clause.toString();
+    }
+    
     private UserEntity toEntity(User user) {
         UserEntity entity = new UserEntity();
         entity.setId(user.getId());
@@ -144,12 +270,37 @@ public class JpaUserRepositoryAdapter implements UserRepository {
         entity.setCreatedAt(user.getCreatedAt());
         entity.setUpdatedAt(user.getUpdatedAt());
         entity.setLastLoginAt(user.getLastLoginAt());
+        entity.setLastSeenAt(user.getLastSeenAt());
         
         return entity;
     }
     
     private User toModel(UserEntity entity) {
         User user = new User();
+        copyBasicFields(entity, user);
+        
+        // 设置角色信息
+        if (entity.getRoles() != null) {
+            Set<String> roles = entity.getRoles().stream()
+                    .map(RoleEntity::getName)
+                    .collect(Collectors.toSet());
+            user.setRoles(roles);
+        }
+        
+        return user;
+    }
+    
+    /**
+     * 使用批量查询得到的角色名转换，不访问懒加载的roles集合
+     */
+    private User toModel(UserEntity entity, Set<String> roles) {
+        User user = new User();
+        copyBasicFields(entity, user);
+        user.setRoles(roles);
+        return user;
+    }
+    
+    private void copyBasicFields(UserEntity entity, User user) {
         user.setId(entity.getId());
         user.setUsername(entity.getUsername());
         user.setEmail(entity.getEmail());
@@ -164,15 +315,6 @@ public class JpaUserRepositoryAdapter implements UserRepository {
         user.setCreatedAt(entity.getCreatedAt());
         user.setUpdatedAt(entity.getUpdatedAt());
         user.setLastLoginAt(entity.getLastLoginAt());
-        
-        // 设置角色信息
-        if (entity.getRoles() != null) {
-            Set<String> roles = entity.getRoles().stream()
-                    .map(RoleEntity::getName)
-                    .collect(Collectors.toSet());
-            user.setRoles(roles);
-        }
-        
-        return user;
+        user.setLastSeenAt(entity.getLastSeenAt());
     }
 }
\ No newline at end of file
@@ -4,24 +4,46 @@ import com.blog.api.model.User;
 import com.blog.core.service.UserService;
 import com.blog.web.api.dto.*;
 import com.blog.web.security.JwtTokenProvider;
+import com.blog.web.security.LoginPipeline;
+import com.blog.web.security.LoginRejectedException;
+import com.blog.web.security.TokenBucketRateLimiter;
+import com.blog.web.security.TokenRevocationService;
 import com.blog.web.security.UserPrincipal;
+import com.blog.web.security.UserPrincipalStore;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private LoginPipeline loginPipeline;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor responseExecutor;
 
     @Autowired
     private UserService userService;
@@ -29,39 +51,76 @@ public class AuthController {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
-    @PostMapping("/login")
-    public ResponseEntity<ApiResponse<LoginResponse>> login(@Valid @RequestBody LoginRequest loginRequest) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getUsername(),
-                            loginRequest.getPassword()));
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+    @Autowired
+    private UserPrincipalStore userPrincipalStore;
 
-            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            String accessToken = tokenProvider.generateToken(userPrincipal);
-            String refreshToken = tokenProvider.generateRefreshToken(userPrincipal);
+    @Value("${user.availability.ip-burst:30}")
+    private int availabilityBurst;
 
-            // 更新最后登录时间
-            userService.updateLastLoginTime(userPrincipal.getId());
+    @Value("${user.availability.ip-per-minute:120}")
+    private int availabilityPerMinute;
 
-            // 获取用户信息
-            Optional<User> userOpt = userService.getUserById(userPrincipal.getId());
-            if (userOpt.isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body(ApiResponse.error("用户信息获取失败"));
-            }
+    private TokenBucketRateLimiter availabilityLimiter;
 
-            UserDto userDto = UserDto.fromUser(userOpt.get());
-            LoginResponse loginResponse = new LoginResponse(accessToken, refreshToken, userDto);
+    @PostConstruct
+    public void init() {
+        availabilityLimiter = new TokenBucketRateLimiter(availabilityBurst, availabilityPerMinute, 100000);
+    }
 
-            return ResponseEntity.ok(ApiResponse.success("登录成功", loginResponse));
+    /**
+     * 定期清理已补满的令牌桶
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        availabilityLimiter.evictIdle();
+    }
 
-        } catch (Exception e) {
+    @PostMapping("/login")
+    public CompletableFuture<ResponseEntity<ApiResponse<LoginResponse>>> login(
+            @Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        // 密码校验在专用线程池中执行，请求线程立即释放
+        return loginPipeline.authenticate(loginRequest.getUsername(), loginRequest.getPassword(), request.getRemoteAddr())
+                .thenApplyAsync(this::buildLoginResponse, responseExecutor)
+                .exceptionally(this::loginFailureResponse);
+    }
+
+    private ResponseEntity<ApiResponse<LoginResponse>> buildLoginResponse(Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        String accessToken = tokenProvider.generateToken(userPrincipal);
+        String refreshToken = tokenProvider.generateRefreshToken(userPrincipal);
+
+        // 更新最后登录时间
+        userService.updateLastLoginTime(userPrincipal.getId());
+
+        // 获取用户信息
+        Optional<User> userOpt = userService.getUserById(userPrincipal.getId());
+        if (userOpt.isEmpty()) {
             return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("用户名或密码错误"));
+                    .body(ApiResponse.error("用户信息获取失败"));
+        }
+
+        UserDto userDto = UserDto.fromUser(userOpt.get());
+        LoginResponse loginResponse = new LoginResponse(accessToken, refreshToken, userDto);
+
+        return ResponseEntity.ok(ApiResponse.success("登录成功", loginResponse));
+    }
+
+    private ResponseEntity<ApiResponse<LoginResponse>> loginFailureResponse(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+
+        if (cause instanceof LoginRejectedException) {
+            LoginRejectedException rejected = (LoginRejectedException) cause;
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(rejected.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(rejected.getMessage()));
         }
+
+        return ResponseEntity.badRequest()
+                .body(ApiResponse.error("用户名或密码错误"));
     }
 
     @PostMapping("/register")
@@ -101,6 +160,41 @@ public class AuthController {
         }
     }
 
+    /**
+     * 注册前检查用户名/邮箱是否可用，大部分未占用的值由内存过滤器直接判断，不查询数据库
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<ApiResponse<Map<String, Boolean>>> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            HttpServletRequest request) {
+        if (!StringUtils.hasText(username) && !StringUtils.hasText(email)) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("用户名和邮箱不能同时为空"));
+        }
+
+        long wait = availabilityLimiter.tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(wait))
+                    .body(ApiResponse.error("请求过于频繁，请稍后重试"));
+        }
+
+        try {
+            Map<String, Boolean> result = new LinkedHashMap<>();
+            if (StringUtils.hasText(username)) {
+                result.put("username", !userService.existsByUsername(username.trim()));
+            }
+            if (StringUtils.hasText(email)) {
+                result.put("email", !userService.existsByEmail(email.trim()));
+            }
+            return ResponseEntity.ok(ApiResponse.success("检查完成", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("检查失败: " + e.getMessage()));
+        }
+    }
+
     @PostMapping("/refresh")
     public ResponseEntity<ApiResponse<TokenResponse>> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
         try {
@@ -112,18 +206,22 @@ public class AuthController {
                         .body(ApiResponse.error("无效的刷新令牌"));
             }
 
-            // 从刷新令牌中获取用户信息
-            String username = tokenProvider.getUsernameFromToken(refreshToken);
-            Optional<User> userOpt = userService.getUserByUsername(username);
+            // 刷新令牌只能使用一次：先吊销，已被吊销（或被并发请求用过）时拒绝，被盗的令牌无法重放
+            if (!tokenRevocationService.consume(tokenProvider.getClaimsFromToken(refreshToken))) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("刷新令牌已失效"));
+            }
 
-            if (userOpt.isEmpty()) {
+            // 从刷新令牌中获取用户信息（走认证主体缓存，角色变化后自动重新加载）
+            Long userId = tokenProvider.getUserIdFromToken(refreshToken);
+            UserPrincipal userPrincipal;
+            try {
+                userPrincipal = userPrincipalStore.getPrincipal(userId);
+            } catch (UsernameNotFoundException e) {
                 return ResponseEntity.badRequest()
                         .body(ApiResponse.error("用户不存在"));
             }
 
-            User user = userOpt.get();
-            UserPrincipal userPrincipal = UserPrincipal.create(convertToUserEntity(user));
-
             // 生成新的访问令牌和刷新令牌
             String newAccessToken = tokenProvider.generateToken(userPrincipal);
             String newRefreshToken = tokenProvider.generateRefreshToken(userPrincipal);
@@ -139,16 +237,41 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponse<Void>> logout() {
+    public ResponseEntity<ApiResponse<Void>> logout(HttpServletRequest request,
+                                                    @RequestBody(required = false) RefreshTokenRequest refreshRequest) {
+        // 吊销当前访问令牌
+        revokeQuietly(tokenProvider.resolveToken(request));
+
+        // 如果提供了刷新令牌，一并吊销
+        if (refreshRequest != null) {
+            revokeQuietly(refreshRequest.getRefreshToken());
+        }
+
         // 清除安全上下文
         SecurityContextHolder.clearContext();
 
-        // 在实际应用中，这里可以将令牌加入黑名单
-        // 目前简单返回成功响应
-
         return ResponseEntity.ok(ApiResponse.success("退出登录成功", null));
     }
 
+    /**
+     * 退出所有设备：吊销当前用户已签发的全部令牌
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<ApiResponse<Void>> logoutAll() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal)) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("用户未登录"));
+        }
+
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        tokenRevocationService.revokeAllForUser(userPrincipal.getId());
+        SecurityContextHolder.clearContext();
+
+        return ResponseEntity.ok(ApiResponse.success("已退出所有设备", null));
+    }
+
     @GetMapping("/me")
     public ResponseEntity<ApiResponse<UserDto>> getCurrentUser() {
         try {
@@ -177,25 +300,11 @@ public class AuthController {
         }
     }
 
-    // 临时方法，用于将User模型转换为UserEntity
-    // 在实际应用中，这个转换应该在repository层处理
-    private com.blog.persistence.entity.UserEntity convertToUserEntity(User user) {
-        com.blog.persistence.entity.UserEntity entity = new com.blog.persistence.entity.UserEntity();
-        entity.setId(user.getId());
-        entity.setUsername(user.getUsername());
-        entity.setEmail(user.getEmail());
-        entity.setPasswordHash(user.getPasswordHash());
-        entity.setFullName(user.getFullName());
-        entity.setAvatarUrl(user.getAvatarUrl());
-
-        if (user.getStatus() != null) {
-            entity.setStatus(com.blog.persistence.entity.UserEntity.UserStatus.valueOf(user.getStatus().name()));
+    private void revokeQuietly(String token) {
+        if (!StringUtils.hasText(token) || !tokenProvider.validateToken(token)) {
+            return;
         }
-
-        entity.setCreatedAt(user.getCreatedAt());
-        entity.setUpdatedAt(user.getUpdatedAt());
-        entity.setLastLoginAt(user.getLastLoginAt());
-
-        return entity;
+        Claims claims = tokenProvider.getClaimsFromToken(token);
+        tokenRevocationService.revoke(claims);
     }
 }
\ No newline at end of file
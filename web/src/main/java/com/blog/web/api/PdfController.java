@@ -0,0 +1,504 @@
+package com.blog.web.api;
+
+import com.blog.web.api.dto.ApiResponse;
+import com.blog.web.pdf.PdfBatch;
+import com.blog.web.pdf.PdfBatchService;
+import com.blog.web.pdf.PdfBudget;
+import com.blog.web.pdf.PdfGenerationService;
+import com.blog.web.pdf.PdfJob;
+import com.blog.web.pdf.PdfJobService;
+import com.blog.web.pdf.PdfRequest;
+import com.blog.web.pdf.PdfResult;
+import com.blog.web.pdf.TemplateCache;
+import com.blog.web.pdf.TemplateOptimizationService;
+import com.blog.web.pdf.TemplateOptimizer;
+import com.blog.web.security.annotation.RequirePermission;
+import com.blog.web.util.ContentLengthOutputStream;
+import com.blog.web.util.PdfBatchReader;
+import com.blog.web.util.PermissionChecker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * PDF生成控制器
+ * 同步接口填充模板后直接写入响应，不落盘；小文件带 Content-Length，超出缓冲区的改为分块传输。
+ * 同步生成占用请求线程，并发数受 pdf.stream.max-concurrent 限制；批量或大文件请使用异步任务接口。
+ */
+@RestController
+@RequestMapping("/api/pdf")
+public class PdfController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfController.class);
+
+    @Autowired
+    private PdfGenerationService pdfGenerationService;
+
+    @Autowired
+    private TemplateCache templateCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PdfJobService pdfJobService;
+
+    @Autowired
+    private PdfBatchService pdfBatchService;
+
+    @Autowired
+    private TemplateOptimizationService templateOptimizationService;
+
+    @Autowired
+    private PermissionChecker permissionChecker;
+
+    @Value("${pdf.stream.buffer-bytes:262144}")
+    private int bufferBytes;
+
+    @Value("${pdf.stream.max-concurrent:0}")
+    private int maxConcurrent;
+
+    private Semaphore inlineSlots;
+
+    @PostConstruct
+    public void init() {
+        inlineSlots = new Semaphore(maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 填充模板并返回PDF
+     * POST /api/pdf/{template}
+     */
+    @PostMapping("/{template}")
+    @RequirePermission(resource = "pdf", action = "generate", description = "生成PDF")
+    public void generate(@PathVariable String template, @RequestBody GeneratePdfRequest request,
+                         HttpServletResponse response) throws IOException {
+        Path templatePath;
+        try {
+            templatePath = templateCache.resolveTemplate(template);
+            if (request.getStrategy() != null) {
+                pdfGenerationService.getStrategy(request.getStrategy());
+            }
+        } catch (IllegalArgumentException e) {
+            writeError(response, HttpStatus.BAD_REQUEST, "生成PDF失败: " + e.getMessage());
+            return;
+        }
+
+        if (!inlineSlots.tryAcquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            writeError(response, HttpStatus.TOO_MANY_REQUESTS, "PDF生成繁忙，请稍后重试或使用异步任务接口");
+            return;
+        }
+        try {
+            stream(template, toPdfRequest(templatePath, request), response);
+        } finally {
+            inlineSlots.release();
+        }
+    }
+
+    /**
+     * 提交异步PDF任务
+     * POST /api/pdf/{template}/jobs
+     */
+    @PostMapping("/{template}/jobs")
+    @RequirePermission(resource = "pdf", action = "generate", description = "提交PDF任务")
+    public ResponseEntity<?> submitJob(@PathVariable String template, @RequestBody GeneratePdfRequest request) {
+        try {
+            Path templatePath = templateCache.resolveTemplate(template);
+            if (request.getStrategy() != null) {
+                pdfGenerationService.getStrategy(request.getStrategy());
+            }
+            int priority = request.getPriority() != null ? request.getPriority() : 5;
+            if (priority < 0 || priority > 9) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("优先级必须在0-9之间"));
+            }
+
+            PdfJob job = pdfJobService.submit(permissionChecker.getCurrentUserId(), template,
+                    toPdfRequest(templatePath, request), priority);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("PDF任务已提交", toView(job)));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("提交PDF任务失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 查询PDF任务状态
+     * GET /api/pdf/jobs/{id}
+     */
+    @GetMapping("/jobs/{id}")
+    @RequirePermission(resource = "pdf", action = "generate", description = "查询PDF任务")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        PdfJob job = findOwnJob(id);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("任务不存在或已过期"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("获取PDF任务成功", toView(job)));
+    }
+
+    /**
+     * 下载PDF任务结果
+     * GET /api/pdf/jobs/{id}/result
+     */
+    @GetMapping("/jobs/{id}/result")
+    @RequirePermission(resource = "pdf", action = "generate", description = "下载PDF任务结果")
+    public ResponseEntity<?> getJobResult(@PathVariable String id) {
+        PdfJob job = findOwnJob(id);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("任务不存在或已过期"));
+        }
+        Path file = job.getResultFile();
+        if (job.getStatus() != PdfJob.Status.SUCCEEDED || file == null || !Files.isRegularFile(file)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("任务没有可下载的结果: " + job.getStatus()));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getTemplate() + ".pdf\"")
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * 取消PDF任务
+     * DELETE /api/pdf/jobs/{id}
+     */
+    @DeleteMapping("/jobs/{id}")
+    @RequirePermission(resource = "pdf", action = "generate", description = "取消PDF任务")
+    public ResponseEntity<?> cancelJob(@PathVariable String id) {
+        PdfJob job = findOwnJob(id);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("任务不存在或已过期"));
+        }
+        pdfJobService.cancel(id);
+        return ResponseEntity.ok(ApiResponse.success("已取消PDF任务", toView(job)));
+    }
+
+    /**
+     * 提交批量PDF任务，请求体为CSV或NDJSON数据
+     * POST /api/pdf/{template}/batches
+     */
+    @PostMapping(value = "/{template}/batches", consumes = {"text/csv", "application/x-ndjson", "text/plain"})
+    @RequirePermission(resource = "pdf", action = "generate", description = "提交批量PDF任务")
+    public ResponseEntity<?> submitBatch(@PathVariable String template,
+                                         @RequestParam(defaultValue = "zip") String output,
+                                         @RequestParam(defaultValue = "0") long offset,
+                                         @RequestParam(required = false) String strategy,
+                                         @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                         HttpServletRequest request) {
+        try {
+            Path templatePath = templateCache.resolveTemplate(template);
+            if (strategy != null) {
+                pdfGenerationService.getStrategy(strategy);
+            }
+            if (offset < 0) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("offset不能小于0"));
+            }
+            if (request.getContentLengthLong() > pdfBatchService.getMaxInputBytes()) {
+                throw new PdfBatchService.InputTooLargeException(pdfBatchService.getMaxInputBytes());
+            }
+            PdfBatch.Output batchOutput = PdfBatch.Output.valueOf(output.toUpperCase(Locale.ROOT));
+            PdfBatchReader.Format format = contentType.startsWith("application/x-ndjson")
+                    ? PdfBatchReader.Format.NDJSON : PdfBatchReader.Format.CSV;
+
+            PdfBatch batch = pdfBatchService.submit(permissionChecker.getCurrentUserId(), template, templatePath,
+                    format, request.getInputStream(), batchOutput, strategy, offset);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("批量任务已提交", toView(batch)));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (PdfBatchService.InputTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("提交批量任务失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 查询批量任务进度
+     * GET /api/pdf/batches/{id}
+     */
+    @GetMapping("/batches/{id}")
+    @RequirePermission(resource = "pdf", action = "generate", description = "查询批量PDF任务")
+    public ResponseEntity<?> getBatch(@PathVariable String id) {
+        PdfBatch batch = findOwnBatch(id);
+        if (batch == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("任务不存在或已过期"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("获取批量任务成功", toView(batch)));
+    }
+
+    /**
+     * 下载批量任务结果
+     * GET /api/pdf/batches/{id}/result
+     */
+    @GetMapping("/batches/{id}/result")
+    @RequirePermission(resource = "pdf", action = "generate", description = "下载批量PDF任务结果")
+    public ResponseEntity<?> getBatchResult(@PathVariable String id) {
+        PdfBatch batch = findOwnBatch(id);
+        if (batch == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("任务不存在或已过期"));
+        }
+        Path file = batch.getResultFile();
+        if (!hasResult(batch)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("任务没有可下载的结果: " + batch.getStatus()));
+        }
+        boolean zip = batch.getOutput() == PdfBatch.Output.ZIP;
+        return ResponseEntity.ok()
+                .contentType(zip ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + batch.getTemplate() + (zip ? ".zip" : ".pdf") + "\"")
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * 从续跑偏移继续失败或已取消的批量任务
+     * POST /api/pdf/batches/{id}/resume
+     */
+    @PostMapping("/batches/{id}/resume")
+    @RequirePermission(resource = "pdf", action = "generate", description = "续跑批量PDF任务")
+    public ResponseEntity<?> resumeBatch(@PathVariable String id) {
+        PdfBatch batch = findOwnBatch(id);
+        if (batch == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("任务不存在或已过期"));
+        }
+        try {
+            PdfBatch resumed = pdfBatchService.resume(id, permissionChecker.getCurrentUserId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("批量任务已续跑", toView(resumed)));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * 取消批量任务
+     * DELETE /api/pdf/batches/{id}
+     */
+    @DeleteMapping("/batches/{id}")
+    @RequirePermission(resource = "pdf", action = "generate", description = "取消批量PDF任务")
+    public ResponseEntity<?> cancelBatch(@PathVariable String id) {
+        PdfBatch batch = findOwnBatch(id);
+        if (batch == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("任务不存在或已过期"));
+        }
+        pdfBatchService.cancel(id);
+        return ResponseEntity.ok(ApiResponse.success("已取消批量任务", toView(batch)));
+    }
+
+    /**
+     * 优化模板库中的模板（缩小图片、删除无用资源、合并重复流、压缩交叉引用表）
+     * POST /api/pdf/templates/{template}/optimize
+     */
+    @PostMapping("/templates/{template}/optimize")
+    @RequirePermission(resource = "system", action = "admin", description = "优化PDF模板")
+    public ResponseEntity<?> optimizeTemplate(@PathVariable String template) {
+        try {
+            TemplateOptimizer.Report report = templateOptimizationService.optimize(template);
+            return ResponseEntity.ok(ApiResponse.success(
+                    report.isApplied() ? "模板已优化" : "模板没有可优化的空间", report.toMap()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("优化模板失败: " + e.getMessage()));
+        } catch (Exception e) {
+            logger.error("优化模板失败: {}, {}", template, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("优化模板失败: " + e.getMessage()));
+        }
+    }
+
+    private void stream(String template, PdfRequest pdfRequest, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + template + ".pdf\"");
+        ContentLengthOutputStream out = new ContentLengthOutputStream(response, bufferBytes);
+        try {
+            PdfResult result = pdfGenerationService.generate(pdfRequest, out);
+            out.finish();
+            logger.debug("PDF已生成: {}, 策略 {}, {} KB, 耗时 {} ms", template,
+                    result.getStrategy(), result.getBytes() / 1024, result.getElapsedMs());
+        } catch (IOException | RuntimeException e) {
+            if (out.isCommitted()) {
+                // 已开始写出（或客户端断开），只能中止响应
+                logger.warn("PDF输出中断: {}, 已写出 {} KB, {}", template, out.getCount() / 1024, e.getMessage());
+                throw e;
+            }
+            logger.error("生成PDF失败: {}, {}", template, e.getMessage());
+            response.reset();
+            writeError(response, HttpStatus.INTERNAL_SERVER_ERROR, "生成PDF失败: " + e.getMessage());
+        }
+    }
+
+    private PdfRequest toPdfRequest(Path templatePath, GeneratePdfRequest request) {
+        return new PdfRequest(templatePath.toString(), request.getData())
+                .strategy(request.getStrategy())
+                .budget(request.getMaxBytes() != null || request.getMaxLatencyMs() != null
+                        ? new PdfBudget(request.getMaxBytes(), request.getMaxLatencyMs()) : null);
+    }
+
+    /**
+     * 只能查看自己提交的任务，管理员可以查看全部
+     */
+    private PdfJob findOwnJob(String id) {
+        PdfJob job = pdfJobService.getJob(id).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        Long currentUserId = permissionChecker.getCurrentUserId();
+        if ((currentUserId != null && currentUserId.equals(job.getOwnerId())) || permissionChecker.isAdmin()) {
+            return job;
+        }
+        return null;
+    }
+
+    private PdfBatch findOwnBatch(String id) {
+        PdfBatch batch = pdfBatchService.getBatch(id).orElse(null);
+        if (batch == null) {
+            return null;
+        }
+        Long currentUserId = permissionChecker.getCurrentUserId();
+        if ((currentUserId != null && currentUserId.equals(batch.getOwnerId())) || permissionChecker.isAdmin()) {
+            return batch;
+        }
+        return null;
+    }
+
+    /**
+     * 成功的任务，以及生成过文档的失败/取消任务（部分结果）
+     */
+    private boolean hasResult(PdfBatch batch) {
+        PdfBatch.Status status = batch.getStatus();
+        boolean finished = status == PdfBatch.Status.SUCCEEDED
+                || ((status == PdfBatch.Status.FAILED || status == PdfBatch.Status.CANCELLED) && batch.getSucceeded() > 0);
+        Path file = batch.getResultFile();
+        return finished && file != null && Files.isRegularFile(file);
+    }
+
+    private Map<String, Object> toView(PdfBatch batch) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("id", batch.getId());
+        view.put("template", batch.getTemplate());
+        view.put("status", batch.getStatus());
+        view.put("output", batch.getOutput());
+        view.put("submittedAt", Instant.ofEpochMilli(batch.getSubmittedAt()).toString());
+        if (batch.getStartedAt() > 0) {
+            view.put("startedAt", Instant.ofEpochMilli(batch.getStartedAt()).toString());
+        }
+        if (batch.getFinishedAt() > 0) {
+            view.put("finishedAt", Instant.ofEpochMilli(batch.getFinishedAt()).toString());
+        }
+        view.put("startOffset", batch.getStartOffset());
+        view.put("nextOffset", batch.getNextOffset());
+        view.put("succeeded", batch.getSucceeded());
+        view.put("failed", batch.getFailed());
+        view.put("rowErrors", batch.getRowErrors());
+        if (batch.getResumedFrom() != null) {
+            view.put("resumedFrom", batch.getResumedFrom());
+        }
+        if (hasResult(batch)) {
+            view.put("resultUrl", "/api/pdf/batches/" + batch.getId() + "/result");
+        }
+        if (batch.getError() != null) {
+            view.put("error", batch.getError());
+        }
+        return view;
+    }
+
+    private Map<String, Object> toView(PdfJob job) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("id", job.getId());
+        view.put("template", job.getTemplate());
+        view.put("status", job.getStatus());
+        view.put("priority", job.getPriority());
+        view.put("submittedAt", Instant.ofEpochMilli(job.getSubmittedAt()).toString());
+        if (job.getStartedAt() > 0) {
+            view.put("startedAt", Instant.ofEpochMilli(job.getStartedAt()).toString());
+        }
+        if (job.getFinishedAt() > 0) {
+            view.put("finishedAt", Instant.ofEpochMilli(job.getFinishedAt()).toString());
+        }
+        if (job.getStatus() == PdfJob.Status.QUEUED) {
+            view.put("queueDepth", pdfJobService.getQueueDepth());
+        }
+        if (job.getStatus() == PdfJob.Status.SUCCEEDED) {
+            view.put("strategy", job.getStrategy());
+            view.put("bytes", job.getBytes());
+            view.put("resultUrl", "/api/pdf/jobs/" + job.getId() + "/result");
+        }
+        if (job.getError() != null) {
+            view.put("error", job.getError());
+        }
+        return view;
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+
+    /**
+     * PDF生成请求
+     */
+    public static class GeneratePdfRequest {
+        private Map<String, String> data;
+        private String strategy;
+        private Long maxBytes;
+        private Long maxLatencyMs;
+        private Integer priority;
+
+        // Getters and Setters
+        public Map<String, String> getData() { return data; }
+        public void setData(Map<String, String> data) { this.data = data; }
+        public String getStrategy() { return strategy; }
+        public void setStrategy(String strategy) { this.strategy = strategy; }
+        public Long getMaxBytes() { return maxBytes; }
+        public void setMaxBytes(Long maxBytes) { this.maxBytes = maxBytes; }
+        public Long getMaxLatencyMs() { return maxLatencyMs; }
+        public void setMaxLatencyMs(Long maxLatencyMs) { this.maxLatencyMs = maxLatencyMs; }
+        public Integer getPriority() { return priority; }
+        public void setPriority(Integer priority) { this.priority = priority; }
+    }
+}
@@ -1,15 +1,23 @@
 package com.blog.web.api;
 
 import com.blog.api.model.Permission;
+import com.blog.core.auth.PermissionHolders;
+import com.blog.core.auth.RbacCatalog;
 import com.blog.core.service.PermissionService;
+import com.blog.core.service.RbacCatalogService;
 import com.blog.web.api.dto.ApiResponse;
 import com.blog.web.security.annotation.RequirePermission;
+import com.blog.web.util.PermissionChecker;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -20,9 +28,56 @@ import java.util.Optional;
 @RequestMapping("/api/permissions")
 public class PermissionController {
     
+    private static final int MAX_CHECK_PERMISSIONS = 200;
+    private static final int MAX_HOLDERS_PAGE_SIZE = 200;
+    
     @Autowired
     private PermissionService permissionService;
     
+    @Autowired
+    private PermissionChecker permissionChecker;
+    
+    @Autowired
+    private RbacCatalogService rbacCatalogService;
+    
+    /**
+     * 批量检查权限（前端菜单/按钮渲染使用）
+     * POST /api/permissions/check
+     * 默认检查当前用户；指定userId检查其他用户需要管理员权限
+     */
+    @PostMapping("/check")
+    public ResponseEntity<ApiResponse<Map<String, Boolean>>> checkPermissions(@RequestBody CheckPermissionsRequest request) {
+        try {
+            if (request.getPermissions() == null || request.getPermissions().isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("权限列表不能为空"));
+            }
+            
+            if (request.getPermissions().size() > MAX_CHECK_PERMISSIONS) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("单次最多检查 " + MAX_CHECK_PERMISSIONS + " 个权限"));
+            }
+            
+            Long currentUserId = permissionChecker.getCurrentUserId();
+            if (currentUserId == null) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("用户未登录"));
+            }
+            
+            Long targetUserId = request.getUserId() != null ? request.getUserId() : currentUserId;
+            if (!targetUserId.equals(currentUserId) && !permissionChecker.isAdmin()) {
+                return ResponseEntity.status(403)
+                        .body(ApiResponse.error("权限不足：需要 system:admin"));
+            }
+            
+            Map<String, Boolean> result = permissionChecker.checkPermissions(targetUserId, request.getPermissions());
+            return ResponseEntity.ok(ApiResponse.success("权限检查完成", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("权限检查失败: " + e.getMessage()));
+        }
+    }
+    
     /**
      * 获取所有权限
      * GET /api/permissions
@@ -162,6 +217,56 @@ public class PermissionController {
         }
     }
     
+    /**
+     * 角色/权限目录（角色及其权限名、资源及其操作），管理后台一次请求渲染
+     * GET /api/permissions/catalog
+     * 支持 If-None-Match，目录未变化时返回 304
+     */
+    @GetMapping("/catalog")
+    @RequirePermission(resource = "role", action = "read", description = "查看权限目录")
+    public ResponseEntity<ApiResponse<RbacCatalog>> getCatalog(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            RbacCatalog catalog = rbacCatalogService.getCatalog();
+            if (catalog.getEtag().equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(catalog.getEtag())
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(catalog.getEtag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(ApiResponse.success("获取权限目录成功", catalog));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("获取权限目录失败: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 查看拥有该权限的用户（审计使用）
+     * GET /api/permissions/{id}/holders?page=0&size=50
+     */
+    @GetMapping("/{id}/holders")
+    @RequirePermission(resource = "system", action = "admin", description = "查看权限持有者")
+    public ResponseEntity<ApiResponse<PermissionHolders>> getPermissionHolders(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            if (page < 0 || size <= 0 || size > MAX_HOLDERS_PAGE_SIZE) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("分页参数无效，size 范围为 1-" + MAX_HOLDERS_PAGE_SIZE));
+            }
+            PermissionHolders holders = permissionService.getPermissionHolders(id, page, size);
+            return ResponseEntity.ok(ApiResponse.success("获取权限持有者成功", holders));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("获取权限持有者失败: " + e.getMessage()));
+        }
+    }
+    
     /**
      * 创建权限请求DTO
      */
@@ -207,4 +312,19 @@ public class PermissionController {
         public String getDescription() { return description; }
         public void setDescription(String description) { this.description = description; }
     }
+    
+    /**
+     * 批量检查权限请求DTO
+     */
+    public static class CheckPermissionsRequest {
+        private List<String> permissions;
+        private Long userId;
+        
+        // Getters and Setters
+        public List<String> getPermissions() { return permissions; }
+        public void setPermissions(List<String> permissions) { this.permissions = permissions; }
+        
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+    }
 }
\ No newline at end of file
@@ -1,21 +1,33 @@
 package com.blog.web.api;
 
 import com.blog.api.model.User;
+import com.blog.core.directory.UserDirectoryEntry;
 import com.blog.core.service.UserService;
+import com.blog.persistence.repository.UserFilter;
 import com.blog.web.api.dto.ApiResponse;
 import com.blog.web.api.dto.UserDto;
+import com.blog.web.api.dto.UserScrollResponse;
+import com.blog.web.security.LoginFailureTracker;
+import com.blog.web.security.TokenRevocationService;
 import com.blog.web.security.annotation.RequirePermission;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 用户管理控制器
@@ -25,9 +37,19 @@ import java.util.Set;
 @RequestMapping("/api/users")
 public class UserController {
     
+    private static final int MAX_SCROLL_SIZE = 100;
+    private static final int MAX_BULK_USER_IDS = 10000;
+    private static final int MAX_SEARCH_LIMIT = 50;
+    
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private LoginFailureTracker loginFailureTracker;
+    
     /**
      * 获取用户列表（分页）
      * GET /api/users
@@ -57,6 +79,53 @@ public class UserController {
         }
     }
     
+    /**
+     * 滚动获取用户列表（按ID倒序，不统计总数）
+     * GET /api/users/scroll
+     */
+    @GetMapping("/scroll")
+    @RequirePermission(resource = "user", action = "read", description = "查看用户列表")
+    public ResponseEntity<ApiResponse<UserScrollResponse>> scrollUsers(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        try {
+            int pageSize = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+            Slice<User> users = userService.scrollUsers(cursor, pageSize);
+            
+            List<UserDto> userDtos = users.getContent().stream()
+                    .map(UserDto::fromUser)
+                    .collect(Collectors.toList());
+            Long nextCursor = userDtos.isEmpty() ? null : userDtos.get(userDtos.size() - 1).getId();
+            
+            UserScrollResponse response = new UserScrollResponse(userDtos, users.hasNext() ? nextCursor : null, users.hasNext());
+            return ResponseEntity.ok(ApiResponse.success("获取用户列表成功", response));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("获取用户列表失败: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 按用户名、邮箱或姓名前缀搜索用户（管理后台自动补全）
+     * GET /api/users/search
+     */
+    @GetMapping("/search")
+    @RequirePermission(resource = "user", action = "read", description = "搜索用户")
+    public ResponseEntity<ApiResponse<List<UserDirectoryEntry>>> searchUsers(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        try {
+            int size = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+            List<UserDirectoryEntry> users = userService.searchUsers(prefix, size);
+            return ResponseEntity.ok(ApiResponse.success("搜索用户成功", users));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("搜索用户失败: " + e.getMessage()));
+        }
+    }
+    
     /**
      * 根据ID获取用户详情
      * GET /api/users/{id}
@@ -222,6 +291,59 @@ public class UserController {
         }
     }
     
+    /**
+     * 批量分配角色（按用户ID列表或筛选条件）
+     * POST /api/users/bulk/roles/{roleId}/assign
+     */
+    @PostMapping("/bulk/roles/{roleId}/assign")
+    @RequirePermission(resource = "user", action = "write", description = "批量分配用户角色")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> bulkAssignRole(
+            @PathVariable Long roleId,
+            @RequestBody BulkRoleRequest request) {
+        
+        try {
+            validateBulkRoleRequest(request);
+            int affected = request.getUserIds() != null
+                    ? userService.assignRoleToUsers(roleId, request.getUserIds())
+                    : userService.assignRoleToMatchingUsers(roleId, request.getFilter().toUserFilter());
+            return ResponseEntity.ok(ApiResponse.success("批量分配角色成功", Map.of("affected", affected)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("批量分配角色失败: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 批量撤销角色（按用户ID列表或筛选条件）
+     * POST /api/users/bulk/roles/{roleId}/revoke
+     */
+    @PostMapping("/bulk/roles/{roleId}/revoke")
+    @RequirePermission(resource = "user", action = "write", description = "批量撤销用户角色")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> bulkRevokeRole(
+            @PathVariable Long roleId,
+            @RequestBody BulkRoleRequest request) {
+        
+        try {
+            validateBulkRoleRequest(request);
+            int affected = request.getUserIds() != null
+                    ? userService.revokeRoleFromUsers(roleId, request.getUserIds())
+                    : userService.revokeRoleFromMatchingUsers(roleId, request.getFilter().toUserFilter());
+            return ResponseEntity.ok(ApiResponse.success("批量撤销角色成功", Map.of("affected", affected)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("批量撤销角色失败: " + e.getMessage()));
+        }
+    }
+    
+    private void validateBulkRoleRequest(BulkRoleRequest request) {
+        if ((request.getUserIds() == null) == (request.getFilter() == null)) {
+            throw new IllegalArgumentException("userIds 和 filter 必须且只能提供一个");
+        }
+        if (request.getUserIds() != null && request.getUserIds().size() > MAX_BULK_USER_IDS) {
+            throw new IllegalArgumentException("单次最多指定 " + MAX_BULK_USER_IDS + " 个用户，更多用户请使用筛选条件");
+        }
+    }
+    
     /**
      * 获取用户的所有角色
      * GET /api/users/{id}/roles
@@ -247,6 +369,7 @@ public class UserController {
     public ResponseEntity<ApiResponse<Void>> activateUser(@PathVariable Long id) {
         try {
             userService.activateUser(id);
+            loginFailureTracker.clearLockouts(List.of(id));
             return ResponseEntity.ok(ApiResponse.success("用户激活成功", null));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -263,6 +386,8 @@ public class UserController {
     public ResponseEntity<ApiResponse<Void>> deactivateUser(@PathVariable Long id) {
         try {
             userService.deactivateUser(id);
+            loginFailureTracker.clearLockouts(List.of(id));
+            tokenRevocationService.revokeAllForUser(id);
             return ResponseEntity.ok(ApiResponse.success("用户停用成功", null));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -279,6 +404,8 @@ public class UserController {
     public ResponseEntity<ApiResponse<Void>> lockUser(@PathVariable Long id) {
         try {
             userService.lockUser(id);
+            loginFailureTracker.clearLockouts(List.of(id));
+            tokenRevocationService.revokeAllForUser(id);
             return ResponseEntity.ok(ApiResponse.success("用户锁定成功", null));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -295,6 +422,7 @@ public class UserController {
     public ResponseEntity<ApiResponse<Void>> unlockUser(@PathVariable Long id) {
         try {
             userService.unlockUser(id);
+            loginFailureTracker.clearLockouts(List.of(id));
             return ResponseEntity.ok(ApiResponse.success("用户解锁成功", null));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -302,6 +430,53 @@ public class UserController {
         }
     }
     
+    /**
+     * 批量修改用户状态（锁定/解锁/激活/停用）
+     * POST /api/users/bulk/status
+     */
+    @PostMapping("/bulk/status")
+    @RequirePermission(resource = "user", action = "write", description = "批量修改用户状态")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> bulkChangeStatus(@RequestBody BulkStatusRequest request) {
+        try {
+            if (request.getUserIds() == null || request.getUserIds().isEmpty()) {
+                throw new IllegalArgumentException("userIds 不能为空");
+            }
+            if (request.getUserIds().size() > MAX_BULK_USER_IDS) {
+                throw new IllegalArgumentException("单次最多指定 " + MAX_BULK_USER_IDS + " 个用户");
+            }
+            if (request.getStatus() == null) {
+                throw new IllegalArgumentException("status 不能为空");
+            }
+            User.UserStatus status = User.UserStatus.valueOf(request.getStatus().toUpperCase(Locale.ROOT));
+            
+            Map<Long, UserService.StatusChangeOutcome> outcomes = userService.changeStatus(request.getUserIds(), status);
+            loginFailureTracker.clearLockouts(outcomes.keySet());
+            
+            // 锁定或停用后已签发的令牌立即失效（包括原本就是该状态的用户）
+            if (status != User.UserStatus.ACTIVE) {
+                List<Long> existing = outcomes.entrySet().stream()
+                        .filter(entry -> entry.getValue() != UserService.StatusChangeOutcome.NOT_FOUND)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+                tokenRevocationService.revokeAllForUsers(existing);
+            }
+            
+            Map<UserService.StatusChangeOutcome, Long> summary = new EnumMap<>(UserService.StatusChangeOutcome.class);
+            for (UserService.StatusChangeOutcome outcome : UserService.StatusChangeOutcome.values()) {
+                summary.put(outcome, 0L);
+            }
+            outcomes.values().forEach(outcome -> summary.merge(outcome, 1L, Long::sum));
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("summary", summary);
+            result.put("results", outcomes);
+            return ResponseEntity.ok(ApiResponse.success("批量修改用户状态成功", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("批量修改用户状态失败: " + e.getMessage()));
+        }
+    }
+    
     /**
      * 创建用户请求DTO
      */
@@ -343,4 +518,58 @@ public class UserController {
         public String getFullName() { return fullName; }
         public void setFullName(String fullName) { this.fullName = fullName; }
     }
+    
+    /**
+     * 批量角色操作请求DTO，userIds 与 filter 二选一
+     */
+    public static class BulkRoleRequest {
+        private List<Long> userIds;
+        private UserFilterRequest filter;
+        
+        // Getters and Setters
+        public List<Long> getUserIds() { return userIds; }
+        public void setUserIds(List<Long> userIds) { this.userIds = userIds; }
+        
+        public UserFilterRequest getFilter() { return filter; }
+        public void setFilter(UserFilterRequest filter) { this.filter = filter; }
+    }
+    
+    /**
+     * 批量修改用户状态请求DTO
+     */
+    public static class BulkStatusRequest {
+        private List<Long> userIds;
+        private String status;
+        
+        // Getters and Setters
+        public List<Long> getUserIds() { return userIds; }
+        public void setUserIds(List<Long> userIds) { this.userIds = userIds; }
+        
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+    }
+    
+    /**
+     * 用户筛选条件DTO
+     */
+    public static class UserFilterRequest {
+        private String status;
+        private Long roleId;
+        private String usernamePrefix;
+        
+        public UserFilter toUserFilter() {
+            User.UserStatus userStatus = status != null ? User.UserStatus.valueOf(status.toUpperCase()) : null;
+            return new UserFilter(userStatus, roleId, usernamePrefix);
+        }
+        
+        // Getters and Setters
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+        
+        public Long getRoleId() { return roleId; }
+        public void setRoleId(Long roleId) { this.roleId = roleId; }
+        
+        public String getUsernamePrefix() { return usernamePrefix; }
+        public void setUsernamePrefix(String usernamePrefix) { this.usernamePrefix = usernamePrefix; }
+    }
 }
\ No newline at end of file
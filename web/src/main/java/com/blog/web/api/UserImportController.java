@@ -0,0 +1,152 @@
+package com.blog.web.api;
+
+import com.blog.core.importer.UserImportRecord;
+import com.blog.core.importer.UserImportResult;
+import com.blog.core.service.UserImportService;
+import com.blog.web.api.dto.ApiResponse;
+import com.blog.web.security.annotation.RequirePermission;
+import com.blog.web.util.UserImportReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 用户批量导入控制器
+ * 请求体为CSV或NDJSON，按批导入，每行的结果以NDJSON流式返回
+ */
+@RestController
+@RequestMapping("/api/users")
+public class UserImportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${user.import.max-rows:50000}")
+    private long maxRows;
+
+    /**
+     * 批量导入用户
+     * POST /api/users/import
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @RequirePermission(resource = "user", action = "write", description = "批量导入用户")
+    public ResponseEntity<?> importUsers(HttpServletRequest request) {
+        try {
+            UserImportReader.Format format = MediaType.parseMediaType(request.getContentType())
+                    .isCompatibleWith(NDJSON) ? UserImportReader.Format.NDJSON : UserImportReader.Format.CSV;
+            InputStream input = request.getInputStream();
+
+            StreamingResponseBody body = output -> writeResults(new UserImportReader(input, format, objectMapper), output);
+            return ResponseEntity.ok().contentType(NDJSON).body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("批量导入用户失败: " + e.getMessage()));
+        }
+    }
+
+    private void writeResults(UserImportReader reader, OutputStream output) throws IOException {
+        Map<UserImportResult.Status, Long> summary = new EnumMap<>(UserImportResult.Status.class);
+        for (UserImportResult.Status status : UserImportResult.Status.values()) {
+            summary.put(status, 0L);
+        }
+
+        List<UserImportRecord> chunk = new ArrayList<>(userImportService.getChunkSize());
+        long rows = 0;
+        String error = null;
+
+        try {
+            while (true) {
+                UserImportRecord record;
+                try {
+                    record = reader.next();
+                } catch (UserImportReader.LineParseException e) {
+                    rows++;
+                    summary.merge(UserImportResult.Status.INVALID, 1L, Long::sum);
+                    writeLine(output, lineResult(e.getLine(), null, UserImportResult.Status.INVALID, null, e.getMessage()));
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                if (++rows > maxRows) {
+                    error = "超过单次导入上限: " + maxRows;
+                    break;
+                }
+
+                chunk.add(record);
+                if (chunk.size() >= userImportService.getChunkSize()) {
+                    writeChunk(chunk, summary, output);
+                    chunk.clear();
+                }
+            }
+            writeChunk(chunk, summary, output);
+        } catch (IllegalArgumentException e) {
+            error = e.getMessage();
+        }
+
+        Map<String, Object> summaryLine = new LinkedHashMap<>();
+        summary.forEach((status, count) -> summaryLine.put(status.name().toLowerCase(Locale.ROOT), count));
+        if (error != null) {
+            summaryLine.put("error", error);
+        }
+        writeLine(output, Map.of("summary", summaryLine));
+    }
+
+    private void writeChunk(List<UserImportRecord> chunk, Map<UserImportResult.Status, Long> summary,
+                            OutputStream output) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (UserImportResult result : userImportService.importChunk(chunk)) {
+            summary.merge(result.getStatus(), 1L, Long::sum);
+            writeLine(output, lineResult(result.getLine(), result.getUsername(), result.getStatus(),
+                    result.getUserId(), result.getMessage()));
+        }
+        // 每批结束刷新一次，客户端可以实时看到进度
+        output.flush();
+    }
+
+    private Map<String, Object> lineResult(long line, String username, UserImportResult.Status status,
+                                           Long userId, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("line", line);
+        if (username != null) {
+            result.put("username", username);
+        }
+        result.put("status", status.name());
+        if (userId != null) {
+            result.put("userId", userId);
+        }
+        if (message != null) {
+            result.put("message", message);
+        }
+        return result;
+    }
+
+    private void writeLine(OutputStream output, Object value) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(value));
+        output.write('\n');
+    }
+}
@@ -16,6 +16,7 @@ public class UserDto {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private LocalDateTime lastLoginAt;
+    private LocalDateTime lastSeenAt;
     private Set<String> roles;
     
     public UserDto() {}
@@ -31,6 +32,7 @@ public class UserDto {
         dto.setCreatedAt(user.getCreatedAt());
         dto.setUpdatedAt(user.getUpdatedAt());
         dto.setLastLoginAt(user.getLastLoginAt());
+        dto.setLastSeenAt(user.getLastSeenAt());
         dto.setRoles(user.getRoles());
         return dto;
     }
@@ -107,6 +109,14 @@ public class UserDto {
         this.lastLoginAt = lastLoginAt;
     }
     
+    public LocalDateTime getLastSeenAt() {
+        return lastSeenAt;
+    }
+    
+    public void setLastSeenAt(LocalDateTime lastSeenAt) {
+        this.lastSeenAt = lastSeenAt;
+    }
+    
     public Set<String> getRoles() {
         return roles;
     }
@@ -0,0 +1,46 @@
+package com.blog.web.api.dto;
+
+import java.util.List;
+
+/**
+ * 用户滚动加载结果（键集分页）
+ * 下一页请求时把 nextCursor 作为 cursor 参数传回
+ */
+public class UserScrollResponse {
+
+    private List<UserDto> content;
+    private Long nextCursor;
+    private boolean hasNext;
+
+    public UserScrollResponse() {}
+
+    public UserScrollResponse(List<UserDto> content, Long nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    public List<UserDto> getContent() {
+        return content;
+    }
+
+    public void setContent(List<UserDto> content) {
+        this.content = content;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
@@ -1,15 +1,37 @@
 package com.blog.web.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 public class PasswordEncoderConfig {
     
+    private static final String BCRYPT = "bcrypt";
+    
+    /**
+     * 带编码标识前缀的密码编码器（如 {bcrypt}$2a$10$...）
+     * 
+     * 登录成功时如果存储的哈希不是当前编码方式或强度低于当前配置，
+     * DaoAuthenticationProvider 会通过 UserDetailsPasswordService 自动重新加密，
+     * 调整BCrypt强度或更换算法时无需批量迁移。
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT, encoders);
+        // 兼容历史上不带前缀的BCrypt哈希，登录成功后会被升级为带前缀的格式
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,9 @@ package com.blog.web.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * PDF配置类
  * 管理PDF生成相关的配置参数
@@ -16,11 +19,51 @@ public class PdfConfig {
      */
     private String fontPath = "src/main/resources/fonts/NotoSerifCJKsc-Regular.otf";
     
+    /**
+     * 字体文件不存在时使用的classpath字体资源
+     */
+    private String fontResource = "fonts/NotoSerifCJKsc-Regular.otf";
+    
+    /**
+     * classpath字体解压目录（为空时使用系统临时目录）
+     */
+    private String fontCacheDir = "";
+    
+    /**
+     * 其他字体：名称 -> 文件路径或 classpath:资源路径
+     */
+    private Map<String, String> fonts = new LinkedHashMap<>();
+    
+    /**
+     * 启动时预加载字体
+     */
+    private boolean fontWarmup = true;
+    
+    /**
+     * 子集嵌入时优先使用默认字体的常用字子集
+     */
+    private boolean commonSubset = true;
+    
+    /**
+     * 预先生成的常用字子集字体（为空或不存在时启动后自动生成到字体解压目录）
+     */
+    private String commonSubsetPath = "";
+    
     /**
      * 模板文件目录
      */
     private String templateDir = "src/main/resources/templates/pdf/";
     
+    /**
+     * 同一模板两次检查文件是否变化的最小间隔（毫秒）
+     */
+    private long templateCheckIntervalMs = 2000;
+    
+    /**
+     * 最多缓存的模板数
+     */
+    private int templateCacheSize = 64;
+    
     /**
      * 输出文件目录
      */
@@ -45,6 +88,54 @@ public class PdfConfig {
         this.fontPath = fontPath;
     }
     
+    public String getFontResource() {
+        return fontResource;
+    }
+    
+    public void setFontResource(String fontResource) {
+        this.fontResource = fontResource;
+    }
+    
+    public String getFontCacheDir() {
+        return fontCacheDir;
+    }
+    
+    public void setFontCacheDir(String fontCacheDir) {
+        this.fontCacheDir = fontCacheDir;
+    }
+    
+    public Map<String, String> getFonts() {
+        return fonts;
+    }
+    
+    public void setFonts(Map<String, String> fonts) {
+        this.fonts = fonts;
+    }
+    
+    public boolean isFontWarmup() {
+        return fontWarmup;
+    }
+    
+    public void setFontWarmup(boolean fontWarmup) {
+        this.fontWarmup = fontWarmup;
+    }
+    
+    public boolean isCommonSubset() {
+        return commonSubset;
+    }
+    
+    public void setCommonSubset(boolean commonSubset) {
+        this.commonSubset = commonSubset;
+    }
+    
+    public String getCommonSubsetPath() {
+        return commonSubsetPath;
+    }
+    
+    public void setCommonSubsetPath(String commonSubsetPath) {
+        this.commonSubsetPath = commonSubsetPath;
+    }
+    
     public String getTemplateDir() {
         return templateDir;
     }
@@ -53,6 +144,22 @@ public class PdfConfig {
         this.templateDir = templateDir;
     }
     
+    public long getTemplateCheckIntervalMs() {
+        return templateCheckIntervalMs;
+    }
+    
+    public void setTemplateCheckIntervalMs(long templateCheckIntervalMs) {
+        this.templateCheckIntervalMs = templateCheckIntervalMs;
+    }
+    
+    public int getTemplateCacheSize() {
+        return templateCacheSize;
+    }
+    
+    public void setTemplateCacheSize(int templateCacheSize) {
+        this.templateCacheSize = templateCacheSize;
+    }
+    
     public String getOutputDir() {
         return outputDir;
     }
@@ -47,6 +47,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder);
+        // 登录成功时自动升级过时的密码哈希
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -0,0 +1,345 @@
+package com.blog.web.pdf;
+
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.CFFFontSubset;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 常用字子集字体生成
+ *
+ * 从完整的CJK字体（CFF轮廓的 .otf）中只保留 ASCII、GB2312 符号区（1-9区，含全角字符和标点）
+ * 和一级汉字（16-55区，3755字）的字形，生成一个独立的 OpenType 字体文件。
+ * 字形编号保持不变，cmap 只映射保留的字符，因此 BaseFont.charExists 能准确判断字符是否在子集内。
+ * 只保留 iText 用到的表，GSUB/GPOS/vmtx 等排版表全部丢弃。
+ *
+ * 启动时由 {@link FontRegistry} 自动生成并缓存，也可以离线生成后通过 pdf.common-subset-path 指定：
+ * java -cp web/target/blog-web-1.0.0.jar -Dloader.main=com.blog.web.pdf.CommonSubsetFontBuilder org.springframework.boot.loader.launch.PropertiesLauncher NotoSerifCJKsc-Regular.otf NotoSerifCJKsc-Common.otf
+ */
+public final class CommonSubsetFontBuilder {
+
+    private static final int SFNT_CFF = 0x4F54544F;
+    private static final int CHECKSUM_MAGIC = 0xB1B0AFBA;
+
+    /**
+     * 保留的表，cmap 重新生成，'CFF ' 替换为子集
+     */
+    private static final String[] KEPT_TABLES = {"CFF ", "OS/2", "cmap", "head", "hhea", "hmtx", "maxp", "name", "post"};
+
+    private CommonSubsetFontBuilder() {
+    }
+
+    /**
+     * 子集包含的字符（升序）
+     */
+    public static int[] commonCodePoints() {
+        TreeSet<Integer> codePoints = new TreeSet<>();
+        for (int c = 0x20; c <= 0x7E; c++) {
+            codePoints.add(c);
+        }
+        CharsetDecoder decoder = Charset.forName("GB2312").newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        addGb2312Rows(decoder, 0xA1, 0xA9, codePoints);
+        addGb2312Rows(decoder, 0xB0, 0xD7, codePoints);
+        return codePoints.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void addGb2312Rows(CharsetDecoder decoder, int firstRow, int lastRow, TreeSet<Integer> codePoints) {
+        byte[] bytes = new byte[2];
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int cell = 0xA1; cell <= 0xFE; cell++) {
+                bytes[0] = (byte) row;
+                bytes[1] = (byte) cell;
+                try {
+                    String decoded = decoder.decode(ByteBuffer.wrap(bytes)).toString();
+                    decoded.codePoints().forEach(codePoints::add);
+                } catch (IOException e) {
+                    // 码位未定义（区内空位）
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成子集字体，先写临时文件再原子替换
+     *
+     * @return 子集包含的字符数
+     * @throws IOException 源字体不是CFF轮廓的 OpenType 字体等
+     */
+    public static int build(Path source, Path target) throws IOException {
+        byte[] font = Files.readAllBytes(source);
+        ByteBuffer in = ByteBuffer.wrap(font);
+        if (in.getInt(0) != SFNT_CFF) {
+            throw new IOException("只支持CFF轮廓的OpenType字体（.otf）: " + source);
+        }
+
+        Map<String, byte[]> tables = new TreeMap<>();
+        int numTables = in.getShort(4) & 0xFFFF;
+        for (int i = 0; i < numTables; i++) {
+            int record = 12 + i * 16;
+            byte[] tagBytes = new byte[4];
+            in.get(record, tagBytes);
+            String tag = new String(tagBytes, StandardCharsets.ISO_8859_1);
+            if (Arrays.asList(KEPT_TABLES).contains(tag)) {
+                int offset = in.getInt(record + 8);
+                int length = in.getInt(record + 12);
+                tables.put(tag, Arrays.copyOfRange(font, offset, offset + length));
+            }
+        }
+        for (String tag : KEPT_TABLES) {
+            if (!tables.containsKey(tag)) {
+                throw new IOException("字体缺少 " + tag.trim() + " 表: " + source);
+            }
+        }
+
+        // 从源字体的 cmap 得到字符对应的字形编号（CFFFontSubset 只用到字形编号）
+        ByteBuffer cmap = ByteBuffer.wrap(tables.get("cmap"));
+        int subtable = findUnicodeSubtable(cmap, source);
+        TreeMap<Integer, Integer> glyphByCodePoint = new TreeMap<>();
+        HashMap<Integer, int[]> glyphsUsed = new HashMap<>();
+        glyphsUsed.put(0, new int[]{0, 0, 0});
+        for (int codePoint : commonCodePoints()) {
+            int glyph = glyphIndex(cmap, subtable, codePoint);
+            if (glyph > 0) {
+                glyphByCodePoint.put(codePoint, glyph);
+                glyphsUsed.put(glyph, new int[]{glyph, 0, codePoint});
+            }
+        }
+
+        byte[] cff = tables.get("CFF ");
+        CFFFontSubset subset = new CFFFontSubset(
+                new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(cff)), glyphsUsed);
+        tables.put("CFF ", subset.Process(subset.getNames()[0]));
+        tables.put("cmap", buildCmap(glyphByCodePoint));
+
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "font-", ".tmp");
+        try {
+            Files.write(tmp, writeFont(tables));
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return glyphByCodePoint.size();
+    }
+
+    /**
+     * Unicode 子表的偏移：优先 (3,10) format 12（含BMP以外的字符），其次 (3,1) format 4
+     */
+    private static int findUnicodeSubtable(ByteBuffer cmap, Path source) throws IOException {
+        int numTables = cmap.getShort(2) & 0xFFFF;
+        int bmp = -1;
+        for (int i = 0; i < numTables; i++) {
+            int record = 4 + i * 8;
+            int platform = cmap.getShort(record) & 0xFFFF;
+            int encoding = cmap.getShort(record + 2) & 0xFFFF;
+            int offset = cmap.getInt(record + 4);
+            int format = cmap.getShort(offset) & 0xFFFF;
+            if (platform == 3 && encoding == 10 && format == 12) {
+                return offset;
+            }
+            if (platform == 3 && encoding == 1 && format == 4) {
+                bmp = offset;
+            }
+        }
+        if (bmp < 0) {
+            throw new IOException("字体缺少Unicode cmap子表: " + source);
+        }
+        return bmp;
+    }
+
+    /**
+     * 字符对应的字形编号，0 表示字体中没有该字符
+     */
+    private static int glyphIndex(ByteBuffer cmap, int subtable, int codePoint) {
+        if ((cmap.getShort(subtable) & 0xFFFF) == 12) {
+            long groups = cmap.getInt(subtable + 12) & 0xFFFFFFFFL;
+            for (long i = 0; i < groups; i++) {
+                int group = (int) (subtable + 16 + i * 12);
+                int start = cmap.getInt(group);
+                if (codePoint >= start && codePoint <= cmap.getInt(group + 4)) {
+                    return cmap.getInt(group + 8) + codePoint - start;
+                }
+            }
+            return 0;
+        }
+
+        if (codePoint > 0xFFFF) {
+            return 0;
+        }
+        int segCountX2 = cmap.getShort(subtable + 6) & 0xFFFF;
+        int ends = subtable + 14;
+        int starts = ends + segCountX2 + 2;
+        int deltas = starts + segCountX2;
+        int rangeOffsets = deltas + segCountX2;
+        for (int i = 0; i < segCountX2; i += 2) {
+            if ((cmap.getShort(ends + i) & 0xFFFF) < codePoint) {
+                continue;
+            }
+            int start = cmap.getShort(starts + i) & 0xFFFF;
+            if (codePoint < start) {
+                return 0;
+            }
+            int delta = cmap.getShort(deltas + i);
+            int rangeOffset = cmap.getShort(rangeOffsets + i) & 0xFFFF;
+            if (rangeOffset == 0) {
+                return (codePoint + delta) & 0xFFFF;
+            }
+            int glyph = cmap.getShort(rangeOffsets + i + rangeOffset + (codePoint - start) * 2) & 0xFFFF;
+            return glyph == 0 ? 0 : (glyph + delta) & 0xFFFF;
+        }
+        return 0;
+    }
+
+    /**
+     * 只含 (3,1) format 4 子表的 cmap；字符和字形编号同时连续的区间合并为一段
+     */
+    private static byte[] buildCmap(TreeMap<Integer, Integer> glyphByCodePoint) throws IOException {
+        int[] starts = new int[glyphByCodePoint.size() + 1];
+        int[] ends = new int[starts.length];
+        int[] deltas = new int[starts.length];
+        int segments = 0;
+        for (Map.Entry<Integer, Integer> entry : glyphByCodePoint.entrySet()) {
+            int codePoint = entry.getKey();
+            int delta = entry.getValue() - codePoint;
+            if (segments > 0 && ends[segments - 1] == codePoint - 1 && deltas[segments - 1] == delta) {
+                ends[segments - 1] = codePoint;
+            } else {
+                starts[segments] = codePoint;
+                ends[segments] = codePoint;
+                deltas[segments] = delta;
+                segments++;
+            }
+        }
+        // 结束段
+        starts[segments] = 0xFFFF;
+        ends[segments] = 0xFFFF;
+        deltas[segments] = 1;
+        segments++;
+
+        int entrySelector = 31 - Integer.numberOfLeadingZeros(segments);
+        int searchRange = 2 << entrySelector;
+        int subtableLength = 16 + segments * 8;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(12 + subtableLength);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(0);
+        out.writeShort(1);
+        out.writeShort(3);
+        out.writeShort(1);
+        out.writeInt(12);
+
+        out.writeShort(4);
+        out.writeShort(subtableLength);
+        out.writeShort(0);
+        out.writeShort(segments * 2);
+        out.writeShort(searchRange);
+        out.writeShort(entrySelector);
+        out.writeShort(segments * 2 - searchRange);
+        for (int i = 0; i < segments; i++) {
+            out.writeShort(ends[i]);
+        }
+        out.writeShort(0);
+        for (int i = 0; i < segments; i++) {
+            out.writeShort(starts[i]);
+        }
+        for (int i = 0; i < segments; i++) {
+            out.writeShort(deltas[i]);
+        }
+        for (int i = 0; i < segments; i++) {
+            out.writeShort(0);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] writeFont(Map<String, byte[]> tables) throws IOException {
+        int numTables = tables.size();
+        int entrySelector = 31 - Integer.numberOfLeadingZeros(numTables);
+        int searchRange = 16 << entrySelector;
+
+        // head.checkSumAdjustment 计算前置零
+        byte[] head = tables.get("head");
+        ByteBuffer.wrap(head).putInt(8, 0);
+
+        int offset = 12 + numTables * 16;
+        ByteArrayOutputStream directory = new ByteArrayOutputStream();
+        DataOutputStream dir = new DataOutputStream(directory);
+        dir.writeInt(SFNT_CFF);
+        dir.writeShort(numTables);
+        dir.writeShort(searchRange);
+        dir.writeShort(entrySelector);
+        dir.writeShort(numTables * 16 - searchRange);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (Map.Entry<String, byte[]> table : tables.entrySet()) {
+            byte[] data = table.getValue();
+            byte[] padded = Arrays.copyOf(data, (data.length + 3) & ~3);
+            dir.writeBytes(table.getKey());
+            dir.writeInt(checksum(padded));
+            dir.writeInt(offset);
+            dir.writeInt(data.length);
+            body.write(padded);
+            offset += padded.length;
+        }
+
+        byte[] file = new byte[directory.size() + body.size()];
+        System.arraycopy(directory.toByteArray(), 0, file, 0, directory.size());
+        System.arraycopy(body.toByteArray(), 0, file, directory.size(), body.size());
+
+        int headOffset = ByteBuffer.wrap(file).getInt(12 + indexOf(tables, "head") * 16 + 8);
+        ByteBuffer.wrap(file).putInt(headOffset + 8, CHECKSUM_MAGIC - checksum(file));
+        return file;
+    }
+
+    private static int indexOf(Map<String, byte[]> tables, String tag) {
+        int index = 0;
+        for (String key : tables.keySet()) {
+            if (key.equals(tag)) {
+                return index;
+            }
+            index++;
+        }
+        throw new IllegalStateException(tag);
+    }
+
+    private static int checksum(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int sum = 0;
+        for (int i = 0; i + 4 <= data.length; i += 4) {
+            sum += buffer.getInt(i);
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("用法: CommonSubsetFontBuilder <源字体.otf> <输出字体.otf>");
+            return;
+        }
+        Path source = Paths.get(args[0]);
+        Path target = Paths.get(args[1]);
+        long start = System.currentTimeMillis();
+        int chars = build(source, target);
+        System.out.printf("子集字体已生成: %s, %d 字, %d KB -> %d KB, 耗时 %d ms%n", target, chars,
+                Files.size(source) / 1024, Files.size(target) / 1024, System.currentTimeMillis() - start);
+    }
+}
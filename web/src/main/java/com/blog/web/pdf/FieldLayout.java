@@ -0,0 +1,75 @@
+package com.blog.web.pdf;
+
+import com.itextpdf.text.Element;
+
+/**
+ * 模板中一个表单字段的预计算布局（不可变）
+ */
+public class FieldLayout {
+
+    private final String name;
+    private final int page;
+    private final float left;
+    private final float bottom;
+    private final float right;
+    private final float top;
+    private final float fontSize;
+    private final int alignment;
+
+    FieldLayout(String name, int page, float left, float bottom, float right, float top,
+                float fontSize, int alignment) {
+        this.name = name;
+        this.page = page;
+        this.left = left;
+        this.bottom = bottom;
+        this.right = right;
+        this.top = top;
+        this.fontSize = fontSize;
+        this.alignment = alignment;
+    }
+
+    /**
+     * 字段自身声明的字号，未声明（0，自动大小）时使用默认字号
+     */
+    public float fontSizeOr(float defaultSize) {
+        return fontSize > 0 ? fontSize : defaultSize;
+    }
+
+    /**
+     * 文字起点横坐标，与对齐方式对应（左对齐留 2pt 边距）
+     */
+    public float textX() {
+        switch (alignment) {
+            case Element.ALIGN_CENTER:
+                return (left + right) / 2;
+            case Element.ALIGN_RIGHT:
+                return right - 2;
+            default:
+                return left + 2;
+        }
+    }
+
+    /**
+     * 文字基线纵坐标（底部留 3pt 边距）
+     */
+    public float textY() {
+        return bottom + 3;
+    }
+
+    public float getWidth() {
+        return right - left;
+    }
+
+    public float getHeight() {
+        return top - bottom;
+    }
+
+    public String getName() { return name; }
+    public int getPage() { return page; }
+    public float getLeft() { return left; }
+    public float getBottom() { return bottom; }
+    public float getRight() { return right; }
+    public float getTop() { return top; }
+    public float getFontSize() { return fontSize; }
+    public int getAlignment() { return alignment; }
+}
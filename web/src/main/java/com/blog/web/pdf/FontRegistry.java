@@ -0,0 +1,380 @@
+package com.blog.web.pdf;
+
+import com.blog.web.config.PdfConfig;
+import com.itextpdf.text.pdf.BaseFont;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 进程级字体注册表
+ *
+ * 每个配置的字体只定位一次：磁盘上的字体文件直接使用，classpath中的字体解压到本地目录一次；
+ * 之后每种嵌入方式只解析一次，生成的 BaseFont 由所有文档共享。
+ * iText 通过文件路径打开字体时使用内存映射，字体数据不进入堆内存。
+ * BaseFont 解析完成后只读，每个文档用到的字形记录在各自的 PdfWriter 中，可以跨线程共享；
+ * 调用方不要修改返回的 BaseFont（setSubset 等）。
+ *
+ * 默认字体另有一个常用字子集（见 {@link CommonSubsetFontBuilder}），子集嵌入时优先使用：
+ * 字体小一个数量级，每个文档的子集化耗时随之大幅下降；只有子集之外的字符才回退到完整字体。
+ */
+@Component
+public class FontRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(FontRegistry.class);
+
+    /**
+     * pdf.font-path / pdf.font-resource 配置的默认字体
+     */
+    public static final String DEFAULT_FONT = "default";
+
+    /**
+     * 默认字体的常用字子集
+     */
+    public static final String COMMON_SUBSET_FONT = "common";
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final String CJK_CMAP_FONT = "STSong-Light";
+    private static final String CJK_CMAP_ENCODING = "UniGB-UCS2-H";
+
+    /**
+     * 字体嵌入方式
+     */
+    public enum Embedding {
+        /** 嵌入完整字体 */
+        FULL,
+        /** 只嵌入文档用到的字形 */
+        SUBSET,
+        /** 不嵌入，依赖阅读器本地字体 */
+        NOT_EMBEDDED
+    }
+
+    @Autowired
+    private PdfConfig pdfConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, RegisteredFont> fonts = new LinkedHashMap<>();
+    private final AtomicBoolean warmed = new AtomicBoolean();
+
+    private volatile BaseFont cjkCMapFont;
+    private volatile BaseFont latinFont;
+    private volatile boolean commonSubsetUnavailable;
+
+    @PostConstruct
+    public void init() {
+        fonts.put(DEFAULT_FONT, new RegisteredFont(DEFAULT_FONT, pdfConfig.getFontPath(), pdfConfig.getFontResource()));
+        if (pdfConfig.isCommonSubset()) {
+            fonts.put(COMMON_SUBSET_FONT,
+                    new RegisteredFont(COMMON_SUBSET_FONT, pdfConfig.getCommonSubsetPath(), null, DEFAULT_FONT));
+        }
+        pdfConfig.getFonts().forEach((name, location) -> {
+            if (location.startsWith(CLASSPATH_PREFIX)) {
+                fonts.put(name, new RegisteredFont(name, null, location.substring(CLASSPATH_PREFIX.length())));
+            } else {
+                fonts.put(name, new RegisteredFont(name, location, null));
+            }
+        });
+
+        for (RegisteredFont font : fonts.values()) {
+            Gauge.builder("pdf.font.mapped.bytes", font, f -> f.fileSize)
+                    .description("字体文件大小（内存映射，不占用堆内存）")
+                    .tag("font", font.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 启动后预加载：定位字体文件并按默认嵌入方式解析一次
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        if (!pdfConfig.isFontWarmup() || !warmed.compareAndSet(false, true)) {
+            return;
+        }
+        Embedding mode = pdfConfig.isEmbedFont() ? Embedding.SUBSET : Embedding.NOT_EMBEDDED;
+        for (RegisteredFont font : fonts.values()) {
+            try {
+                font.get(mode);
+            } catch (Exception e) {
+                logger.error("字体预加载失败: {}, {}", font.name, e.getMessage());
+            }
+        }
+        logger.info("字体预加载完成: {}", getStats());
+    }
+
+    /**
+     * 默认字体
+     */
+    public BaseFont getFont(Embedding mode) {
+        return getFont(DEFAULT_FONT, mode);
+    }
+
+    /**
+     * 指定字体，首次使用该嵌入方式时解析，之后直接返回缓存实例
+     */
+    public BaseFont getFont(String name, Embedding mode) {
+        RegisteredFont font = fonts.get(name);
+        if (font == null) {
+            throw new RuntimeException("字体未注册: " + name);
+        }
+        try {
+            return font.get(mode);
+        } catch (Exception e) {
+            throw new RuntimeException("字体加载失败: " + name + ", " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 子集嵌入时绘制这段文字的字体：常用字子集能显示全部字符时用子集，否则用完整字体
+     */
+    public BaseFont subsetFontFor(String text) {
+        if (pdfConfig.isCommonSubset() && !commonSubsetUnavailable) {
+            try {
+                BaseFont common = getFont(COMMON_SUBSET_FONT, Embedding.SUBSET);
+                if (GlyphCoverage.isTextCoveredBy(text, common)) {
+                    return common;
+                }
+            } catch (RuntimeException e) {
+                commonSubsetUnavailable = true;
+                logger.warn("常用字子集字体不可用，改用完整字体: {}", e.getMessage());
+            }
+        }
+        return getFont(Embedding.SUBSET);
+    }
+
+    /**
+     * itext-asian 自带的宋体CMap字体（不嵌入，文件最小，依赖阅读器的中文字体）
+     */
+    public BaseFont getCjkCMapFont() {
+        BaseFont font = cjkCMapFont;
+        if (font == null) {
+            synchronized (this) {
+                font = cjkCMapFont;
+                if (font == null) {
+                    try {
+                        font = BaseFont.createFont(CJK_CMAP_FONT, CJK_CMAP_ENCODING, BaseFont.NOT_EMBEDDED);
+                    } catch (Exception e) {
+                        throw new RuntimeException("CJK CMap字体加载失败: " + e.getMessage(), e);
+                    }
+                    cjkCMapFont = font;
+                }
+            }
+        }
+        return font;
+    }
+
+    /**
+     * 标准14字体 Helvetica（WinAnsi，不嵌入，所有阅读器都内置）
+     */
+    public BaseFont getStandardLatinFont() {
+        BaseFont font = latinFont;
+        if (font == null) {
+            try {
+                font = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+            } catch (Exception e) {
+                throw new RuntimeException("标准字体加载失败: " + e.getMessage(), e);
+            }
+            latinFont = font;
+        }
+        return font;
+    }
+
+    /**
+     * 字体文件大小（字节），用于估算完整嵌入后的文件大小
+     */
+    public long getFontFileSize(String name) {
+        getFontFile(name);
+        return fonts.get(name).fileSize;
+    }
+
+    public boolean isRegistered(String name) {
+        return fonts.containsKey(name);
+    }
+
+    /**
+     * 字体文件的本地路径（classpath字体为解压后的路径），可供子集化等需要直接读取字体文件的场景使用
+     */
+    public Path getFontFile(String name) {
+        RegisteredFont font = fonts.get(name);
+        if (font == null) {
+            throw new RuntimeException("字体未注册: " + name);
+        }
+        try {
+            return font.resolve();
+        } catch (IOException e) {
+            throw new RuntimeException("字体文件不可用: " + name + ", " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 每个字体的来源、映射大小、已解析的嵌入方式和解析耗时
+     */
+    public List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (RegisteredFont font : fonts.values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", font.name);
+            item.put("file", font.file != null ? font.file.toString() : null);
+            item.put("extracted", font.extracted);
+            item.put("mappedKB", font.fileSize / 1024);
+            item.put("loadedModes", font.loadedModes());
+            item.put("parseMs", font.parseMillis);
+            stats.add(item);
+        }
+        return stats;
+    }
+
+    private Path extract(String resource) throws IOException {
+        URL url = getClass().getClassLoader().getResource(resource);
+        if (url == null) {
+            throw new IOException("classpath中未找到字体资源: " + resource);
+        }
+        // 未打包运行时资源本身就是文件，直接使用
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return Paths.get(url.toURI());
+            } catch (Exception e) {
+                logger.debug("字体资源不是本地文件，改为解压: {}", url);
+            }
+        }
+
+        Path dir = cacheDir();
+        Path target = dir.resolve(Paths.get(resource).getFileName().toString());
+
+        // 先写临时文件再原子替换，多个进程共用目录时也不会读到半个文件
+        Path tmp = Files.createTempFile(dir, "font-", ".tmp");
+        try (InputStream in = url.openStream()) {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        logger.info("classpath字体已解压: {} -> {}", resource, target);
+        return target;
+    }
+
+    /**
+     * 生成常用字子集；文件名包含源字体的大小和修改时间，源字体不变时直接复用上次的结果
+     */
+    private Path buildCommonSubset(Path source) throws IOException {
+        String fileName = source.getFileName().toString();
+        String baseName = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+        Path target = cacheDir().resolve(String.format("%s-common-%x-%x.otf", baseName,
+                Files.size(source), Files.getLastModifiedTime(source).toMillis()));
+        if (Files.isRegularFile(target)) {
+            return target;
+        }
+
+        long start = System.currentTimeMillis();
+        int chars = CommonSubsetFontBuilder.build(source, target);
+        logger.info("常用字子集字体已生成: {}, {} 字, {} KB -> {} KB, 耗时 {} ms", target, chars,
+                Files.size(source) / 1024, Files.size(target) / 1024, System.currentTimeMillis() - start);
+        return target;
+    }
+
+    private Path cacheDir() throws IOException {
+        String cacheDir = pdfConfig.getFontCacheDir();
+        Path dir = cacheDir == null || cacheDir.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "blog-pdf-fonts")
+                : Paths.get(cacheDir);
+        Files.createDirectories(dir);
+        return dir;
+    }
+
+    private final class RegisteredFont {
+        private final String name;
+        private final String path;
+        private final String resource;
+        /**
+         * 不为空时表示该字体是这个字体的常用字子集，path 未指定或不存在时自动生成
+         */
+        private final String subsetOf;
+        private final Map<Embedding, BaseFont> handles = new EnumMap<>(Embedding.class);
+
+        private volatile Path file;
+        private volatile boolean extracted;
+        private volatile long fileSize;
+        private volatile long parseMillis;
+
+        RegisteredFont(String name, String path, String resource) {
+            this(name, path, resource, null);
+        }
+
+        RegisteredFont(String name, String path, String resource, String subsetOf) {
+            this.name = name;
+            this.path = path;
+            this.resource = resource;
+            this.subsetOf = subsetOf;
+        }
+
+        synchronized Path resolve() throws IOException {
+            if (file == null) {
+                Path resolved = null;
+                if (path != null && !path.isBlank() && Files.isRegularFile(Paths.get(path))) {
+                    resolved = Paths.get(path);
+                } else if (subsetOf != null) {
+                    resolved = buildCommonSubset(fonts.get(subsetOf).resolve());
+                } else if (resource != null && !resource.isBlank()) {
+                    resolved = extract(resource);
+                    extracted = true;
+                }
+                if (resolved == null) {
+                    throw new IOException("字体文件不存在: " + path);
+                }
+                fileSize = Files.size(resolved);
+                file = resolved;
+            }
+            return file;
+        }
+
+        synchronized BaseFont get(Embedding mode) throws Exception {
+            BaseFont font = handles.get(mode);
+            if (font != null) {
+                return font;
+            }
+
+            long start = System.currentTimeMillis();
+            String fontFile = resolve().toAbsolutePath().toString();
+            // cached=false：iText 自带的缓存按文件名共享同一个实例，无法区分完整嵌入与子集嵌入
+            font = BaseFont.createFont(fontFile, BaseFont.IDENTITY_H,
+                    mode == Embedding.NOT_EMBEDDED ? BaseFont.NOT_EMBEDDED : BaseFont.EMBEDDED,
+                    false, null, null);
+            if (mode == Embedding.FULL) {
+                font.setSubset(false);
+            }
+            handles.put(mode, font);
+
+            long elapsed = System.currentTimeMillis() - start;
+            parseMillis += elapsed;
+            logger.info("字体解析完成: {} ({}), {} KB, 耗时 {} ms",
+                    name, mode, fileSize / 1024, elapsed);
+            return font;
+        }
+
+        synchronized List<Embedding> loadedModes() {
+            return new ArrayList<>(handles.keySet());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.blog.web.pdf;
+
+import com.itextpdf.text.pdf.BaseFont;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * 一份填充数据用到的字符集合，策略据此判断字体能否覆盖、估算子集大小
+ */
+public class GlyphCoverage {
+
+    /**
+     * WinAnsi 在 0x80-0x9F 区间额外映射的字符
+     */
+    private static final String WIN_ANSI_EXTRA = "\u20ac\u201a\u0192\u201e\u2026\u2020\u2021\u02c6\u2030\u0160\u2039\u0152\u017d"
+            + "\u2018\u2019\u201c\u201d\u2022\u2013\u2014\u02dc\u2122\u0161\u203a\u0153\u017e\u0178";
+    private static final Charset GBK = Charset.forName("GBK");
+
+    private final int[] codePoints;
+    private final int nonLatinCount;
+    private final boolean gbkEncodable;
+
+    private GlyphCoverage(int[] codePoints, int nonLatinCount, boolean gbkEncodable) {
+        this.codePoints = codePoints;
+        this.nonLatinCount = nonLatinCount;
+        this.gbkEncodable = gbkEncodable;
+    }
+
+    public static GlyphCoverage of(Collection<String> values) {
+        TreeSet<Integer> distinct = new TreeSet<>();
+        for (String value : values) {
+            if (value != null) {
+                value.codePoints().forEach(distinct::add);
+            }
+        }
+
+        CharsetEncoder gbk = GBK.newEncoder();
+        int nonLatin = 0;
+        boolean encodable = true;
+        int[] codePoints = new int[distinct.size()];
+        int i = 0;
+        for (int codePoint : distinct) {
+            codePoints[i++] = codePoint;
+            if (!isLatin(codePoint)) {
+                nonLatin++;
+            }
+            if (encodable && !Character.isWhitespace(codePoint)) {
+                encodable = Character.isBmpCodePoint(codePoint) && gbk.canEncode((char) codePoint);
+            }
+        }
+        return new GlyphCoverage(codePoints, nonLatin, encodable);
+    }
+
+    /**
+     * 文本能否完全用 WinAnsi 编码的标准字体显示
+     */
+    public static boolean isLatinText(String text) {
+        return text.codePoints().allMatch(GlyphCoverage::isLatin);
+    }
+
+    /**
+     * 字体包含文本中全部字符的字形（空白和控制字符不检查）
+     */
+    public static boolean isTextCoveredBy(String text, BaseFont font) {
+        return text.codePoints().allMatch(codePoint -> Character.isWhitespace(codePoint)
+                || Character.isISOControl(codePoint) || font.charExists(codePoint));
+    }
+
+    private static boolean isLatin(int codePoint) {
+        return codePoint < 0x80 || (codePoint >= 0xA0 && codePoint <= 0xFF) || WIN_ANSI_EXTRA.indexOf(codePoint) >= 0;
+    }
+
+    /**
+     * 字体包含全部字符的字形（空白和控制字符不检查）
+     */
+    public boolean coveredBy(BaseFont font) {
+        return coveredBy(font, false);
+    }
+
+    /**
+     * 字体包含全部非拉丁字符的字形（拉丁字符由标准字体显示）
+     */
+    public boolean nonLatinCoveredBy(BaseFont font) {
+        return coveredBy(font, true);
+    }
+
+    private boolean coveredBy(BaseFont font, boolean nonLatinOnly) {
+        for (int codePoint : codePoints) {
+            if (Character.isWhitespace(codePoint) || Character.isISOControl(codePoint)) {
+                continue;
+            }
+            if (nonLatinOnly && isLatin(codePoint)) {
+                continue;
+            }
+            if (!font.charExists(codePoint)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 用到的全部字符（升序，去重）
+     */
+    public int[] getCodePoints() {
+        return Arrays.copyOf(codePoints, codePoints.length);
+    }
+
+    public int getDistinctCount() {
+        return codePoints.length;
+    }
+
+    /**
+     * 标准拉丁字体无法显示的字符数（去重）
+     */
+    public int getNonLatinCount() {
+        return nonLatinCount;
+    }
+
+    public boolean isLatinOnly() {
+        return nonLatinCount == 0;
+    }
+
+    /**
+     * 全部字符都在 GBK 范围内（宋体CMap字体可以显示）
+     */
+    public boolean isGbkEncodable() {
+        return gbkEncodable;
+    }
+}
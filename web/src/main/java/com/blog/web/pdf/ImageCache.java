@@ -0,0 +1,297 @@
+package com.blog.web.pdf;
+
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.Image;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 签名/图片缓存
+ *
+ * 图片按 内容的SHA-256 + 目标区域 缓存：签名图片通常是每个请求写入的临时文件，路径每次都不同，
+ * 按内容缓存时同一签名的各个临时文件也能命中，读取和计算摘要的开销远小于解码和重新编码。
+ * 首次使用时解码，按目标区域和 pdf.image.dpi 缩小到实际需要的像素，
+ * 再在 PNG（Flate + 预测器）和 JPEG 中选较小的一种重新编码；之后的文档直接复用编码结果，不再解码。
+ * 每次返回缓存图片的副本，副本共享图片数据和编号，同一文档中多处使用时只写入一个图片对象，
+ * 批量合并时 PdfSmartCopy 也会把各文档中相同的图片合并为一个。
+ */
+@Component
+public class ImageCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageCache.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pdf.image.dpi:200}")
+    private int dpi;
+
+    @Value("${pdf.image.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    @Value("${pdf.image.cache-size:128}")
+    private int cacheSize;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private Counter loadCounter;
+
+    @PostConstruct
+    public void init() {
+        loadCounter = Counter.builder("pdf.image.loads")
+                .description("图片解码和重新编码次数")
+                .register(meterRegistry);
+        Gauge.builder("pdf.image.cached", entries, Map::size)
+                .description("已缓存的图片数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 适合放入 width x height（pt）区域的图片，已按比例缩放，调用方只需设置位置
+     */
+    public Image get(String path, float width, float height) throws IOException {
+        Path file = Paths.get(path).toAbsolutePath().normalize();
+        byte[] content = Files.readAllBytes(file);
+        String key = digest(content) + "|" + Math.round(width) + "x" + Math.round(height);
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            evictIfFull();
+            entry = entries.computeIfAbsent(key, k -> new Entry());
+        }
+        Image image;
+        try {
+            image = Image.getInstance(entry.get(file, content, width, height));
+        } catch (IOException e) {
+            entries.remove(key, entry);
+            throw e;
+        }
+        image.scaleToFit(width, height);
+        return image;
+    }
+
+    private void evictIfFull() {
+        while (entries.size() >= cacheSize) {
+            String eldest = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<String, Entry> item : entries.entrySet()) {
+                if (item.getValue().lastAccess < eldestAccess) {
+                    eldest = item.getKey();
+                    eldestAccess = item.getValue().lastAccess;
+                }
+            }
+            if (eldest == null || entries.remove(eldest) == null) {
+                return;
+            }
+        }
+    }
+
+    private Image load(Path file, byte[] original, float width, float height) throws IOException {
+        long start = System.currentTimeMillis();
+        loadCounter.increment();
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(original));
+        if (source == null) {
+            // ImageIO 不支持的格式（如 JBIG2、CCITT TIFF），交给 iText 原样处理
+            return toPdfImage(original);
+        }
+
+        int maxWidth = Math.max(1, (int) Math.ceil(width / 72f * dpi));
+        int maxHeight = Math.max(1, (int) Math.ceil(height / 72f * dpi));
+        double scale = Math.min(1.0, Math.min((double) maxWidth / source.getWidth(),
+                (double) maxHeight / source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = resize(source, targetWidth, targetHeight);
+        boolean transparent = isTransparent(target);
+        target = normalize(target, transparent);
+
+        // 没有缩小时原文件也参与比较，避免对已经很小的图片重复有损压缩
+        byte[] best = scale < 1.0 ? null : original;
+        String format = "original";
+        byte[] png = encode(target, "png");
+        if (best == null || png.length < best.length) {
+            best = png;
+            format = "png";
+        }
+        if (!transparent) {
+            byte[] jpeg = encodeJpeg(target);
+            if (jpeg.length < best.length) {
+                best = jpeg;
+                format = "jpeg";
+            }
+        }
+
+        logger.info("图片已缓存: {}, {}x{} -> {}x{}, {} KB -> {} KB ({}), 耗时 {} ms", file,
+                source.getWidth(), source.getHeight(), targetWidth, targetHeight,
+                original.length / 1024, best.length / 1024, format, System.currentTimeMillis() - start);
+        return toPdfImage(best);
+    }
+
+    private static String digest(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Image toPdfImage(byte[] bytes) throws IOException {
+        try {
+            return Image.getInstance(bytes);
+        } catch (BadElementException e) {
+            throw new IOException("图片格式错误: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 逐级减半缩小，每一步都用双线性插值，避免一次缩小过多产生锯齿
+     */
+    static BufferedImage resize(BufferedImage source, int targetWidth, int targetHeight) {
+        BufferedImage current = source;
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (width == targetWidth && height == targetHeight) {
+            return source;
+        }
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, width, height, null);
+            g.dispose();
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static boolean isTransparent(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return false;
+        }
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) >>> 24) != 0xFF) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 不透明的图片去掉 alpha 通道；全部是灰度时转为单通道，数据量减为三分之一
+     */
+    private static BufferedImage normalize(BufferedImage image, boolean transparent) {
+        if (transparent) {
+            return image;
+        }
+        boolean gray = true;
+        for (int y = 0; y < image.getHeight() && gray; y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int rgb = image.getRGB(x, y);
+                int r = (rgb >> 16) & 0xFF;
+                if (r != ((rgb >> 8) & 0xFF) || r != (rgb & 0xFF)) {
+                    gray = false;
+                    break;
+                }
+            }
+        }
+        int type = gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB;
+        if (image.getType() == type) {
+            return image;
+        }
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        if (gray) {
+            // 直接写入灰度值；drawImage 会按线性灰度空间换算，颜色会变浅
+            WritableRaster raster = converted.getRaster();
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    raster.setSample(x, y, 0, image.getRGB(x, y) & 0xFF);
+                }
+            }
+        } else {
+            Graphics2D g = converted.createGraphics();
+            g.drawImage(image, 0, 0, null);
+            g.dispose();
+        }
+        return converted;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("不支持的图片编码: " + format);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 缓存项，首次访问时加载；加载在项内加锁，同一图片并发请求只处理一次
+     */
+    private final class Entry {
+        private volatile Image image;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        Image get(Path file, byte[] content, float width, float height) throws IOException {
+            lastAccess = System.currentTimeMillis();
+            Image current = image;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (image == null) {
+                    image = load(file, content, width, height);
+                }
+                return image;
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.blog.web.pdf;
+
+import com.blog.web.util.PdfBatchReader;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量PDF任务：一个模板，多行数据
+ *
+ * nextOffset 是已按顺序写入结果的行数（含起始偏移），任务失败或取消后从这里续跑不会重复也不会遗漏。
+ * 续跑任务的结果只包含续跑部分，之前的部分在 resumedFrom 指向的任务中，与续跑任务一起保留。
+ */
+public class PdfBatch {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    /**
+     * 结果形式：每行一个文件的ZIP，或合并为一个PDF
+     */
+    public enum Output {
+        ZIP, MERGED
+    }
+
+    private final String id;
+    private final Long ownerId;
+    private final String template;
+    private final Path templatePath;
+    private final PdfBatchReader.Format format;
+    private final Output output;
+    private final String strategy;
+    private final long startOffset;
+    private final String resumedFrom;
+    private final int maxRowErrors;
+    private final long submittedAt;
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<Map<String, Object>> rowErrors = new ArrayList<>();
+
+    private Path inputFile;
+    private Path resultFile;
+    private Status status = Status.QUEUED;
+    private long startedAt;
+    private long finishedAt;
+    private String error;
+    private volatile long nextOffset;
+    private volatile boolean cancelRequested;
+    private volatile long expiresAt = Long.MAX_VALUE;
+
+    PdfBatch(String id, Long ownerId, String template, Path templatePath, PdfBatchReader.Format format,
+             Output output, String strategy, long startOffset, String resumedFrom, int maxRowErrors, Path inputFile) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.template = template;
+        this.templatePath = templatePath;
+        this.format = format;
+        this.output = output;
+        this.strategy = strategy;
+        this.startOffset = startOffset;
+        this.resumedFrom = resumedFrom;
+        this.maxRowErrors = maxRowErrors;
+        this.inputFile = inputFile;
+        this.nextOffset = startOffset;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    synchronized boolean start(Path resultFile) {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        this.resultFile = resultFile;
+        status = Status.RUNNING;
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    synchronized void finish(Status status, String error) {
+        this.status = status;
+        this.error = error;
+        finishedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 排队中的直接取消；执行中的在当前这批数据写完后停止
+     */
+    synchronized boolean cancel() {
+        if (status == Status.QUEUED) {
+            status = Status.CANCELLED;
+            finishedAt = System.currentTimeMillis();
+            return true;
+        }
+        if (status == Status.RUNNING) {
+            cancelRequested = true;
+        }
+        return false;
+    }
+
+    void recordSuccess() {
+        succeeded.incrementAndGet();
+    }
+
+    synchronized void recordFailure(long row, String message) {
+        failed.incrementAndGet();
+        if (rowErrors.size() < maxRowErrors) {
+            Map<String, Object> rowError = new LinkedHashMap<>();
+            rowError.put("row", row);
+            rowError.put("error", message);
+            rowErrors.add(rowError);
+        }
+    }
+
+    void advanceTo(long offset) {
+        nextOffset = offset;
+    }
+
+    /**
+     * 转移输入文件的所有权（续跑时交给新任务）
+     */
+    synchronized Path takeInputFile() {
+        Path file = inputFile;
+        inputFile = null;
+        return file;
+    }
+
+    synchronized Path getInputFile() {
+        return inputFile;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    synchronized boolean isFinished() {
+        return status != Status.QUEUED && status != Status.RUNNING;
+    }
+
+    void expireAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    Path getTemplatePath() {
+        return templatePath;
+    }
+
+    public String getId() { return id; }
+    public Long getOwnerId() { return ownerId; }
+    public String getTemplate() { return template; }
+    public PdfBatchReader.Format getFormat() { return format; }
+    public Output getOutput() { return output; }
+    public String getStrategy() { return strategy; }
+    public long getStartOffset() { return startOffset; }
+    public String getResumedFrom() { return resumedFrom; }
+    public long getSubmittedAt() { return submittedAt; }
+    public long getSucceeded() { return succeeded.get(); }
+    public long getFailed() { return failed.get(); }
+    public long getNextOffset() { return nextOffset; }
+    public synchronized List<Map<String, Object>> getRowErrors() { return new ArrayList<>(rowErrors); }
+    public synchronized Path getResultFile() { return resultFile; }
+    public synchronized Status getStatus() { return status; }
+    public synchronized long getStartedAt() { return startedAt; }
+    public synchronized long getFinishedAt() { return finishedAt; }
+    public synchronized String getError() { return error; }
+}
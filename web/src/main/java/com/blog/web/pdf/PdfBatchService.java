@@ -0,0 +1,498 @@
+package com.blog.web.pdf;
+
+import com.blog.web.util.PdfBatchReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfSmartCopy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 批量PDF生成
+ *
+ * 上传的数据先落盘，再由协调线程按批读取；每批在专用的 ForkJoinPool 中并行生成，
+ * 模板和字体通过 TemplateCache / FontRegistry 在所有工作线程间共享。
+ * 生成结果按行号顺序写入ZIP（每行一个文件）或经 PdfSmartCopy 合并为一个PDF（相同的资源只保留一份），
+ * 每批写完后更新进度和续跑偏移，失败或取消后可以从该偏移继续；
+ * 失败或取消时已生成的文档仍写成完整的ZIP/PDF保留下来，续跑任务只生成之后的行。
+ */
+@Service
+public class PdfBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfBatchService.class);
+
+    @Autowired
+    private PdfGenerationService pdfGenerationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pdf.batch.threads:0}")
+    private int threads;
+
+    @Value("${pdf.batch.chunk-size:256}")
+    private int chunkSize;
+
+    @Value("${pdf.batch.max-queued:10}")
+    private int maxQueued;
+
+    @Value("${pdf.batch.dir:output/pdf/batches}")
+    private String batchDir;
+
+    @Value("${pdf.batch.result-ttl-minutes:1440}")
+    private long resultTtlMinutes;
+
+    @Value("${pdf.batch.max-row-errors:1000}")
+    private int maxRowErrors;
+
+    @Value("${pdf.batch.max-input-bytes:104857600}")
+    private long maxInputBytes;
+
+    private final Map<String, PdfBatch> batches = new ConcurrentHashMap<>();
+
+    private ForkJoinPool renderPool;
+    private ThreadPoolExecutor coordinator;
+    private Path batchPath;
+
+    private Counter succeededCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() throws IOException {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        renderPool = new ForkJoinPool(parallelism);
+
+        // 同一时间只执行一个批量任务，其余排队
+        AtomicInteger threadIndex = new AtomicInteger();
+        coordinator = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-batch-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        batchPath = Paths.get(batchDir);
+        Files.createDirectories(batchPath);
+
+        succeededCounter = Counter.builder("pdf.batch.documents").tag("result", "succeeded")
+                .description("批量任务生成的文档数").register(meterRegistry);
+        failedCounter = Counter.builder("pdf.batch.documents").tag("result", "failed")
+                .description("批量任务生成的文档数").register(meterRegistry);
+        Gauge.builder("pdf.batch.queued", coordinator, e -> e.getQueue().size())
+                .description("排队中的批量任务数")
+                .register(meterRegistry);
+
+        logger.info("批量PDF生成初始化完成: 并行度 {}, 每批 {} 行", parallelism, chunkSize);
+    }
+
+    /**
+     * 提交批量任务：先把数据写入本地文件，再排队执行
+     *
+     * @param offset 跳过的行数（断点续跑）
+     * @throws RejectedExecutionException 排队的批量任务已达上限
+     * @throws InputTooLargeException 数据超过 pdf.batch.max-input-bytes
+     */
+    public PdfBatch submit(Long ownerId, String template, Path templatePath, PdfBatchReader.Format format,
+                           InputStream input, PdfBatch.Output output, String strategy, long offset) throws IOException {
+        if (coordinator.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("批量PDF任务排队已满，请稍后重试");
+        }
+        String id = UUID.randomUUID().toString();
+        Path inputFile = batchPath.resolve(id + ".input");
+        try {
+            copyLimited(input, inputFile);
+        } catch (IOException e) {
+            Files.deleteIfExists(inputFile);
+            throw e;
+        }
+
+        PdfBatch batch = new PdfBatch(id, ownerId, template, templatePath, format, output, strategy,
+                offset, null, maxRowErrors, inputFile);
+        enqueue(batch);
+        return batch;
+    }
+
+    public long getMaxInputBytes() {
+        return maxInputBytes;
+    }
+
+    /**
+     * 边读边计数，超过上限立即停止，避免上传数据占满磁盘
+     */
+    private void copyLimited(InputStream input, Path target) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                total += read;
+                if (total > maxInputBytes) {
+                    throw new InputTooLargeException(maxInputBytes);
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * 从失败或取消的任务的续跑偏移开始，用同一份数据创建新任务
+     *
+     * 新任务的结果只包含续跑部分；原任务的部分结果保留到新任务过期为止。
+     */
+    public PdfBatch resume(String id, Long ownerId) {
+        PdfBatch previous = batches.get(id);
+        if (previous == null) {
+            throw new IllegalArgumentException("批量任务不存在或已过期");
+        }
+        if (previous.getStatus() != PdfBatch.Status.FAILED && previous.getStatus() != PdfBatch.Status.CANCELLED) {
+            throw new IllegalArgumentException("只能续跑失败或已取消的任务，当前状态: " + previous.getStatus());
+        }
+        if (coordinator.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("批量PDF任务排队已满，请稍后重试");
+        }
+        Path inputFile = previous.takeInputFile();
+        if (inputFile == null || !Files.isRegularFile(inputFile)) {
+            throw new IllegalArgumentException("任务数据已被清理或已在续跑");
+        }
+
+        PdfBatch batch = new PdfBatch(UUID.randomUUID().toString(), ownerId, previous.getTemplate(),
+                previous.getTemplatePath(), previous.getFormat(), previous.getOutput(), previous.getStrategy(),
+                previous.getNextOffset(), previous.getId(), maxRowErrors, inputFile);
+        retainPredecessors(batch, Long.MAX_VALUE);
+        enqueue(batch);
+        return batch;
+    }
+
+    public Optional<PdfBatch> getBatch(String id) {
+        return Optional.ofNullable(batches.get(id));
+    }
+
+    public boolean cancel(String id) {
+        PdfBatch batch = batches.get(id);
+        if (batch == null) {
+            return false;
+        }
+        if (batch.cancel()) {
+            batch.expireAt(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(resultTtlMinutes));
+        }
+        return true;
+    }
+
+    /**
+     * 清理过期的任务、数据和结果文件
+     */
+    @Scheduled(fixedDelayString = "${pdf.batch.sweep-interval-ms:300000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (PdfBatch batch : batches.values()) {
+            if (batch.isFinished() && batch.isExpired(now) && batches.remove(batch.getId(), batch)) {
+                deleteQuietly(batch.takeInputFile());
+                deleteQuietly(batch.getResultFile());
+                logger.info("清理过期批量PDF任务: {}", batch.getId());
+            }
+        }
+    }
+
+    /**
+     * 续跑链上之前的任务与最后一个任务同时过期，各段结果都能下载到
+     */
+    private void retainPredecessors(PdfBatch batch, long expiresAt) {
+        String previousId = batch.getResumedFrom();
+        while (previousId != null) {
+            PdfBatch previous = batches.get(previousId);
+            if (previous == null) {
+                return;
+            }
+            previous.expireAt(expiresAt);
+            previousId = previous.getResumedFrom();
+        }
+    }
+
+    private void enqueue(PdfBatch batch) {
+        batches.put(batch.getId(), batch);
+        try {
+            coordinator.execute(() -> execute(batch));
+        } catch (RejectedExecutionException e) {
+            batches.remove(batch.getId());
+            deleteQuietly(batch.takeInputFile());
+            throw new RejectedExecutionException("批量PDF任务排队已满，请稍后重试");
+        }
+    }
+
+    private void execute(PdfBatch batch) {
+        String extension = batch.getOutput() == PdfBatch.Output.ZIP ? ".zip" : ".pdf";
+        Path resultFile = batchPath.resolve(batch.getId() + extension);
+        if (!batch.start(resultFile)) {
+            return;
+        }
+        logger.info("批量PDF任务开始: {}, 模板 {}, 起始行 {}", batch.getId(), batch.getTemplate(), batch.getStartOffset());
+
+        PdfBatch.Status status = PdfBatch.Status.SUCCEEDED;
+        String error = null;
+        boolean complete = false;
+        try (InputStream in = Files.newInputStream(batch.getInputFile());
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(resultFile), 256 * 1024)) {
+            PdfBatchReader reader = new PdfBatchReader(in, batch.getFormat(), objectMapper);
+            reader.skip(batch.getStartOffset());
+            BatchWriter writer = batch.getOutput() == PdfBatch.Output.ZIP ? new ZipWriter(out) : new MergedWriter(out);
+
+            try {
+                long lastLog = System.currentTimeMillis();
+                List<PdfBatchReader.Row> chunk;
+                while (!(chunk = readChunk(reader)).isEmpty()) {
+                    if (batch.isCancelRequested()) {
+                        status = PdfBatch.Status.CANCELLED;
+                        break;
+                    }
+                    List<PdfBatchReader.Row> rows = chunk;
+                    List<Rendered> rendered = renderPool.submit(() -> rows.parallelStream()
+                            .map(row -> render(batch, row))
+                            .collect(Collectors.toList()))
+                            .get();
+
+                    for (Rendered document : rendered) {
+                        if (document.bytes != null) {
+                            writer.add(document.row, document.bytes);
+                            batch.recordSuccess();
+                            succeededCounter.increment();
+                        } else {
+                            batch.recordFailure(document.row, document.error);
+                            failedCounter.increment();
+                        }
+                    }
+                    batch.advanceTo(chunk.get(chunk.size() - 1).getIndex() + 1);
+
+                    if (System.currentTimeMillis() - lastLog > 10000) {
+                        lastLog = System.currentTimeMillis();
+                        logger.info("批量PDF任务进度: {}, 已完成 {} 行, 失败 {} 行", batch.getId(),
+                                batch.getNextOffset(), batch.getFailed());
+                    }
+                }
+            } catch (Exception e) {
+                // nextOffset 之前的行都已写入，把结果写完整保留下来，续跑任务从 nextOffset 继续
+                complete = finishQuietly(writer, batch);
+                throw e;
+            }
+            writer.finish(batch.getRowErrors());
+            complete = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = PdfBatch.Status.FAILED;
+            error = "任务被中断";
+        } catch (Exception e) {
+            if (batch.isCancelRequested()) {
+                status = PdfBatch.Status.CANCELLED;
+            } else {
+                status = PdfBatch.Status.FAILED;
+                error = e.getMessage();
+                logger.error("批量PDF任务失败: {}, 续跑偏移 {}, {}", batch.getId(), batch.getNextOffset(), e.getMessage());
+            }
+        }
+
+        // 成功后数据不再需要；结果没能写完整（如写入本身出错）时删除，续跑任务从 nextOffset 继续
+        if (status == PdfBatch.Status.SUCCEEDED) {
+            deleteQuietly(batch.takeInputFile());
+        }
+        if (!complete) {
+            deleteQuietly(resultFile);
+        }
+        batch.finish(status, error);
+        long expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(resultTtlMinutes);
+        batch.expireAt(expiresAt);
+        retainPredecessors(batch, expiresAt);
+        logger.info("批量PDF任务结束: {}, 状态 {}, 成功 {} 行, 失败 {} 行, 耗时 {} ms", batch.getId(), status,
+                batch.getSucceeded(), batch.getFailed(), batch.getFinishedAt() - batch.getStartedAt());
+    }
+
+    private List<PdfBatchReader.Row> readChunk(PdfBatchReader reader) throws IOException {
+        List<PdfBatchReader.Row> chunk = new ArrayList<>(chunkSize);
+        PdfBatchReader.Row row;
+        while (chunk.size() < chunkSize && (row = reader.next()) != null) {
+            chunk.add(row);
+        }
+        return chunk;
+    }
+
+    private Rendered render(PdfBatch batch, PdfBatchReader.Row row) {
+        if (row.getData() == null) {
+            return new Rendered(row.getIndex(), null, row.getError());
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+            pdfGenerationService.generate(new PdfRequest(batch.getTemplatePath().toString(), row.getData())
+                    .strategy(batch.getStrategy()), out);
+            return new Rendered(row.getIndex(), out.toByteArray(), null);
+        } catch (Exception e) {
+            return new Rendered(row.getIndex(), null, e.getMessage());
+        }
+    }
+
+    private boolean finishQuietly(BatchWriter writer, PdfBatch batch) {
+        try {
+            writer.finish(batch.getRowErrors());
+            return true;
+        } catch (Exception e) {
+            logger.warn("批量PDF任务部分结果写入失败: {}, {}", batch.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("删除批量任务文件失败: {}, {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        renderPool.shutdown();
+    }
+
+    private static final class Rendered {
+        private final long row;
+        private final byte[] bytes;
+        private final String error;
+
+        Rendered(long row, byte[] bytes, String error) {
+            this.row = row;
+            this.bytes = bytes;
+            this.error = error;
+        }
+    }
+
+    private interface BatchWriter {
+        void add(long row, byte[] pdf) throws IOException, DocumentException;
+
+        void finish(List<Map<String, Object>> rowErrors) throws IOException;
+    }
+
+    /**
+     * 每行一个PDF；PDF本身已压缩，ZIP条目直接存储不再压缩。失败的行写入 errors.ndjson
+     */
+    private final class ZipWriter implements BatchWriter {
+        private final ZipOutputStream zip;
+
+        ZipWriter(OutputStream out) {
+            this.zip = new ZipOutputStream(out);
+        }
+
+        @Override
+        public void add(long row, byte[] pdf) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(pdf);
+            ZipEntry entry = new ZipEntry(String.format("row-%08d.pdf", row));
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(pdf.length);
+            entry.setCompressedSize(pdf.length);
+            entry.setCrc(crc.getValue());
+            zip.putNextEntry(entry);
+            zip.write(pdf);
+            zip.closeEntry();
+        }
+
+        @Override
+        public void finish(List<Map<String, Object>> rowErrors) throws IOException {
+            if (!rowErrors.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("errors.ndjson"));
+                for (Map<String, Object> rowError : rowErrors) {
+                    zip.write(objectMapper.writeValueAsBytes(rowError));
+                    zip.write('\n');
+                }
+                zip.closeEntry();
+            }
+            zip.finish();
+        }
+    }
+
+    /**
+     * 合并为一个PDF，PdfSmartCopy 对内容相同的流（模板背景、图片等）只保留一份
+     */
+    private static final class MergedWriter implements BatchWriter {
+        private final Document document = new Document();
+        private final PdfSmartCopy copy;
+        private int count;
+
+        MergedWriter(OutputStream out) throws DocumentException {
+            this.copy = new PdfSmartCopy(document, out);
+            copy.setCloseStream(false);
+            copy.setFullCompression();
+            document.open();
+        }
+
+        @Override
+        public void add(long row, byte[] pdf) throws IOException, DocumentException {
+            PdfReader reader = new PdfReader(pdf);
+            try {
+                copy.addDocument(reader);
+                copy.freeReader(reader);
+            } finally {
+                reader.close();
+            }
+            count++;
+        }
+
+        @Override
+        public void finish(List<Map<String, Object>> rowErrors) throws IOException {
+            if (count == 0) {
+                throw new IOException("没有成功生成的文档");
+            }
+            document.close();
+        }
+    }
+
+    /**
+     * 上传的数据超过大小上限
+     */
+    public static class InputTooLargeException extends IOException {
+        public InputTooLargeException(long maxBytes) {
+            super("批量数据超过上限: " + maxBytes + " 字节");
+        }
+    }
+}
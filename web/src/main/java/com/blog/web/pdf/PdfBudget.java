@@ -0,0 +1,30 @@
+package com.blog.web.pdf;
+
+/**
+ * 单个文档的大小/耗时预算，null 表示不限制
+ */
+public class PdfBudget {
+
+    private final Long maxBytes;
+    private final Long maxLatencyMs;
+
+    public PdfBudget(Long maxBytes, Long maxLatencyMs) {
+        this.maxBytes = maxBytes;
+        this.maxLatencyMs = maxLatencyMs;
+    }
+
+    public static PdfBudget maxBytes(long maxBytes) {
+        return new PdfBudget(maxBytes, null);
+    }
+
+    public boolean allowsBytes(long bytes) {
+        return maxBytes == null || bytes <= maxBytes;
+    }
+
+    public boolean allowsLatency(double latencyMs) {
+        return maxLatencyMs == null || latencyMs <= maxLatencyMs;
+    }
+
+    public Long getMaxBytes() { return maxBytes; }
+    public Long getMaxLatencyMs() { return maxLatencyMs; }
+}
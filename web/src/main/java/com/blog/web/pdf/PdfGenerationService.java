@@ -0,0 +1,278 @@
+package com.blog.web.pdf;
+
+import com.blog.web.config.PdfConfig;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.pdf.AcroFields;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfStamper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 统一的PDF生成服务
+ *
+ * 模板来自 {@link TemplateCache}，字体来自 {@link FontRegistry}，具体的字体取舍由 {@link PdfStrategy} 决定。
+ * 未指定策略时，在能完整显示数据字符、估算大小和历史耗时都满足预算的策略中选择可移植性最高的，
+ * 可移植性相同时选估算更小的；没有策略满足预算时退回估算最小的策略。
+ * 每个策略的耗时和输出大小记录在 pdf.generation.duration / pdf.generation.size 指标中。
+ */
+@Service
+public class PdfGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfGenerationService.class);
+
+    /**
+     * 耗时滑动平均中新样本的权重
+     */
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    @Autowired
+    private TemplateCache templateCache;
+
+    @Autowired
+    private ImageCache imageCache;
+
+    @Autowired
+    private PdfConfig pdfConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private List<PdfStrategy> strategies;
+
+    @Value("${pdf.generation.default-max-bytes:2097152}")
+    private long defaultMaxBytes;
+
+    @Value("${pdf.generation.fallback-strategy:subset}")
+    private String fallbackStrategy;
+
+    private final Map<String, PdfStrategy> strategiesByName = new LinkedHashMap<>();
+
+    /**
+     * 策略名称 -> 生成耗时的指数滑动平均（毫秒）
+     */
+    private final Map<String, Double> averageLatency = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (PdfStrategy strategy : strategies) {
+            if (strategiesByName.putIfAbsent(strategy.getName(), strategy) != null) {
+                throw new IllegalStateException("PDF策略名称重复: " + strategy.getName());
+            }
+        }
+        logger.info("PDF生成策略: {}", strategiesByName.keySet());
+    }
+
+    /**
+     * 生成PDF写入输出流，输出流由调用方关闭
+     */
+    public PdfResult generate(PdfRequest request, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        PdfTemplate template = templateCache.get(request.getTemplatePath());
+        GlyphCoverage coverage = GlyphCoverage.of(request.getData().values());
+        PdfStrategy strategy = request.getStrategy() != null
+                ? getStrategy(request.getStrategy())
+                : select(template, coverage, request.getBudget());
+
+        CountingOutputStream counting = new CountingOutputStream(out);
+        int fieldCount;
+        PdfReader reader = template.openReader();
+        try {
+            PdfStamper stamper = new PdfStamper(reader, counting);
+            stamper.getWriter().setCloseStream(false);
+            stamper.setFullCompression();
+
+            fieldCount = drawFields(stamper, template, request.getData(), strategy);
+            if (request.getSignatureImagePath() != null && !request.getSignatureImagePath().isEmpty()) {
+                addSignature(stamper, template, request.getSignatureField(), request.getSignatureImagePath());
+            }
+            finishForm(stamper, reader, template, request.getData());
+            stamper.close();
+        } catch (DocumentException e) {
+            throw new IOException("PDF生成失败: " + e.getMessage(), e);
+        } finally {
+            reader.close();
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        record(strategy, elapsedNanos, counting.getCount());
+        return new PdfResult(strategy.getName(), counting.getCount(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), fieldCount);
+    }
+
+    /**
+     * 生成PDF写入文件
+     */
+    public PdfResult generate(PdfRequest request, Path output) throws IOException {
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 64 * 1024)) {
+            return generate(request, out);
+        }
+    }
+
+    /**
+     * 按覆盖范围和预算选择策略
+     */
+    public PdfStrategy select(PdfTemplate template, GlyphCoverage coverage, PdfBudget budget) {
+        PdfBudget effective = budget != null ? budget : PdfBudget.maxBytes(defaultMaxBytes);
+
+        PdfStrategy best = null;
+        long bestBytes = 0;
+        PdfStrategy smallest = null;
+        long smallestBytes = Long.MAX_VALUE;
+        for (PdfStrategy strategy : strategiesByName.values()) {
+            if (!supports(strategy, coverage)) {
+                continue;
+            }
+            long estimate = strategy.estimateBytes(template, coverage);
+            if (estimate < smallestBytes) {
+                smallest = strategy;
+                smallestBytes = estimate;
+            }
+            if (!effective.allowsBytes(estimate)
+                    || !effective.allowsLatency(averageLatency.getOrDefault(strategy.getName(), 0.0))) {
+                continue;
+            }
+            if (best == null || strategy.getPortability() > best.getPortability()
+                    || (strategy.getPortability() == best.getPortability() && estimate < bestBytes)) {
+                best = strategy;
+                bestBytes = estimate;
+            }
+        }
+
+        if (best != null) {
+            return best;
+        }
+        if (smallest != null) {
+            logger.debug("没有策略满足预算，使用估算最小的策略: {} ({} KB)", smallest.getName(), smallestBytes / 1024);
+            return smallest;
+        }
+        logger.warn("没有字体能完整显示数据中的字符，使用策略: {}", fallbackStrategy);
+        return getStrategy(fallbackStrategy);
+    }
+
+    public PdfStrategy getStrategy(String name) {
+        PdfStrategy strategy = strategiesByName.get(name);
+        if (strategy == null) {
+            throw new IllegalArgumentException("PDF策略不存在: " + name);
+        }
+        return strategy;
+    }
+
+    public List<String> getStrategyNames() {
+        return new ArrayList<>(strategiesByName.keySet());
+    }
+
+    private boolean supports(PdfStrategy strategy, GlyphCoverage coverage) {
+        try {
+            return strategy.supports(coverage);
+        } catch (Exception e) {
+            // 字体文件缺失等情况，视为该策略不可用
+            logger.debug("PDF策略不可用: {}, {}", strategy.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private int drawFields(PdfStamper stamper, PdfTemplate template, Map<String, String> data, PdfStrategy strategy) {
+        int fieldCount = 0;
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            String value = entry.getValue();
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            List<FieldLayout> widgets = template.getFieldWidgets(entry.getKey());
+            if (widgets.isEmpty()) {
+                logger.debug("模板中没有字段: {}", entry.getKey());
+                continue;
+            }
+            BaseFont font = strategy.fontFor(value);
+            for (FieldLayout field : widgets) {
+                PdfContentByte canvas = stamper.getOverContent(field.getPage());
+                canvas.beginText();
+                canvas.setFontAndSize(font, field.fontSizeOr(pdfConfig.getDefaultFontSize()));
+                canvas.showTextAligned(field.getAlignment(), value, field.textX(), field.textY(), 0);
+                canvas.endText();
+            }
+            fieldCount++;
+        }
+        return fieldCount;
+    }
+
+    private void addSignature(PdfStamper stamper, PdfTemplate template, String fieldName, String imagePath)
+            throws IOException, DocumentException {
+        FieldLayout field = template.getField(fieldName);
+        if (field == null) {
+            logger.warn("未找到签名图片字段: {}", fieldName);
+            return;
+        }
+        if (!new File(imagePath).exists()) {
+            logger.warn("签名图片不存在，跳过: {}", imagePath);
+            return;
+        }
+        Image image = imageCache.get(imagePath, field.getWidth(), field.getHeight());
+        image.setAbsolutePosition(field.getLeft(), field.getBottom());
+        stamper.getOverContent(field.getPage()).addImage(image);
+    }
+
+    /**
+     * 表单不可编辑：模板字段都是空白时直接移除字段，否则清空已填字段后展平
+     */
+    private void finishForm(PdfStamper stamper, PdfReader reader, PdfTemplate template, Map<String, String> data)
+            throws IOException, DocumentException {
+        if (!template.hasPrefilledFields()) {
+            reader.removeFields();
+            return;
+        }
+        AcroFields form = stamper.getAcroFields();
+        for (String key : data.keySet()) {
+            if (template.getField(key) != null) {
+                form.setField(key, "");
+            }
+        }
+        stamper.setFormFlattening(true);
+    }
+
+    private void record(PdfStrategy strategy, long elapsedNanos, long bytes) {
+        Timer.builder("pdf.generation.duration")
+                .description("PDF生成耗时")
+                .tag("strategy", strategy.getName())
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("pdf.generation.size")
+                .description("PDF输出大小")
+                .baseUnit("bytes")
+                .tag("strategy", strategy.getName())
+                .register(meterRegistry)
+                .record(bytes);
+
+        double elapsedMs = elapsedNanos / 1_000_000.0;
+        averageLatency.merge(strategy.getName(), elapsedMs,
+                (old, sample) -> old * (1 - LATENCY_WEIGHT) + sample * LATENCY_WEIGHT);
+    }
+}
@@ -0,0 +1,123 @@
+package com.blog.web.pdf;
+
+import java.nio.file.Path;
+
+/**
+ * 异步PDF任务
+ * 状态变更都在对象锁内完成，取消与开始执行之间不会竞争出错
+ */
+public class PdfJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final Long ownerId;
+    private final String template;
+    private final int priority;
+    private final long sequence;
+    private final PdfRequest request;
+    private final long submittedAt;
+
+    private Status status = Status.QUEUED;
+    private long startedAt;
+    private long finishedAt;
+    private String strategy;
+    private long bytes;
+    private String error;
+    private Path resultFile;
+    private volatile boolean cancelRequested;
+    private volatile long expiresAt = Long.MAX_VALUE;
+
+    PdfJob(String id, Long ownerId, String template, int priority, long sequence, PdfRequest request) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.template = template;
+        this.priority = priority;
+        this.sequence = sequence;
+        this.request = request;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 开始执行，已取消的任务返回 false
+     */
+    synchronized boolean start() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        status = Status.RUNNING;
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    synchronized void succeed(Path file, PdfResult result) {
+        status = Status.SUCCEEDED;
+        resultFile = file;
+        strategy = result.getStrategy();
+        bytes = result.getBytes();
+        finishedAt = System.currentTimeMillis();
+    }
+
+    synchronized void fail(String message) {
+        status = cancelRequested ? Status.CANCELLED : Status.FAILED;
+        error = cancelRequested ? null : message;
+        finishedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 排队中的任务直接取消；执行中的任务标记取消，在下一次写出时中止
+     *
+     * @return 任务原本在排队中
+     */
+    synchronized boolean cancel() {
+        if (status == Status.QUEUED) {
+            status = Status.CANCELLED;
+            finishedAt = System.currentTimeMillis();
+            return true;
+        }
+        if (status == Status.RUNNING) {
+            cancelRequested = true;
+        }
+        return false;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    synchronized boolean isFinished() {
+        return status != Status.QUEUED && status != Status.RUNNING;
+    }
+
+    void expireAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    PdfRequest getRequest() {
+        return request;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    public String getId() { return id; }
+    public Long getOwnerId() { return ownerId; }
+    public String getTemplate() { return template; }
+    public int getPriority() { return priority; }
+    public long getSubmittedAt() { return submittedAt; }
+    public synchronized Status getStatus() { return status; }
+    public synchronized long getStartedAt() { return startedAt; }
+    public synchronized long getFinishedAt() { return finishedAt; }
+    public synchronized String getStrategy() { return strategy; }
+    public synchronized long getBytes() { return bytes; }
+    public synchronized String getError() { return error; }
+    public synchronized Path getResultFile() { return resultFile; }
+    public long getExpiresAt() { return expiresAt; }
+}
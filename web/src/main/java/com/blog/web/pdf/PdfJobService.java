@@ -0,0 +1,311 @@
+package com.blog.web.pdf;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步PDF任务队列
+ *
+ * PDF生成是CPU和内存密集操作，放在与CPU核数相当的专用线程池中执行，不占用Tomcat请求线程。
+ * 排队任务按优先级（大的优先）、同优先级按提交顺序执行；排队数达到上限时直接拒绝。
+ * 结果写入本地目录，保留 pdf.jobs.result-ttl-minutes 分钟后连同任务记录一起清理。
+ */
+@Service
+public class PdfJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfJobService.class);
+
+    @Autowired
+    private PdfGenerationService pdfGenerationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pdf.jobs.threads:0}")
+    private int threads;
+
+    @Value("${pdf.jobs.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${pdf.jobs.result-dir:output/pdf/jobs}")
+    private String resultDir;
+
+    @Value("${pdf.jobs.result-ttl-minutes:60}")
+    private long resultTtlMinutes;
+
+    private final Map<String, PdfJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, JobTask> pendingTasks = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+    private Path resultPath;
+
+    private Timer waitTimer;
+    private Timer executionTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() throws IOException {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+
+        // 队列本身不限长度，排队数由 queued 计数控制
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-job-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        resultPath = Paths.get(resultDir);
+        Files.createDirectories(resultPath);
+        deleteOrphanResults();
+
+        waitTimer = Timer.builder("pdf.jobs.wait")
+                .description("PDF任务排队时间")
+                .register(meterRegistry);
+        executionTimer = Timer.builder("pdf.jobs.execution")
+                .description("PDF任务执行时间")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("pdf.jobs.rejected")
+                .description("队列已满被拒绝的PDF任务数")
+                .register(meterRegistry);
+        Gauge.builder("pdf.jobs.queue.depth", queued, AtomicInteger::get)
+                .description("排队中的PDF任务数")
+                .register(meterRegistry);
+        Gauge.builder("pdf.jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("执行中的PDF任务数")
+                .register(meterRegistry);
+
+        logger.info("PDF任务线程池初始化完成: 线程数 {}, 队列上限 {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * 提交任务
+     *
+     * @throws RejectedExecutionException 排队数已达上限
+     */
+    public PdfJob submit(Long ownerId, String template, PdfRequest request, int priority) {
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("PDF任务队列已满，请稍后重试");
+        }
+
+        PdfJob job = new PdfJob(UUID.randomUUID().toString(), ownerId, template, priority,
+                sequence.incrementAndGet(), request);
+        JobTask task = new JobTask(job);
+        jobs.put(job.getId(), job);
+        pendingTasks.put(job.getId(), task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // 应用关闭中
+            jobs.remove(job.getId());
+            pendingTasks.remove(job.getId());
+            queued.decrementAndGet();
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<PdfJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * 取消任务：排队中的立即取消，执行中的在下一次写出时中止
+     */
+    public boolean cancel(String id) {
+        PdfJob job = jobs.get(id);
+        if (job == null) {
+            return false;
+        }
+        if (job.cancel()) {
+            JobTask task = pendingTasks.remove(id);
+            if (task != null) {
+                executor.remove(task);
+            }
+            queued.decrementAndGet();
+            job.expireAt(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(resultTtlMinutes));
+            record(job);
+        }
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * 清理过期的任务记录和结果文件
+     */
+    @Scheduled(fixedDelayString = "${pdf.jobs.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (PdfJob job : jobs.values()) {
+            if (job.isFinished() && job.isExpired(now) && jobs.remove(job.getId(), job)) {
+                deleteQuietly(job.getResultFile());
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info("清理过期PDF任务 {} 个", removed);
+        }
+    }
+
+    private void execute(PdfJob job) {
+        pendingTasks.remove(job.getId());
+        if (!job.start()) {
+            // 排队时已取消
+            return;
+        }
+        queued.decrementAndGet();
+        waitTimer.record(job.getStartedAt() - job.getSubmittedAt(), TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        Path file = resultPath.resolve(job.getId() + ".pdf");
+        try {
+            PdfResult result;
+            try (OutputStream out = new CancellableOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024), job)) {
+                result = pdfGenerationService.generate(job.getRequest(), out);
+            }
+            job.succeed(file, result);
+        } catch (Exception e) {
+            deleteQuietly(file);
+            job.fail(e.getMessage());
+            if (job.getStatus() == PdfJob.Status.FAILED) {
+                logger.error("PDF任务失败: {}, 模板 {}, {}", job.getId(), job.getTemplate(), e.getMessage());
+            }
+        } finally {
+            executionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            job.expireAt(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(resultTtlMinutes));
+            record(job);
+        }
+    }
+
+    private void record(PdfJob job) {
+        Counter.builder("pdf.jobs.completed")
+                .description("结束的PDF任务数")
+                .tag("status", job.getStatus().name())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 任务记录只在内存中，重启前留下的结果文件已无法访问，超过保留时间后删除
+     */
+    private void deleteOrphanResults() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(resultTtlMinutes);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(resultPath, "*.pdf")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("清理PDF任务结果目录失败: {}", e.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("删除PDF任务结果失败: {}, {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 按优先级排序的任务
+     */
+    private final class JobTask implements Runnable, Comparable<JobTask> {
+        private final PdfJob job;
+
+        JobTask(PdfJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            execute(job);
+        }
+
+        @Override
+        public int compareTo(JobTask other) {
+            int result = Integer.compare(other.job.getPriority(), job.getPriority());
+            return result != 0 ? result : Long.compare(job.getSequence(), other.job.getSequence());
+        }
+    }
+
+    /**
+     * 任务被取消后下一次写出即中止
+     */
+    private static final class CancellableOutputStream extends FilterOutputStream {
+        private final PdfJob job;
+
+        CancellableOutputStream(OutputStream out, PdfJob job) {
+            super(out);
+            this.job = job;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkCancelled();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkCancelled();
+            out.write(b, off, len);
+        }
+
+        private void checkCancelled() throws IOException {
+            if (job.isCancelRequested()) {
+                throw new IOException("任务已取消");
+            }
+        }
+    }
+}
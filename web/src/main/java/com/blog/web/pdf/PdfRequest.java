@@ -0,0 +1,63 @@
+package com.blog.web.pdf;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次PDF生成请求
+ */
+public class PdfRequest {
+
+    /**
+     * 模板中签名图片字段的默认名称
+     */
+    public static final String DEFAULT_SIGNATURE_FIELD = "signatureImag";
+
+    private final String templatePath;
+    private final Map<String, String> data;
+    private String signatureImagePath;
+    private String signatureField = DEFAULT_SIGNATURE_FIELD;
+    private PdfBudget budget;
+    private String strategy;
+
+    public PdfRequest(String templatePath, Map<String, String> data) {
+        this.templatePath = templatePath;
+        this.data = data != null ? data : new LinkedHashMap<>();
+    }
+
+    /**
+     * 签名图片
+     */
+    public PdfRequest signature(String imagePath) {
+        this.signatureImagePath = imagePath;
+        return this;
+    }
+
+    public PdfRequest signatureField(String field) {
+        this.signatureField = field;
+        return this;
+    }
+
+    /**
+     * 大小/耗时预算，未指定时使用 pdf.generation.default-max-bytes
+     */
+    public PdfRequest budget(PdfBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * 指定策略，跳过自动选择
+     */
+    public PdfRequest strategy(String strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    public String getTemplatePath() { return templatePath; }
+    public Map<String, String> getData() { return data; }
+    public String getSignatureImagePath() { return signatureImagePath; }
+    public String getSignatureField() { return signatureField; }
+    public PdfBudget getBudget() { return budget; }
+    public String getStrategy() { return strategy; }
+}
@@ -0,0 +1,24 @@
+package com.blog.web.pdf;
+
+/**
+ * PDF生成结果
+ */
+public class PdfResult {
+
+    private final String strategy;
+    private final long bytes;
+    private final long elapsedMs;
+    private final int fieldCount;
+
+    PdfResult(String strategy, long bytes, long elapsedMs, int fieldCount) {
+        this.strategy = strategy;
+        this.bytes = bytes;
+        this.elapsedMs = elapsedMs;
+        this.fieldCount = fieldCount;
+    }
+
+    public String getStrategy() { return strategy; }
+    public long getBytes() { return bytes; }
+    public long getElapsedMs() { return elapsedMs; }
+    public int getFieldCount() { return fieldCount; }
+}
@@ -0,0 +1,37 @@
+package com.blog.web.pdf;
+
+import com.itextpdf.text.pdf.BaseFont;
+
+/**
+ * PDF字体策略（SPI）
+ *
+ * 每个策略代表一种字体/文件大小的取舍，注册为Spring Bean后由 {@link PdfGenerationService} 按请求选择。
+ * 实现必须线程安全：同一个策略实例同时服务多个文档。
+ */
+public interface PdfStrategy {
+
+    /**
+     * 策略名称，用于指定策略和指标标签
+     */
+    String getName();
+
+    /**
+     * 可移植性，越大越不依赖阅读器环境；满足预算的策略中优先选择可移植性高的
+     */
+    int getPortability();
+
+    /**
+     * 能否完整显示这些字符
+     */
+    boolean supports(GlyphCoverage coverage);
+
+    /**
+     * 估算输出大小（字节）
+     */
+    long estimateBytes(PdfTemplate template, GlyphCoverage coverage);
+
+    /**
+     * 绘制某个字段值使用的字体
+     */
+    BaseFont fontFor(String text);
+}
@@ -0,0 +1,82 @@
+package com.blog.web.pdf;
+
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已解析的PDF模板（不可变，可跨线程共享）
+ *
+ * 持有模板文件内容和字段布局表；每个文档通过 {@link #openReader()} 得到独立的 PdfReader，
+ * 底层字节只有一份，按需读取对象，不再重新读盘和查找表单字段。
+ */
+public class PdfTemplate {
+
+    private final Path path;
+    private final long lastModified;
+    private final long size;
+    private final String version;
+    private final byte[] content;
+    private final int pageCount;
+    private final Map<String, List<FieldLayout>> fields;
+    private final boolean prefilled;
+
+    PdfTemplate(Path path, long lastModified, String version, byte[] content, int pageCount,
+                Map<String, List<FieldLayout>> fields, boolean prefilled) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.size = content.length;
+        this.version = version;
+        this.content = content;
+        this.pageCount = pageCount;
+        this.fields = Collections.unmodifiableMap(fields);
+        this.prefilled = prefilled;
+    }
+
+    /**
+     * 为一个文档打开模板（部分读取模式，共享底层字节）
+     */
+    public PdfReader openReader() throws IOException {
+        return new PdfReader(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(content)), null);
+    }
+
+    /**
+     * 字段的第一个控件位置，字段不存在时返回 null
+     */
+    public FieldLayout getField(String name) {
+        List<FieldLayout> layouts = fields.get(name);
+        return layouts == null || layouts.isEmpty() ? null : layouts.get(0);
+    }
+
+    /**
+     * 字段的全部控件位置（同名字段可能出现在多页）
+     */
+    public List<FieldLayout> getFieldWidgets(String name) {
+        List<FieldLayout> layouts = fields.get(name);
+        return layouts != null ? layouts : List.of();
+    }
+
+    /**
+     * 模板中有字段自带非空值。没有时填充后可以直接移除表单字段，不需要 AcroFields 展平
+     */
+    public boolean hasPrefilledFields() {
+        return prefilled;
+    }
+
+    boolean isSameFile(long lastModified, long size) {
+        return this.lastModified == lastModified && this.size == size;
+    }
+
+    public Path getPath() { return path; }
+    public long getLastModified() { return lastModified; }
+    public long getSize() { return size; }
+    public String getVersion() { return version; }
+    public int getPageCount() { return pageCount; }
+    public Map<String, List<FieldLayout>> getFields() { return fields; }
+}
@@ -0,0 +1,252 @@
+package com.blog.web.pdf;
+
+import com.blog.web.config.PdfConfig;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.pdf.AcroFields;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfNumber;
+import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfString;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * PDF模板缓存
+ *
+ * 按文件路径缓存模板内容和字段布局表，文件的修改时间或大小变化时自动重新加载。
+ * 同一路径最多每 pdf.template-check-interval-ms 检查一次文件状态；
+ * 缓存条目超过 pdf.template-cache-size 时淘汰最久未使用的模板。
+ */
+@Component
+public class TemplateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateCache.class);
+
+    /**
+     * 按名称引用的模板只能是模板目录下的 {name}.pdf
+     */
+    private static final Pattern TEMPLATE_NAME = Pattern.compile("[A-Za-z0-9_-]{1,100}");
+
+    @Autowired
+    private PdfConfig pdfConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    private Counter missCounter;
+    private Counter reloadCounter;
+
+    @PostConstruct
+    public void init() {
+        missCounter = Counter.builder("pdf.template.loads").tag("reason", "miss")
+                .description("模板加载次数").register(meterRegistry);
+        reloadCounter = Counter.builder("pdf.template.loads").tag("reason", "reload")
+                .description("模板加载次数").register(meterRegistry);
+        Gauge.builder("pdf.template.cached", entries, Map::size)
+                .description("已缓存的模板数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 读取模板，文件未变化时直接返回缓存
+     */
+    public PdfTemplate get(String path) throws IOException {
+        return get(Paths.get(path));
+    }
+
+    public PdfTemplate get(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            evictIfFull();
+            entry = entries.computeIfAbsent(key, k -> new Entry());
+        }
+        return entry.get(key);
+    }
+
+    /**
+     * 模板名称对应的文件（pdf.template-dir 下的 {name}.pdf）
+     */
+    public Path resolveTemplate(String name) {
+        if (name == null || !TEMPLATE_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("模板名称不合法: " + name);
+        }
+        Path path = Paths.get(pdfConfig.getTemplateDir(), name + ".pdf");
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("模板不存在: " + name);
+        }
+        return path;
+    }
+
+    /**
+     * 主动移除模板（例如模板被替换为优化后的版本）
+     */
+    public void invalidate(String path) {
+        entries.remove(Paths.get(path).toAbsolutePath().normalize());
+    }
+
+    private void evictIfFull() {
+        int maxEntries = pdfConfig.getTemplateCacheSize();
+        while (entries.size() >= maxEntries) {
+            Path eldest = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<Path, Entry> item : entries.entrySet()) {
+                if (item.getValue().lastAccess < eldestAccess) {
+                    eldest = item.getKey();
+                    eldestAccess = item.getValue().lastAccess;
+                }
+            }
+            if (eldest == null || entries.remove(eldest) == null) {
+                return;
+            }
+            logger.debug("模板缓存已满，淘汰: {}", eldest);
+        }
+    }
+
+    private PdfTemplate load(Path path, long lastModified) throws IOException {
+        long start = System.currentTimeMillis();
+        byte[] content = Files.readAllBytes(path);
+
+        PdfReader reader = new PdfReader(content);
+        try {
+            Map<String, List<FieldLayout>> fields = new LinkedHashMap<>();
+            boolean prefilled = false;
+            AcroFields form = reader.getAcroFields();
+            for (Map.Entry<String, AcroFields.Item> field : form.getFields().entrySet()) {
+                String name = field.getKey();
+                List<AcroFields.FieldPosition> positions = form.getFieldPositions(name);
+                if (positions == null || positions.isEmpty()) {
+                    continue;
+                }
+                PdfDictionary merged = field.getValue().getMerged(0);
+                float fontSize = fontSize(merged);
+                int alignment = alignment(merged);
+
+                List<FieldLayout> widgets = new ArrayList<>(positions.size());
+                for (AcroFields.FieldPosition position : positions) {
+                    widgets.add(new FieldLayout(name, position.page,
+                            position.position.getLeft(), position.position.getBottom(),
+                            position.position.getRight(), position.position.getTop(),
+                            fontSize, alignment));
+                }
+                fields.put(name, List.copyOf(widgets));
+                prefilled |= hasValue(merged);
+            }
+
+            PdfTemplate template = new PdfTemplate(path, lastModified, digest(content), content,
+                    reader.getNumberOfPages(), fields, prefilled);
+            logger.info("PDF模板已加载: {}, {} 页, {} 个字段, {} KB, 耗时 {} ms", path,
+                    template.getPageCount(), fields.size(), content.length / 1024,
+                    System.currentTimeMillis() - start);
+            return template;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * 字段 DA 中声明的字号，0 表示自动
+     */
+    private static float fontSize(PdfDictionary merged) {
+        PdfString da = merged.getAsString(PdfName.DA);
+        if (da == null) {
+            return 0;
+        }
+        Object[] elements = AcroFields.splitDAelements(da.toUnicodeString());
+        Object size = elements[AcroFields.DA_SIZE];
+        return size instanceof Float ? (Float) size : 0;
+    }
+
+    private static int alignment(PdfDictionary merged) {
+        PdfNumber q = merged.getAsNumber(PdfName.Q);
+        if (q == null) {
+            return Element.ALIGN_LEFT;
+        }
+        switch (q.intValue()) {
+            case 1:
+                return Element.ALIGN_CENTER;
+            case 2:
+                return Element.ALIGN_RIGHT;
+            default:
+                return Element.ALIGN_LEFT;
+        }
+    }
+
+    private static boolean hasValue(PdfDictionary merged) {
+        PdfObject value = PdfReader.getPdfObject(merged.get(PdfName.V));
+        if (value == null) {
+            return false;
+        }
+        return !(value instanceof PdfString) || !((PdfString) value).toUnicodeString().isEmpty();
+    }
+
+    private static String digest(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class Entry {
+        private volatile PdfTemplate template;
+        private volatile long checkedAt;
+        private volatile long lastAccess;
+
+        PdfTemplate get(Path path) throws IOException {
+            long now = System.currentTimeMillis();
+            lastAccess = now;
+            PdfTemplate current = template;
+            if (current != null && now - checkedAt < pdfConfig.getTemplateCheckIntervalMs()) {
+                return current;
+            }
+            synchronized (this) {
+                current = template;
+                if (current != null && now - checkedAt < pdfConfig.getTemplateCheckIntervalMs()) {
+                    return current;
+                }
+                if (!Files.isRegularFile(path)) {
+                    entries.remove(path, this);
+                    throw new IOException("PDF模板不存在: " + path);
+                }
+                long lastModified = Files.getLastModifiedTime(path).toMillis();
+                long size = Files.size(path);
+                if (current == null || !current.isSameFile(lastModified, size)) {
+                    (current == null ? missCounter : reloadCounter).increment();
+                    if (current != null) {
+                        logger.info("PDF模板已变更，重新加载: {}", path);
+                    }
+                    current = load(path, lastModified);
+                    template = current;
+                }
+                checkedAt = now;
+                return current;
+            }
+        }
+    }
+}
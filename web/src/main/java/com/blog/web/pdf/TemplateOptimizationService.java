@@ -0,0 +1,50 @@
+package com.blog.web.pdf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 优化模板库中的模板
+ *
+ * 优化结果直接替换模板目录中的文件并清除模板缓存，之后所有文档都基于优化后的模板生成；
+ * 第一次优化前把原模板备份为 {name}.orig.pdf，需要回退时手动复制回去即可。
+ */
+@Service
+public class TemplateOptimizationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateOptimizationService.class);
+
+    @Autowired
+    private TemplateCache templateCache;
+
+    @Value("${pdf.optimizer.image-dpi:150}")
+    private int imageDpi;
+
+    @Value("${pdf.optimizer.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    /**
+     * 优化模板目录中的 {name}.pdf
+     *
+     * @throws IllegalArgumentException 模板名称不合法或模板不存在
+     */
+    public synchronized TemplateOptimizer.Report optimize(String name) throws IOException {
+        Path path = templateCache.resolveTemplate(name);
+        Path backup = path.resolveSibling(name + ".orig.pdf");
+        if (!Files.exists(backup)) {
+            Files.copy(path, backup);
+        }
+
+        TemplateOptimizer.Report report = new TemplateOptimizer(imageDpi, jpegQuality).optimize(path, path);
+        templateCache.invalidate(path.toString());
+        logger.info("PDF模板已优化: {}, {}", name, report);
+        return report;
+    }
+}
@@ -0,0 +1,821 @@
+package com.blog.web.pdf;
+
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.PRIndirectReference;
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PRTokeniser;
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfContentParser;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfIndirectReference;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfNumber;
+import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfStamper;
+import com.itextpdf.text.pdf.PdfStream;
+import com.itextpdf.text.pdf.PdfString;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import com.itextpdf.text.pdf.parser.ImageRenderInfo;
+import com.itextpdf.text.pdf.parser.Matrix;
+import com.itextpdf.text.pdf.parser.PdfImageObject;
+import com.itextpdf.text.pdf.parser.PdfReaderContentParser;
+import com.itextpdf.text.pdf.parser.RenderListener;
+import com.itextpdf.text.pdf.parser.TextRenderInfo;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+/**
+ * PDF模板离线优化
+ *
+ * 模板只优化一次，之后生成的每个文档都直接继承节省下来的体积，不增加请求时的开销：
+ * 1. 图片按页面上实际显示的尺寸缩小到目标分辨率，在 JPEG 和 Flate（PNG Up 预测器）中取较小的重新编码
+ * 2. 未压缩或压缩级别较低的 Flate 流用最高级别重新压缩
+ * 3. 删除页面资源中内容流没有引用的字体、图片和图形状态
+ * 4. 合并内容完全相同的流，删除不再被引用的对象
+ * 5. 输出使用对象流和压缩的交叉引用表
+ * 输出会重新打开校验页数和表单字段，任何一步不确定是否安全时都保持原样。
+ * 嵌入字体的字形不做二次子集化（iText 不支持），只在字体完全未被使用时删除。
+ *
+ * 命令行：java -cp web/target/blog-web-1.0.0.jar -Dloader.main=com.blog.web.pdf.TemplateOptimizer org.springframework.boot.loader.launch.PropertiesLauncher 源.pdf [目标.pdf] [dpi] [jpeg质量]
+ * 不指定目标时原地替换，原文件保存为 源.orig.pdf；运行中的服务会在 pdf.template-check-interval-ms 内加载新模板。
+ */
+public class TemplateOptimizer {
+
+    private static final PdfName[] PRUNED_RESOURCES = {PdfName.XOBJECT, PdfName.FONT, PdfName.EXTGSTATE};
+
+    /**
+     * 显示分辨率超过目标的这个倍数才缩小，避免为很小的收益重新采样
+     */
+    private static final double DOWNSAMPLE_THRESHOLD = 1.2;
+
+    private final int imageDpi;
+    private final float jpegQuality;
+
+    public TemplateOptimizer(int imageDpi, float jpegQuality) {
+        this.imageDpi = imageDpi;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * 优化前后对比；applied 为 false 表示优化后没有变小，输出的是原内容
+     */
+    public static class Report {
+        private long sourceBytes;
+        private long optimizedBytes;
+        private int pages;
+        private int images;
+        private int imagesDownsampled;
+        private int imagesRecompressed;
+        private long imageBytesBefore;
+        private long imageBytesAfter;
+        private int streamsRecompressed;
+        private int resourcesRemoved;
+        private int duplicateStreams;
+        private int unusedObjects;
+        private boolean applied;
+        private long elapsedMs;
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("sourceBytes", sourceBytes);
+            map.put("optimizedBytes", optimizedBytes);
+            map.put("savedPercent", getSavedPercent());
+            map.put("pages", pages);
+            map.put("images", images);
+            map.put("imagesDownsampled", imagesDownsampled);
+            map.put("imagesRecompressed", imagesRecompressed);
+            map.put("imageBytesBefore", imageBytesBefore);
+            map.put("imageBytesAfter", imageBytesAfter);
+            map.put("streamsRecompressed", streamsRecompressed);
+            map.put("resourcesRemoved", resourcesRemoved);
+            map.put("duplicateStreams", duplicateStreams);
+            map.put("unusedObjects", unusedObjects);
+            map.put("applied", applied);
+            map.put("elapsedMs", elapsedMs);
+            return map;
+        }
+
+        public double getSavedPercent() {
+            return sourceBytes == 0 ? 0 : Math.round((sourceBytes - optimizedBytes) * 1000.0 / sourceBytes) / 10.0;
+        }
+
+        public long getSourceBytes() { return sourceBytes; }
+        public long getOptimizedBytes() { return optimizedBytes; }
+        public int getImagesDownsampled() { return imagesDownsampled; }
+        public int getImagesRecompressed() { return imagesRecompressed; }
+        public int getDuplicateStreams() { return duplicateStreams; }
+        public int getUnusedObjects() { return unusedObjects; }
+        public boolean isApplied() { return applied; }
+        public long getElapsedMs() { return elapsedMs; }
+
+        @Override
+        public String toString() {
+            return String.format("%d KB -> %d KB (节省 %.1f%%), 图片 %d 张（缩小 %d, 重新编码 %d, %d KB -> %d KB）, "
+                            + "重新压缩流 %d, 删除资源 %d, 合并重复流 %d, 删除无用对象 %d, 耗时 %d ms",
+                    sourceBytes / 1024, optimizedBytes / 1024, getSavedPercent(), images, imagesDownsampled,
+                    imagesRecompressed, imageBytesBefore / 1024, imageBytesAfter / 1024, streamsRecompressed,
+                    resourcesRemoved, duplicateStreams, unusedObjects, elapsedMs);
+        }
+    }
+
+    /**
+     * 优化模板并返回结果；优化后没有变小时 report.isApplied() 为 false，输出为原内容
+     */
+    public Report optimize(byte[] source, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        Report report = new Report();
+        report.sourceBytes = source.length;
+
+        PdfReader reader = new PdfReader(source);
+        if (reader.isEncrypted()) {
+            reader.close();
+            throw new IOException("加密的PDF不能优化");
+        }
+        report.pages = reader.getNumberOfPages();
+        Set<String> fieldNames = new HashSet<>(reader.getAcroFields().getFields().keySet());
+
+        Map<Integer, float[]> placements = collectImagePlacements(reader);
+        if (placements != null) {
+            // 注释外观中的图片显示尺寸无法从页面内容得到，不缩小
+            placements.keySet().removeAll(collectAppearanceImages(reader));
+        }
+        recompressImages(reader, placements, report);
+        recompressStreams(reader, report);
+        report.resourcesRemoved = pruneResources(reader);
+        report.duplicateStreams = mergeDuplicateStreams(reader);
+        report.unusedObjects = reader.removeUnusedObjects();
+
+        ByteArrayOutputStream optimized = new ByteArrayOutputStream(source.length);
+        try {
+            PdfStamper stamper = new PdfStamper(reader, optimized);
+            stamper.getWriter().setCompressionLevel(PdfStream.BEST_COMPRESSION);
+            stamper.setFullCompression();
+            stamper.close();
+        } catch (DocumentException e) {
+            throw new IOException("写出优化后的模板失败: " + e.getMessage(), e);
+        } finally {
+            reader.close();
+        }
+        verify(optimized.toByteArray(), report.pages, fieldNames);
+
+        report.applied = optimized.size() < source.length;
+        if (report.applied) {
+            optimized.writeTo(out);
+            report.optimizedBytes = optimized.size();
+        } else {
+            out.write(source);
+            report.optimizedBytes = source.length;
+        }
+        report.elapsedMs = System.currentTimeMillis() - start;
+        return report;
+    }
+
+    /**
+     * 优化文件，先写临时文件再原子替换，source 与 target 可以相同
+     */
+    public Report optimize(Path source, Path target) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Report report = optimize(Files.readAllBytes(source), out);
+
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "template-", ".tmp");
+        try {
+            Files.write(tmp, out.toByteArray());
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return report;
+    }
+
+    /**
+     * 每个图片对象在页面上显示的最大尺寸（pt），任何一页解析失败时返回 null（不缩小图片）
+     */
+    private Map<Integer, float[]> collectImagePlacements(PdfReader reader) {
+        Map<Integer, float[]> placements = new HashMap<>();
+        PdfReaderContentParser parser = new PdfReaderContentParser(reader);
+        try {
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                parser.processContent(page, new RenderListener() {
+                    @Override
+                    public void renderImage(ImageRenderInfo info) {
+                        PdfIndirectReference ref = info.getRef();
+                        if (ref == null) {
+                            return;
+                        }
+                        Matrix ctm = info.getImageCTM();
+                        float width = (float) Math.hypot(ctm.get(Matrix.I11), ctm.get(Matrix.I12));
+                        float height = (float) Math.hypot(ctm.get(Matrix.I21), ctm.get(Matrix.I22));
+                        placements.merge(ref.getNumber(), new float[]{width, height},
+                                (a, b) -> new float[]{Math.max(a[0], b[0]), Math.max(a[1], b[1])});
+                    }
+
+                    @Override
+                    public void beginTextBlock() {
+                    }
+
+                    @Override
+                    public void renderText(TextRenderInfo info) {
+                    }
+
+                    @Override
+                    public void endTextBlock() {
+                    }
+                });
+            }
+        } catch (Exception e) {
+            return null;
+        }
+        return placements;
+    }
+
+    /**
+     * 注释外观流（及其嵌套的表单XObject）引用的图片对象编号
+     */
+    private static Set<Integer> collectAppearanceImages(PdfReader reader) {
+        Set<Integer> images = new HashSet<>();
+        Set<PdfDictionary> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+            PdfArray annots = reader.getPageN(page).getAsArray(PdfName.ANNOTS);
+            if (annots == null) {
+                continue;
+            }
+            for (int i = 0; i < annots.size(); i++) {
+                PdfDictionary annot = annots.getAsDict(i);
+                PdfDictionary appearances = annot != null ? annot.getAsDict(PdfName.AP) : null;
+                if (appearances == null) {
+                    continue;
+                }
+                for (PdfName key : appearances.getKeys()) {
+                    PdfObject appearance = PdfReader.getPdfObject(appearances.get(key));
+                    if (appearance instanceof PRStream) {
+                        collectImages((PRStream) appearance, images, visited);
+                    } else if (appearance instanceof PdfDictionary) {
+                        // 按状态区分的外观（复选框等）
+                        for (PdfName state : ((PdfDictionary) appearance).getKeys()) {
+                            PdfObject stateAppearance = PdfReader.getPdfObject(((PdfDictionary) appearance).get(state));
+                            if (stateAppearance instanceof PRStream) {
+                                collectImages((PRStream) stateAppearance, images, visited);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return images;
+    }
+
+    private static void collectImages(PRStream form, Set<Integer> images, Set<PdfDictionary> visited) {
+        if (!visited.add(form)) {
+            return;
+        }
+        PdfDictionary resources = form.getAsDict(PdfName.RESOURCES);
+        PdfDictionary xObjects = resources != null ? resources.getAsDict(PdfName.XOBJECT) : null;
+        if (xObjects == null) {
+            return;
+        }
+        for (PdfName key : xObjects.getKeys()) {
+            PdfObject ref = xObjects.get(key);
+            PdfObject xObject = PdfReader.getPdfObject(ref);
+            if (!(xObject instanceof PRStream)) {
+                continue;
+            }
+            PdfName subtype = ((PRStream) xObject).getAsName(PdfName.SUBTYPE);
+            if (PdfName.IMAGE.equals(subtype) && ref instanceof PdfIndirectReference) {
+                images.add(((PdfIndirectReference) ref).getNumber());
+            } else if (PdfName.FORM.equals(subtype)) {
+                collectImages((PRStream) xObject, images, visited);
+            }
+        }
+    }
+
+    private void recompressImages(PdfReader reader, Map<Integer, float[]> placements, Report report) throws IOException {
+        for (int i = 1; i < reader.getXrefSize(); i++) {
+            PdfObject object = reader.getPdfObject(i);
+            if (!(object instanceof PRStream)) {
+                continue;
+            }
+            PRStream stream = (PRStream) object;
+            if (!PdfName.IMAGE.equals(stream.getAsName(PdfName.SUBTYPE))) {
+                continue;
+            }
+            report.images++;
+            byte[] raw = PdfReader.getStreamBytesRaw(stream);
+            report.imageBytesBefore += raw.length;
+
+            int components = recompressibleComponents(reader, stream);
+            BufferedImage image = components > 0 ? decode(stream) : null;
+            if (image == null) {
+                report.imageBytesAfter += raw.length;
+                continue;
+            }
+
+            float[] placement = placements != null ? placements.get(i) : null;
+            boolean downsample = false;
+            if (placement != null) {
+                int targetWidth = (int) Math.ceil(placement[0] / 72f * imageDpi);
+                int targetHeight = (int) Math.ceil(placement[1] / 72f * imageDpi);
+                double scale = Math.max((double) targetWidth / image.getWidth(), (double) targetHeight / image.getHeight());
+                if (scale * DOWNSAMPLE_THRESHOLD < 1.0) {
+                    image = ImageCache.resize(image, Math.max(1, (int) Math.round(image.getWidth() * scale)),
+                            Math.max(1, (int) Math.round(image.getHeight() * scale)));
+                    downsample = true;
+                }
+            }
+
+            // 已是JPEG又没有缩小时不再有损压缩一次
+            boolean wasJpeg = PdfName.DCTDECODE.equals(singleFilter(stream));
+            byte[] flate = encodeFlate(image, components);
+            byte[] jpeg = wasJpeg && !downsample ? null : encodeJpeg(image, components);
+            boolean useJpeg = jpeg != null && jpeg.length < flate.length;
+            byte[] best = useJpeg ? jpeg : flate;
+            if (best.length >= raw.length) {
+                report.imageBytesAfter += raw.length;
+                continue;
+            }
+
+            stream.setDataRaw(best);
+            stream.put(PdfName.WIDTH, new PdfNumber(image.getWidth()));
+            stream.put(PdfName.HEIGHT, new PdfNumber(image.getHeight()));
+            stream.put(PdfName.BITSPERCOMPONENT, new PdfNumber(8));
+            if (useJpeg) {
+                stream.put(PdfName.FILTER, PdfName.DCTDECODE);
+                stream.remove(PdfName.DECODEPARMS);
+            } else {
+                PdfDictionary parms = new PdfDictionary();
+                parms.put(PdfName.PREDICTOR, new PdfNumber(15));
+                parms.put(PdfName.COLORS, new PdfNumber(components));
+                parms.put(PdfName.BITSPERCOMPONENT, new PdfNumber(8));
+                parms.put(PdfName.COLUMNS, new PdfNumber(image.getWidth()));
+                stream.put(PdfName.FILTER, PdfName.FLATEDECODE);
+                stream.put(PdfName.DECODEPARMS, parms);
+            }
+            report.imageBytesAfter += best.length;
+            report.imagesRecompressed++;
+            if (downsample) {
+                report.imagesDownsampled++;
+            }
+        }
+    }
+
+    private static PdfObject singleFilter(PRStream stream) {
+        PdfObject filter = PdfReader.getPdfObject(stream.get(PdfName.FILTER));
+        if (filter instanceof PdfArray && ((PdfArray) filter).size() == 1) {
+            return ((PdfArray) filter).getPdfObject(0);
+        }
+        return filter;
+    }
+
+    /**
+     * 可以安全重新编码的图片返回颜色分量数（1 或 3），否则返回 0：
+     * 遮罩、带 Decode 数组或颜色键遮罩的、非 8 位以及索引色/CMYK/专色图片保持原样
+     */
+    private static int recompressibleComponents(PdfReader reader, PRStream stream) {
+        PdfObject imageMask = stream.get(PdfName.IMAGEMASK);
+        if ((imageMask != null && imageMask.toString().equals("true"))
+                || stream.get(PdfName.MASK) != null || stream.get(PdfName.DECODE) != null) {
+            return 0;
+        }
+        PdfNumber bits = stream.getAsNumber(PdfName.BITSPERCOMPONENT);
+        if (bits == null || bits.intValue() != 8) {
+            return 0;
+        }
+        PdfObject colorSpace = PdfReader.getPdfObject(stream.get(PdfName.COLORSPACE));
+        if (PdfName.DEVICERGB.equals(colorSpace)) {
+            return 3;
+        }
+        if (PdfName.DEVICEGRAY.equals(colorSpace)) {
+            return 1;
+        }
+        if (colorSpace instanceof PdfArray && ((PdfArray) colorSpace).size() == 2
+                && PdfName.ICCBASED.equals(((PdfArray) colorSpace).getAsName(0))) {
+            PdfObject profile = PdfReader.getPdfObject(((PdfArray) colorSpace).getPdfObject(1));
+            if (profile instanceof PdfDictionary) {
+                PdfNumber n = ((PdfDictionary) profile).getAsNumber(PdfName.N);
+                if (n != null && (n.intValue() == 1 || n.intValue() == 3)) {
+                    return n.intValue();
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 解码为 INT_RGB 图片，灰度图的三个通道相同；直接读取采样值，不经过颜色空间换算
+     */
+    private static BufferedImage decode(PRStream stream) {
+        BufferedImage decoded;
+        try {
+            decoded = new PdfImageObject(stream).getBufferedImage();
+        } catch (Exception e) {
+            return null;
+        }
+        if (decoded == null) {
+            return null;
+        }
+        Raster raster = decoded.getRaster();
+        int bands = raster.getNumBands();
+        if (bands != 1 && bands != 3) {
+            return null;
+        }
+        BufferedImage rgb = new BufferedImage(decoded.getWidth(), decoded.getHeight(), BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < decoded.getHeight(); y++) {
+            for (int x = 0; x < decoded.getWidth(); x++) {
+                if (bands == 1) {
+                    int v = raster.getSample(x, y, 0);
+                    rgb.setRGB(x, y, (v << 16) | (v << 8) | v);
+                } else {
+                    rgb.setRGB(x, y, decoded.getRGB(x, y) & 0xFFFFFF);
+                }
+            }
+        }
+        return rgb;
+    }
+
+    /**
+     * Flate 压缩，每行使用 PNG Up 预测（/Predictor 15）
+     */
+    private static byte[] encodeFlate(BufferedImage image, int components) {
+        int width = image.getWidth();
+        int rowBytes = width * components;
+        byte[] previous = new byte[rowBytes];
+        byte[] current = new byte[rowBytes];
+        ByteArrayOutputStream filtered = new ByteArrayOutputStream((rowBytes + 1) * image.getHeight());
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                if (components == 1) {
+                    current[x] = (byte) rgb;
+                } else {
+                    current[x * 3] = (byte) (rgb >> 16);
+                    current[x * 3 + 1] = (byte) (rgb >> 8);
+                    current[x * 3 + 2] = (byte) rgb;
+                }
+            }
+            filtered.write(2);
+            for (int b = 0; b < rowBytes; b++) {
+                filtered.write(current[b] - previous[b]);
+            }
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return deflate(filtered.toByteArray());
+    }
+
+    private byte[] encodeJpeg(BufferedImage image, int components) throws IOException {
+        BufferedImage source = image;
+        if (components == 1) {
+            source = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+            WritableRaster raster = source.getRaster();
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    raster.setSample(x, y, 0, image.getRGB(x, y) & 0xFF);
+                }
+            }
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(source, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 未压缩或只用 Flate 压缩（无预测器）的非图片流，用最高级别重新压缩
+     */
+    private static void recompressStreams(PdfReader reader, Report report) throws IOException {
+        for (int i = 1; i < reader.getXrefSize(); i++) {
+            PdfObject object = reader.getPdfObject(i);
+            if (!(object instanceof PRStream)) {
+                continue;
+            }
+            PRStream stream = (PRStream) object;
+            PdfObject filter = singleFilter(stream);
+            if (PdfName.IMAGE.equals(stream.getAsName(PdfName.SUBTYPE))
+                    || PdfName.METADATA.equals(stream.getAsName(PdfName.TYPE))
+                    || stream.get(PdfName.DECODEPARMS) != null
+                    || (filter != null && !PdfName.FLATEDECODE.equals(filter))) {
+                continue;
+            }
+            byte[] raw = PdfReader.getStreamBytesRaw(stream);
+            byte[] decoded = filter == null ? raw : PdfReader.getStreamBytes(stream);
+            byte[] compressed = deflate(decoded);
+            if (compressed.length < raw.length) {
+                stream.setDataRaw(compressed);
+                stream.put(PdfName.FILTER, PdfName.FLATEDECODE);
+                report.streamsRecompressed++;
+            }
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 删除页面（及其表单XObject）资源中内容流没有引用的 XObject/Font/ExtGState。
+     * 资源子字典按对象身份统计引用；也被注释外观、图案、Type3字体等未解析内容使用的子字典不做删除。
+     */
+    private static int pruneResources(PdfReader reader) throws IOException {
+        Map<PdfDictionary, Set<String>> used = new IdentityHashMap<>();
+        Set<PdfDictionary> unsafe = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<PdfDictionary> owners = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+            PdfDictionary pageDict = reader.getPageN(page);
+            owners.add(pageDict);
+            scanContent(reader.getPageContent(page), pageDict.getAsDict(PdfName.RESOURCES), used, unsafe, owners);
+        }
+
+        for (int i = 1; i < reader.getXrefSize(); i++) {
+            PdfObject object = reader.getPdfObject(i);
+            if (!(object instanceof PdfDictionary) || owners.contains(object)
+                    || PdfName.PAGES.equals(((PdfDictionary) object).getAsName(PdfName.TYPE))) {
+                continue;
+            }
+            markUnsafe(((PdfDictionary) object).getAsDict(PdfName.RESOURCES), unsafe);
+        }
+        PdfDictionary acroForm = reader.getCatalog().getAsDict(PdfName.ACROFORM);
+        if (acroForm != null) {
+            markUnsafe(acroForm.getAsDict(PdfName.DR), unsafe);
+        }
+
+        int removed = 0;
+        for (Map.Entry<PdfDictionary, Set<String>> entry : used.entrySet()) {
+            PdfDictionary subDict = entry.getKey();
+            if (unsafe.contains(subDict)) {
+                continue;
+            }
+            for (PdfName key : new ArrayList<>(subDict.getKeys())) {
+                if (!entry.getValue().contains(key.toString())) {
+                    subDict.remove(key);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static void scanContent(byte[] content, PdfDictionary resources, Map<PdfDictionary, Set<String>> used,
+                                    Set<PdfDictionary> unsafe, Set<PdfDictionary> owners) {
+        if (resources == null) {
+            return;
+        }
+        for (PdfName category : PRUNED_RESOURCES) {
+            PdfDictionary subDict = resources.getAsDict(category);
+            if (subDict != null) {
+                used.computeIfAbsent(subDict, k -> new HashSet<>());
+            }
+        }
+
+        ArrayList<PdfObject> operands = new ArrayList<>();
+        try {
+            PdfContentParser parser = new PdfContentParser(new PRTokeniser(
+                    new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(content))));
+            while (!parser.parse(operands).isEmpty()) {
+                String operator = operands.get(operands.size() - 1).toString();
+                if ("BI".equals(operator)) {
+                    // 内联图片的二进制数据无法可靠分词，放弃该资源字典
+                    markUnsafe(resources, unsafe);
+                    return;
+                }
+                if (operands.size() < 2 || !(operands.get(0) instanceof PdfName)) {
+                    continue;
+                }
+                PdfName name = (PdfName) operands.get(0);
+                if ("Do".equals(operator)) {
+                    use(resources, PdfName.XOBJECT, name, used);
+                    PdfDictionary xObjects = resources.getAsDict(PdfName.XOBJECT);
+                    PdfObject xObject = xObjects != null ? PdfReader.getPdfObject(xObjects.get(name)) : null;
+                    if (xObject instanceof PRStream && PdfName.FORM.equals(((PRStream) xObject).getAsName(PdfName.SUBTYPE))
+                            && owners.add((PRStream) xObject)) {
+                        PRStream form = (PRStream) xObject;
+                        PdfDictionary formResources = form.getAsDict(PdfName.RESOURCES);
+                        scanContent(PdfReader.getStreamBytes(form), formResources != null ? formResources : resources,
+                                used, unsafe, owners);
+                    }
+                } else if ("Tf".equals(operator)) {
+                    use(resources, PdfName.FONT, name, used);
+                } else if ("gs".equals(operator)) {
+                    use(resources, PdfName.EXTGSTATE, name, used);
+                }
+            }
+        } catch (Exception e) {
+            markUnsafe(resources, unsafe);
+        }
+    }
+
+    private static void use(PdfDictionary resources, PdfName category, PdfName name,
+                            Map<PdfDictionary, Set<String>> used) {
+        PdfDictionary subDict = resources.getAsDict(category);
+        if (subDict != null) {
+            used.computeIfAbsent(subDict, k -> new HashSet<>()).add(name.toString());
+        }
+    }
+
+    private static void markUnsafe(PdfDictionary resources, Set<PdfDictionary> unsafe) {
+        if (resources == null) {
+            return;
+        }
+        for (PdfName category : PRUNED_RESOURCES) {
+            PdfDictionary subDict = resources.getAsDict(category);
+            if (subDict != null) {
+                unsafe.add(subDict);
+            }
+        }
+    }
+
+    /**
+     * 字典（除 Length 外）和原始数据都相同的流只保留第一个，其余引用指向它
+     */
+    private static int mergeDuplicateStreams(PdfReader reader) throws IOException {
+        Map<String, Integer> firstByContent = new HashMap<>();
+        Map<Integer, Integer> replacements = new HashMap<>();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (int i = 1; i < reader.getXrefSize(); i++) {
+            PdfObject object = reader.getPdfObject(i);
+            if (!(object instanceof PRStream)) {
+                continue;
+            }
+            PRStream stream = (PRStream) object;
+            String key = canonical(stream) + "#" + Arrays.toString(digest.digest(PdfReader.getStreamBytesRaw(stream)));
+            Integer first = firstByContent.putIfAbsent(key, i);
+            if (first != null) {
+                replacements.put(i, first);
+            }
+        }
+        if (replacements.isEmpty()) {
+            return 0;
+        }
+
+        for (int i = 1; i < reader.getXrefSize(); i++) {
+            PdfObject object = reader.getPdfObject(i);
+            if (object != null && !replacements.containsKey(i)) {
+                replaceReferences(reader, object, replacements);
+            }
+        }
+        return replacements.size();
+    }
+
+    private static void replaceReferences(PdfReader reader, PdfObject object, Map<Integer, Integer> replacements) {
+        if (object instanceof PdfDictionary) {
+            PdfDictionary dict = (PdfDictionary) object;
+            for (PdfName key : new ArrayList<>(dict.getKeys())) {
+                PdfObject value = dict.get(key);
+                PdfObject replaced = replacement(reader, value, replacements);
+                if (replaced != null) {
+                    dict.put(key, replaced);
+                } else if (!value.isIndirect()) {
+                    replaceReferences(reader, value, replacements);
+                }
+            }
+        } else if (object instanceof PdfArray) {
+            PdfArray array = (PdfArray) object;
+            for (int i = 0; i < array.size(); i++) {
+                PdfObject value = array.getPdfObject(i);
+                PdfObject replaced = replacement(reader, value, replacements);
+                if (replaced != null) {
+                    array.set(i, replaced);
+                } else if (!value.isIndirect()) {
+                    replaceReferences(reader, value, replacements);
+                }
+            }
+        }
+    }
+
+    private static PdfObject replacement(PdfReader reader, PdfObject value, Map<Integer, Integer> replacements) {
+        if (value instanceof PRIndirectReference) {
+            Integer target = replacements.get(((PRIndirectReference) value).getNumber());
+            if (target != null) {
+                return new PRIndirectReference(reader, target);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 对象内容的规范文本，字典按键排序，流字典忽略 Length
+     */
+    private static String canonical(PdfObject object) {
+        if (object == null) {
+            return "null";
+        }
+        if (object instanceof PdfDictionary) {
+            PdfDictionary dict = (PdfDictionary) object;
+            TreeMap<String, String> entries = new TreeMap<>();
+            for (PdfName key : dict.getKeys()) {
+                if (!(object instanceof PdfStream && PdfName.LENGTH.equals(key))) {
+                    entries.put(key.toString(), canonical(dict.get(key)));
+                }
+            }
+            return "<<" + entries + ">>";
+        }
+        if (object instanceof PdfArray) {
+            StringBuilder builder = new StringBuilder("[");
+            for (PdfObject item : (PdfArray) object) {
+                builder.append(canonical(item)).append(' ');
+            }
+            return builder.append(']').toString();
+        }
+        if (object instanceof PdfString) {
+            return "(" + Arrays.toString(((PdfString) object).getBytes()) + ")";
+        }
+        return object.toString();
+    }
+
+    /**
+     * 优化结果必须能正常打开，页数和表单字段与原模板一致
+     */
+    private static void verify(byte[] optimized, int pages, Set<String> fieldNames) throws IOException {
+        PdfReader reader = new PdfReader(optimized);
+        try {
+            if (reader.getNumberOfPages() != pages) {
+                throw new IOException("优化后页数不一致: " + pages + " -> " + reader.getNumberOfPages());
+            }
+            if (!reader.getAcroFields().getFields().keySet().equals(fieldNames)) {
+                throw new IOException("优化后表单字段不一致");
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("用法: TemplateOptimizer <源.pdf> [目标.pdf] [dpi，默认150] [jpeg质量，默认0.8]");
+            return;
+        }
+        Path source = Paths.get(args[0]);
+        Path target = args.length > 1 ? Paths.get(args[1]) : source;
+        int dpi = args.length > 2 ? Integer.parseInt(args[2]) : 150;
+        float quality = args.length > 3 ? Float.parseFloat(args[3]) : 0.8f;
+
+        if (target.equals(source)) {
+            String name = source.getFileName().toString().replaceFirst("\\.pdf$", "");
+            Path backup = source.resolveSibling(name + ".orig.pdf");
+            if (!Files.exists(backup)) {
+                Files.copy(source, backup);
+                System.out.println("原模板已备份: " + backup);
+            }
+        }
+        Report report = new TemplateOptimizer(dpi, quality).optimize(source, target);
+        System.out.println((report.isApplied() ? "模板已优化: " : "没有可优化的空间，保持原样: ") + target);
+        System.out.println(report);
+    }
+}
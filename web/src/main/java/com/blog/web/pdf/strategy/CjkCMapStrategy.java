@@ -0,0 +1,52 @@
+package com.blog.web.pdf.strategy;
+
+import com.blog.web.pdf.FontRegistry;
+import com.blog.web.pdf.GlyphCoverage;
+import com.blog.web.pdf.PdfStrategy;
+import com.blog.web.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.BaseFont;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * CJK CMap 不嵌入：使用 itext-asian 的宋体CMap，文件最小，
+ * 显示依赖阅读器自带的中文字体，不同阅读器字形可能不同
+ */
+@Component
+public class CjkCMapStrategy implements PdfStrategy {
+
+    public static final String NAME = "cjk-cmap";
+
+    /**
+     * 字体字典和CMap引用的开销
+     */
+    private static final long FONT_OVERHEAD_BYTES = 2048;
+
+    @Autowired
+    private FontRegistry fontRegistry;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getPortability() {
+        return 1;
+    }
+
+    @Override
+    public boolean supports(GlyphCoverage coverage) {
+        return coverage.isGbkEncodable();
+    }
+
+    @Override
+    public long estimateBytes(PdfTemplate template, GlyphCoverage coverage) {
+        return template.getSize() + FONT_OVERHEAD_BYTES;
+    }
+
+    @Override
+    public BaseFont fontFor(String text) {
+        return fontRegistry.getCjkCMapFont();
+    }
+}
@@ -0,0 +1,46 @@
+package com.blog.web.pdf.strategy;
+
+import com.blog.web.pdf.FontRegistry;
+import com.blog.web.pdf.GlyphCoverage;
+import com.blog.web.pdf.PdfStrategy;
+import com.blog.web.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.BaseFont;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 完整嵌入字体：输出最大，下游可以继续编辑任意文字
+ */
+@Component
+public class FullEmbedStrategy implements PdfStrategy {
+
+    public static final String NAME = "full";
+
+    @Autowired
+    private FontRegistry fontRegistry;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getPortability() {
+        return 3;
+    }
+
+    @Override
+    public boolean supports(GlyphCoverage coverage) {
+        return coverage.coveredBy(fontRegistry.getFont(FontRegistry.Embedding.FULL));
+    }
+
+    @Override
+    public long estimateBytes(PdfTemplate template, GlyphCoverage coverage) {
+        return template.getSize() + fontRegistry.getFontFileSize(FontRegistry.DEFAULT_FONT);
+    }
+
+    @Override
+    public BaseFont fontFor(String text) {
+        return fontRegistry.getFont(FontRegistry.Embedding.FULL);
+    }
+}
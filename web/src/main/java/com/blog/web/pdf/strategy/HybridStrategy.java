@@ -0,0 +1,67 @@
+package com.blog.web.pdf.strategy;
+
+import com.blog.web.pdf.FontRegistry;
+import com.blog.web.pdf.GlyphCoverage;
+import com.blog.web.pdf.PdfStrategy;
+import com.blog.web.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.BaseFont;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 拉丁/中文混合：纯拉丁字段用标准字体 Helvetica（不嵌入），含中文的字段用子集嵌入字体，
+ * 数字、金额、日期等字段不再占用嵌入字形
+ */
+@Component
+public class HybridStrategy implements PdfStrategy {
+
+    public static final String NAME = "hybrid";
+
+    /**
+     * 只有拉丁字段时引用标准字体的开销
+     */
+    private static final long LATIN_OVERHEAD_BYTES = 1024;
+
+    @Autowired
+    private FontRegistry fontRegistry;
+
+    @Value("${pdf.generation.glyph-bytes:250}")
+    private long glyphBytes;
+
+    @Value("${pdf.generation.subset-overhead-bytes:8192}")
+    private long subsetOverheadBytes;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getPortability() {
+        return 2;
+    }
+
+    @Override
+    public boolean supports(GlyphCoverage coverage) {
+        return coverage.isLatinOnly()
+                || coverage.nonLatinCoveredBy(fontRegistry.getFont(FontRegistry.Embedding.SUBSET));
+    }
+
+    @Override
+    public long estimateBytes(PdfTemplate template, GlyphCoverage coverage) {
+        if (coverage.isLatinOnly()) {
+            return template.getSize() + LATIN_OVERHEAD_BYTES;
+        }
+        // 含中文的字段里的拉丁字符也会进入子集，按全部字符估算偏保守
+        return template.getSize() + LATIN_OVERHEAD_BYTES + subsetOverheadBytes
+                + coverage.getNonLatinCount() * glyphBytes;
+    }
+
+    @Override
+    public BaseFont fontFor(String text) {
+        return GlyphCoverage.isLatinText(text)
+                ? fontRegistry.getStandardLatinFont()
+                : fontRegistry.subsetFontFor(text);
+    }
+}
@@ -0,0 +1,54 @@
+package com.blog.web.pdf.strategy;
+
+import com.blog.web.pdf.FontRegistry;
+import com.blog.web.pdf.GlyphCoverage;
+import com.blog.web.pdf.PdfStrategy;
+import com.blog.web.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.BaseFont;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 子集嵌入：只嵌入文档用到的字形，任何阅读器显示一致
+ * 常用字优先从预生成的常用字子集中取字形，子集之外的字段才使用完整字体
+ */
+@Component
+public class SubsetEmbedStrategy implements PdfStrategy {
+
+    public static final String NAME = "subset";
+
+    @Autowired
+    private FontRegistry fontRegistry;
+
+    @Value("${pdf.generation.glyph-bytes:250}")
+    private long glyphBytes;
+
+    @Value("${pdf.generation.subset-overhead-bytes:8192}")
+    private long subsetOverheadBytes;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getPortability() {
+        return 2;
+    }
+
+    @Override
+    public boolean supports(GlyphCoverage coverage) {
+        return coverage.coveredBy(fontRegistry.getFont(FontRegistry.Embedding.SUBSET));
+    }
+
+    @Override
+    public long estimateBytes(PdfTemplate template, GlyphCoverage coverage) {
+        return template.getSize() + subsetOverheadBytes + coverage.getDistinctCount() * glyphBytes;
+    }
+
+    @Override
+    public BaseFont fontFor(String text) {
+        return fontRegistry.subsetFontFor(text);
+    }
+}
@@ -1,20 +1,19 @@
 package com.blog.web.security;
 
-import com.blog.api.model.User;
 import com.blog.core.service.UserService;
 import com.blog.persistence.entity.UserEntity;
 import com.blog.persistence.repository.JpaUserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserService userService;
@@ -22,26 +21,31 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private JpaUserRepository jpaUserRepository;
     
+    @Autowired
+    private UserPrincipalStore userPrincipalStore;
+    
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Optional<UserEntity> userEntityOpt = jpaUserRepository.findByUsernameWithRolesAndPermissions(username);
         if (userEntityOpt.isEmpty()) {
             throw new UsernameNotFoundException("用户不存在: " + username);
         }
         
-        UserEntity userEntity = userEntityOpt.get();
-        return UserPrincipal.create(userEntity);
+        // 登录时总是读取最新的密码哈希，同时刷新缓存
+        return userPrincipalStore.cache(userEntityOpt.get());
     }
     
-    @Transactional
     public UserDetails loadUserById(Long id) {
-        Optional<UserEntity> userEntityOpt = jpaUserRepository.findById(id);
-        if (userEntityOpt.isEmpty()) {
-            throw new UsernameNotFoundException("用户不存在: " + id);
-        }
-        
-        UserEntity userEntity = userEntityOpt.get();
-        return UserPrincipal.create(userEntity);
+        return userPrincipalStore.getPrincipal(id);
+    }
+    
+    /**
+     * 登录成功后密码编码需要升级时由 DaoAuthenticationProvider 调用
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserPrincipal userPrincipal = (UserPrincipal) user;
+        userService.updatePasswordHash(userPrincipal.getId(), newPassword);
+        return userPrincipal.withPassword(newPassword);
     }
-}
\ No newline at end of file
+}
@@ -2,19 +2,27 @@ package com.blog.web.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtTokenProvider {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
     
+    /**
+     * 毫秒精度的签发时间（标准 iat 只精确到秒），用于判断令牌是否早于用户的吊销时间
+     */
+    public static final String ISSUED_AT_MS_CLAIM = "iatMs";
+    
     @Value("${jwt.secret}")
     private String jwtSecret;
     
@@ -32,12 +40,15 @@ public class JwtTokenProvider {
      * 生成访问令牌
      */
     public String generateToken(UserPrincipal userPrincipal) {
-        Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationMs);
+        long now = System.currentTimeMillis();
+        Date expiryDate = new Date(now + jwtExpirationMs);
         
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userPrincipal.getUsername())
-                .setIssuedAt(new Date())
+                .setIssuedAt(new Date(now))
                 .setExpiration(expiryDate)
+                .claim(ISSUED_AT_MS_CLAIM, now)
                 .claim("userId", userPrincipal.getId())
                 .claim("authorities", userPrincipal.getAuthorities())
                 .signWith(getSigningKey(), SignatureAlgorithm.HS512)
@@ -48,18 +59,43 @@ public class JwtTokenProvider {
      * 生成刷新令牌
      */
     public String generateRefreshToken(UserPrincipal userPrincipal) {
-        Date expiryDate = new Date(System.currentTimeMillis() + jwtRefreshExpirationMs);
+        long now = System.currentTimeMillis();
+        Date expiryDate = new Date(now + jwtRefreshExpirationMs);
         
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userPrincipal.getUsername())
-                .setIssuedAt(new Date())
+                .setIssuedAt(new Date(now))
                 .setExpiration(expiryDate)
+                .claim(ISSUED_AT_MS_CLAIM, now)
                 .claim("userId", userPrincipal.getId())
                 .claim("type", "refresh")
                 .signWith(getSigningKey(), SignatureAlgorithm.HS512)
                 .compact();
     }
     
+    /**
+     * 解析令牌声明
+     */
+    public Claims getClaimsFromToken(String token) {
+        return Jwts.parser()
+                .setSigningKey(getSigningKey())
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+    
+    /**
+     * 从请求头中提取Bearer令牌
+     */
+    public String resolveToken(HttpServletRequest request) {
+        String bearerToken = request.getHeader("Authorization");
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        return null;
+    }
+    
     /**
      * 从令牌中获取用户名
      */
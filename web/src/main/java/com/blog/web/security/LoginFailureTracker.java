@@ -0,0 +1,402 @@
+package com.blog.web.security;
+
+import com.blog.api.model.User;
+import com.blog.core.service.UserService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登录失败计数与临时锁定
+ *
+ * 每个用户名一个滑动窗口，窗口按时间分桶计数，只保存在内存中，过期的窗口定期清理；
+ * 开启 redis-enabled 后计数和锁定信息写入Redis，多个节点共享。
+ * 只有窗口内失败次数达到阈值时才写一次 users.status（LOCKED）和到期时间 users.locked_until，并吊销该用户已签发的令牌；
+ * 定时任务按 locked_until 自动解锁，重启或部署后同样生效。管理员手动修改状态时清除 locked_until，不再自动解锁。
+ * 内存（或Redis）中的锁定信息只用于返回剩余锁定时间。
+ */
+@Component
+public class LoginFailureTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginFailureTracker.class);
+
+    private static final String FAILURE_KEY_PREFIX = "auth:login-failures:";
+    private static final String LOCKOUT_KEY = "auth:lockout";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${security.lockout.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.lockout.max-failures:10}")
+    private int maxFailures;
+
+    @Value("${security.lockout.window-seconds:900}")
+    private long windowSeconds;
+
+    @Value("${security.lockout.buckets:15}")
+    private int buckets;
+
+    @Value("${security.lockout.lock-seconds:900}")
+    private long lockSeconds;
+
+    @Value("${security.lockout.redis-enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${security.lockout.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    private long bucketMillis;
+
+    /**
+     * 用户名（小写） -> 失败计数窗口
+     */
+    private final Map<String, FailureWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 用户名（小写） -> 临时锁定信息（剩余时间缓存，解锁以数据库为准）
+     */
+    private final Map<String, Lockout> lockouts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        bucketMillis = Math.max(1000, windowSeconds * 1000 / buckets);
+    }
+
+    /**
+     * 启动后从数据库恢复临时锁定信息，重启前锁定的账号登录时仍返回剩余锁定时间
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreLockouts() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            userService.forEachTemporaryLock((id, username, lockedUntil) -> {
+                long unlockAt = lockedUntil.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                lockouts.putIfAbsent(normalize(username), new Lockout(id, unlockAt));
+            });
+            if (!lockouts.isEmpty()) {
+                logger.info("恢复临时锁定的账号: {} 个", lockouts.size());
+            }
+        } catch (Exception e) {
+            logger.error("恢复临时锁定信息失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 账号处于临时锁定中时返回剩余秒数，否则返回 0
+     */
+    public long lockedSeconds(String username) {
+        if (!enabled || username == null) {
+            return 0;
+        }
+        String key = normalize(username);
+        Lockout lockout = lockouts.get(key);
+        if (lockout == null && redisEnabled) {
+            lockout = readSharedLockout(key);
+        }
+        if (lockout == null) {
+            return 0;
+        }
+        long remaining = lockout.unlockAt - System.currentTimeMillis();
+        return remaining > 0 ? Math.max(1, remaining / 1000) : 0;
+    }
+
+    /**
+     * 记录一次密码错误，达到阈值时锁定账号
+     */
+    public void recordFailure(String username) {
+        if (!enabled || username == null) {
+            return;
+        }
+        String key = normalize(username);
+        long bucket = System.currentTimeMillis() / bucketMillis;
+
+        int failures = redisEnabled ? incrementShared(key, bucket) : incrementLocal(key, bucket);
+        if (failures >= maxFailures && !lockouts.containsKey(key)) {
+            lock(key);
+        }
+    }
+
+    /**
+     * 登录成功后清除失败计数
+     */
+    public void recordSuccess(String username) {
+        if (!enabled || username == null) {
+            return;
+        }
+        String key = normalize(username);
+        windows.remove(key);
+        clearShared(key);
+    }
+
+    /**
+     * 管理员手动修改了这些用户的状态，取消自动解锁
+     */
+    public void clearLockouts(Collection<Long> userIds) {
+        if (lockouts.isEmpty() && !redisEnabled) {
+            return;
+        }
+        List<String> cleared = new ArrayList<>();
+        lockouts.entrySet().removeIf(entry -> {
+            if (userIds.contains(entry.getValue().userId)) {
+                cleared.add(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+        if (redisEnabled) {
+            try {
+                redisTemplate.opsForHash().entries(LOCKOUT_KEY).forEach((field, value) -> {
+                    Lockout lockout = Lockout.parse(value.toString());
+                    if (lockout != null && userIds.contains(lockout.userId)) {
+                        cleared.add(field.toString());
+                    }
+                });
+                if (!cleared.isEmpty()) {
+                    redisTemplate.opsForHash().delete(LOCKOUT_KEY, cleared.toArray());
+                }
+            } catch (Exception e) {
+                logger.error("清除Redis中的临时锁定失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private int incrementLocal(String key, long bucket) {
+        if (windows.size() >= maxTrackedKeys) {
+            evictExpired();
+        }
+        return windows.computeIfAbsent(key, k -> new FailureWindow(buckets)).add(bucket);
+    }
+
+    /**
+     * 每个时间桶一个Redis计数键，过期时间覆盖整个窗口；读取时一次 MGET 求和
+     */
+    private int incrementShared(String key, long bucket) {
+        try {
+            String bucketKey = FAILURE_KEY_PREFIX + key + ":" + bucket;
+            redisTemplate.opsForValue().increment(bucketKey);
+            redisTemplate.expire(bucketKey, Duration.ofMillis(bucketMillis * (buckets + 1)));
+
+            List<String> keys = new ArrayList<>(buckets);
+            for (int i = 0; i < buckets; i++) {
+                keys.add(FAILURE_KEY_PREFIX + key + ":" + (bucket - i));
+            }
+            int total = 0;
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            if (values != null) {
+                for (String value : values) {
+                    if (value != null) {
+                        total += Integer.parseInt(value);
+                    }
+                }
+            }
+            return total;
+        } catch (Exception e) {
+            logger.error("Redis登录失败计数不可用，改用本节点计数: {}", e.getMessage());
+            return incrementLocal(key, bucket);
+        }
+    }
+
+    private void clearShared(String key) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            long bucket = System.currentTimeMillis() / bucketMillis;
+            List<String> keys = new ArrayList<>(buckets);
+            for (int i = 0; i < buckets; i++) {
+                keys.add(FAILURE_KEY_PREFIX + key + ":" + (bucket - i));
+            }
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            logger.error("清除Redis登录失败计数失败: {}", e.getMessage());
+        }
+    }
+
+    private Lockout readSharedLockout(String key) {
+        try {
+            Object value = redisTemplate.opsForHash().get(LOCKOUT_KEY, key);
+            return value != null ? Lockout.parse(value.toString()) : null;
+        } catch (Exception e) {
+            logger.error("读取Redis临时锁定失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void lock(String key) {
+        Optional<User> userOpt = userService.getUserByUsername(key);
+        if (userOpt.isEmpty()) {
+            return;
+        }
+        Long userId = userOpt.get().getId();
+        Lockout lockout = new Lockout(userId, System.currentTimeMillis() + lockSeconds * 1000);
+        if (lockouts.putIfAbsent(key, lockout) != null) {
+            return;
+        }
+
+        try {
+            LocalDateTime unlockAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(lockout.unlockAt), ZoneId.systemDefault());
+            if (!userService.lockTemporarily(userId, unlockAt)) {
+                // 已被管理员锁定/停用，不做临时锁定
+                lockouts.remove(key);
+                return;
+            }
+            tokenRevocationService.revokeAllForUser(userId);
+        } catch (Exception e) {
+            lockouts.remove(key);
+            logger.error("锁定账号失败: {}, {}", key, e.getMessage());
+            return;
+        }
+
+        if (redisEnabled) {
+            try {
+                redisTemplate.opsForHash().put(LOCKOUT_KEY, key, lockout.format());
+            } catch (Exception e) {
+                logger.error("写入Redis临时锁定失败，其他节点不返回剩余锁定时间: {}", e.getMessage());
+            }
+        }
+        windows.remove(key);
+        logger.warn("账号登录失败次数过多，临时锁定 {} 秒: {}", lockSeconds, key);
+    }
+
+    /**
+     * 按 users.locked_until 自动解锁到期的账号（包括重启前锁定的），清理过期的锁定缓存和失败计数窗口
+     */
+    @Scheduled(fixedDelayString = "${security.lockout.sweep-interval-ms:30000}")
+    public void sweep() {
+        if (enabled) {
+            try {
+                List<Long> unlocked = userService.unlockExpiredLockouts();
+                if (!unlocked.isEmpty()) {
+                    logger.info("临时锁定到期，自动解锁 {} 个账号", unlocked.size());
+                }
+            } catch (Exception e) {
+                logger.error("自动解锁失败: {}", e.getMessage());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        lockouts.values().removeIf(lockout -> lockout.unlockAt <= now);
+        if (redisEnabled) {
+            try {
+                List<Object> expired = new ArrayList<>();
+                redisTemplate.opsForHash().entries(LOCKOUT_KEY).forEach((field, value) -> {
+                    Lockout lockout = Lockout.parse(value.toString());
+                    if (lockout == null || lockout.unlockAt <= now) {
+                        expired.add(field);
+                    }
+                });
+                if (!expired.isEmpty()) {
+                    redisTemplate.opsForHash().delete(LOCKOUT_KEY, expired.toArray());
+                }
+            } catch (Exception e) {
+                logger.error("清理Redis临时锁定失败: {}", e.getMessage());
+            }
+        }
+
+        evictExpired();
+    }
+
+    private void evictExpired() {
+        long bucket = System.currentTimeMillis() / bucketMillis;
+        windows.values().removeIf(window -> window.isExpired(bucket));
+    }
+
+    private String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 按时间分桶的环形计数器，只统计最近 buckets 个桶
+     */
+    private static final class FailureWindow {
+        private final long[] bucketIds;
+        private final int[] counts;
+
+        FailureWindow(int buckets) {
+            this.bucketIds = new long[buckets];
+            this.counts = new int[buckets];
+        }
+
+        synchronized int add(long bucket) {
+            int slot = (int) (bucket % counts.length);
+            if (bucketIds[slot] != bucket) {
+                bucketIds[slot] = bucket;
+                counts[slot] = 0;
+            }
+            counts[slot]++;
+
+            int total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (bucket - bucketIds[i] < counts.length) {
+                    total += counts[i];
+                }
+            }
+            return total;
+        }
+
+        synchronized boolean isExpired(long bucket) {
+            for (long bucketId : bucketIds) {
+                if (bucket - bucketId < bucketIds.length) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Lockout {
+        private final Long userId;
+        private final long unlockAt;
+
+        Lockout(Long userId, long unlockAt) {
+            this.userId = userId;
+            this.unlockAt = unlockAt;
+        }
+
+        String format() {
+            return userId + ":" + unlockAt;
+        }
+
+        static Lockout parse(String value) {
+            int separator = value.indexOf(':');
+            if (separator <= 0) {
+                return null;
+            }
+            try {
+                return new Lockout(Long.parseLong(value.substring(0, separator)),
+                        Long.parseLong(value.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
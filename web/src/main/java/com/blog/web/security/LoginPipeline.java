@@ -0,0 +1,206 @@
+package com.blog.web.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 带准入控制的登录流水线
+ *
+ * 密码校验（BCrypt）是CPU密集操作，放在与CPU核数相当的专用线程池中执行，
+ * 不占用Tomcat请求线程。队列有上限，满了直接拒绝（429），
+ * 并按IP和用户名做令牌桶限流，防止撞库或登录风暴拖垮文章等其他接口。
+ * 密码错误次数过多的账号由 {@link LoginFailureTracker} 临时锁定。
+ */
+@Component
+public class LoginPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginPipeline.class);
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LoginFailureTracker loginFailureTracker;
+
+    @Value("${security.login.threads:0}")
+    private int threads;
+
+    @Value("${security.login.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${security.login.max-queue-wait-ms:3000}")
+    private long maxQueueWaitMs;
+
+    @Value("${security.login.ip-burst:20}")
+    private int ipBurst;
+
+    @Value("${security.login.ip-per-minute:60}")
+    private int ipPerMinute;
+
+    @Value("${security.login.username-burst:5}")
+    private int usernameBurst;
+
+    @Value("${security.login.username-per-minute:10}")
+    private int usernamePerMinute;
+
+    @Value("${security.login.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    private ThreadPoolExecutor executor;
+    private TokenBucketRateLimiter ipLimiter;
+    private TokenBucketRateLimiter usernameLimiter;
+
+    private Timer queueWaitTimer;
+    private Timer verifyTimer;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-verify-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        ipLimiter = new TokenBucketRateLimiter(ipBurst, ipPerMinute, maxTrackedKeys);
+        usernameLimiter = new TokenBucketRateLimiter(usernameBurst, usernamePerMinute, maxTrackedKeys);
+
+        queueWaitTimer = Timer.builder("auth.login.queue.wait")
+                .description("登录请求在校验队列中的等待时间")
+                .register(meterRegistry);
+        verifyTimer = Timer.builder("auth.login.verify")
+                .description("密码校验耗时")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.queue.depth", executor, e -> e.getQueue().size())
+                .description("等待校验的登录请求数")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在校验的登录请求数")
+                .register(meterRegistry);
+
+        logger.info("登录校验线程池初始化完成: 线程数 {}, 队列上限 {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * 异步执行登录认证
+     * 被限流或队列已满时返回以 {@link LoginRejectedException} 失败的 future
+     */
+    public CompletableFuture<Authentication> authenticate(String username, String password, String clientIp) {
+        long ipWait = ipLimiter.tryAcquire(clientIp);
+        if (ipWait > 0) {
+            return rejected("throttled_ip", "登录请求过于频繁，请稍后重试", ipWait);
+        }
+
+        long usernameWait = usernameLimiter.tryAcquire(normalize(username));
+        if (usernameWait > 0) {
+            return rejected("throttled_username", "该账号登录尝试过于频繁，请稍后重试", usernameWait);
+        }
+
+        // 临时锁定中的账号直接拒绝，不做密码校验
+        long lockedSeconds = loginFailureTracker.lockedSeconds(username);
+        if (lockedSeconds > 0) {
+            return rejected("locked", "登录失败次数过多，账号已临时锁定，请稍后重试", lockedSeconds);
+        }
+
+        CompletableFuture<Authentication> future = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+
+        try {
+            executor.execute(() -> verify(username, password, enqueuedAt, future));
+        } catch (RejectedExecutionException e) {
+            return rejected("overloaded", "登录服务繁忙，请稍后重试", 1);
+        }
+
+        return future;
+    }
+
+    private void verify(String username, String password, long enqueuedAt, CompletableFuture<Authentication> future) {
+        long waitedNanos = System.nanoTime() - enqueuedAt;
+        queueWaitTimer.record(waitedNanos, TimeUnit.NANOSECONDS);
+
+        // 排队过久的请求客户端多半已经超时，不再浪费CPU做校验
+        if (TimeUnit.NANOSECONDS.toMillis(waitedNanos) > maxQueueWaitMs) {
+            count("expired");
+            future.completeExceptionally(new LoginRejectedException("登录服务繁忙，请稍后重试", 1));
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(username, password));
+            count("success");
+            loginFailureTracker.recordSuccess(username);
+            future.complete(authentication);
+        } catch (BadCredentialsException e) {
+            count("failure");
+            loginFailureTracker.recordFailure(username);
+            future.completeExceptionally(e);
+        } catch (Exception e) {
+            count("failure");
+            future.completeExceptionally(e);
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private CompletableFuture<Authentication> rejected(String outcome, String message, long retryAfterSeconds) {
+        count(outcome);
+        return CompletableFuture.failedFuture(new LoginRejectedException(message, retryAfterSeconds));
+    }
+
+    private void count(String outcome) {
+        Counter.builder("auth.login.attempts")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private String normalize(String username) {
+        return username == null ? null : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 定期清理已补满的令牌桶
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        ipLimiter.evictIdle();
+        usernameLimiter.evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
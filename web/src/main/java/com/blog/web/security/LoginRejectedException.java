@@ -0,0 +1,19 @@
+package com.blog.web.security;
+
+/**
+ * 登录请求被限流或因过载被拒绝
+ * 调用方应返回 429 并在 Retry-After 中告知客户端重试时间
+ */
+public class LoginRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
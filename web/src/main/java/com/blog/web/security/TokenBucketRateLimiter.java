@@ -0,0 +1,93 @@
+package com.blog.web.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按键（IP、用户名等）限流的令牌桶
+ * 每个键一个桶，最多跟踪 maxKeys 个键；已满时新出现的键共用一个溢出桶（大量不同的键多见于攻击），
+ * 请求线程上不做清理。补满的空闲桶由调用方定期调用 {@link #evictIdle()} 清理，腾出位置后新键重新独立计数。
+ */
+public class TokenBucketRateLimiter {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private final int maxKeys;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Bucket overflow;
+
+    /**
+     * @param capacity 桶容量（允许的突发请求数）
+     * @param refillPerMinute 每分钟补充的令牌数
+     * @param maxKeys 同时跟踪的最大键数量
+     */
+    public TokenBucketRateLimiter(int capacity, int refillPerMinute, int maxKeys) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.maxKeys = maxKeys;
+        this.overflow = new Bucket(capacity);
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @return 0 表示获取成功，否则为需要等待的秒数
+     */
+    public long tryAcquire(String key) {
+        if (key == null) {
+            return 0;
+        }
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                return overflow.tryAcquire();
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity));
+        }
+        return bucket.tryAcquire();
+    }
+
+    /**
+     * 清理已经补满的桶（与新建的桶等价，删除不影响限流效果），定期在后台执行
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private class Bucket {
+        private double tokens;
+        private long lastRefill;
+
+        Bucket(double tokens) {
+            this.tokens = tokens;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized long tryAcquire() {
+            long now = System.nanoTime();
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            double nanosUntilNext = (1 - tokens) / refillPerNano;
+            return Math.max(1, (long) Math.ceil(nanosUntilNext / TimeUnit.SECONDS.toNanos(1)));
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.blog.web.security;
+
+import com.blog.core.util.BloomFilter;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌吊销服务
+ *
+ * 吊销记录以 jti 为键保存在Redis中（TTL为令牌剩余有效期），
+ * 每个节点定期把吊销列表同步到本地布隆过滤器和精确集合：
+ * 绝大多数"未吊销"的判断直接在内存中完成，不产生任何网络IO。
+ * 另外通过按用户记录的 not-before 时间戳支持"吊销某用户的全部令牌"。
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String REVOKED_KEY_PREFIX = "auth:revoked:";
+    private static final String REVOKED_INDEX_KEY = "auth:revoked:index";
+    private static final String USER_NOT_BEFORE_KEY = "auth:revoked:user-not-before";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${jwt.refresh-expiration}")
+    private long maxTokenLifetimeMs;
+
+    @Value("${jwt.revocation.expected-revocations:100000}")
+    private int expectedRevocations;
+
+    @Value("${jwt.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${jwt.revocation.exact-set-max-size:10000}")
+    private int exactSetMaxSize;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 本节点吊销、已写入Redis但同步时还没有读到的令牌（jti -> 过期时间），同步时合并进新快照，避免丢失
+     */
+    private final Map<String, Long> recentRevocations = new ConcurrentHashMap<>();
+
+    /**
+     * 写入Redis失败的令牌吊销（jti -> 过期时间），同步时重试，成功前一直保留在本地快照中
+     */
+    private final Map<String, Long> pendingRevocations = new ConcurrentHashMap<>();
+
+    /**
+     * 写入Redis失败的用户吊销时间（用户ID -> not-before），同步时重试
+     */
+    private final Map<Long, Long> pendingUserNotBefore = new ConcurrentHashMap<>();
+
+    /**
+     * 用户ID -> not-before 时间戳（毫秒），签发时间不晚于该时间的令牌全部失效
+     */
+    private final Map<Long, Long> userNotBefore = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        snapshot = new Snapshot(new BloomFilter(expectedRevocations, falsePositiveRate), true);
+        sync();
+    }
+
+    /**
+     * 吊销单个令牌
+     */
+    public void revoke(String jti, Date expiration) {
+        if (jti == null || expiration == null) {
+            return;
+        }
+
+        long ttlMs = expiration.getTime() - System.currentTimeMillis();
+        if (ttlMs <= 0) {
+            return; // 已过期的令牌无需吊销
+        }
+
+        snapshot.add(jti, exactSetMaxSize);
+        try {
+            writeRevocation(jti, expiration.getTime(), ttlMs);
+            recentRevocations.put(jti, expiration.getTime());
+        } catch (Exception e) {
+            pendingRevocations.put(jti, expiration.getTime());
+            logger.error("写入Redis令牌吊销记录失败，暂时仅在本节点生效，同步时重试: {}", e.getMessage());
+        }
+    }
+
+    private void writeRevocation(String jti, long expiresAt, long ttlMs) {
+        redisTemplate.opsForValue().set(REVOKED_KEY_PREFIX + jti, "1", Duration.ofMillis(ttlMs));
+        redisTemplate.opsForZSet().add(REVOKED_INDEX_KEY, jti, expiresAt);
+    }
+
+    /**
+     * 根据令牌声明吊销令牌
+     */
+    public void revoke(Claims claims) {
+        revoke(claims.getId(), claims.getExpiration());
+    }
+
+    /**
+     * 一次性使用令牌（用于刷新令牌轮换）：吊销该令牌，返回false表示令牌已被吊销或已被并发请求使用过
+     * Redis 中用 SET NX 判断，多个节点同时使用同一个令牌时只有一个成功
+     */
+    public boolean consume(Claims claims) {
+        String jti = claims.getId();
+        Date expiration = claims.getExpiration();
+        if (jti == null || expiration == null || isRevoked(claims)) {
+            return false;
+        }
+
+        long ttlMs = expiration.getTime() - System.currentTimeMillis();
+        if (ttlMs <= 0) {
+            return false;
+        }
+
+        snapshot.add(jti, exactSetMaxSize);
+        try {
+            Boolean first = redisTemplate.opsForValue()
+                    .setIfAbsent(REVOKED_KEY_PREFIX + jti, "1", Duration.ofMillis(ttlMs));
+            redisTemplate.opsForZSet().add(REVOKED_INDEX_KEY, jti, expiration.getTime());
+            recentRevocations.put(jti, expiration.getTime());
+            return Boolean.TRUE.equals(first);
+        } catch (Exception e) {
+            pendingRevocations.put(jti, expiration.getTime());
+            logger.error("写入Redis令牌吊销记录失败，暂时仅在本节点生效，同步时重试: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 吊销用户的全部令牌（签发时间不晚于当前时间的令牌全部失效）
+     */
+    public void revokeAllForUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+
+        long notBefore = System.currentTimeMillis();
+
+        userNotBefore.merge(userId, notBefore, Math::max);
+        try {
+            redisTemplate.opsForHash().put(USER_NOT_BEFORE_KEY, userId.toString(), Long.toString(notBefore));
+        } catch (Exception e) {
+            pendingUserNotBefore.merge(userId, notBefore, Math::max);
+            logger.error("写入Redis用户吊销时间失败，暂时仅在本节点生效，同步时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 批量吊销多个用户的全部令牌
+     */
+    public void revokeAllForUsers(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+
+        long notBefore = System.currentTimeMillis();
+        Map<String, String> entries = new HashMap<>();
+        for (Long userId : userIds) {
+            entries.put(userId.toString(), Long.toString(notBefore));
+        }
+
+        for (Long userId : userIds) {
+            userNotBefore.merge(userId, notBefore, Math::max);
+        }
+
+        // 一次 HMSET 写入全部用户
+        try {
+            redisTemplate.opsForHash().putAll(USER_NOT_BEFORE_KEY, entries);
+        } catch (Exception e) {
+            for (Long userId : userIds) {
+                pendingUserNotBefore.merge(userId, notBefore, Math::max);
+            }
+            logger.error("写入Redis用户吊销时间失败，暂时仅在本节点生效，同步时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 检查令牌是否已被吊销
+     */
+    public boolean isRevoked(Claims claims) {
+        // 优先使用毫秒精度的签发时间；没有该声明的旧令牌只有秒级的 iat，同一秒内签发的令牌按已吊销处理
+        Long issuedAtMs = claims.get(JwtTokenProvider.ISSUED_AT_MS_CLAIM, Long.class);
+        Date issuedAt = issuedAtMs != null ? new Date(issuedAtMs) : claims.getIssuedAt();
+        return isRevoked(claims.getId(), claims.get("userId", Long.class), issuedAt);
+    }
+
+    /**
+     * 检查令牌是否已被吊销
+     * 布隆过滤器判定不存在时直接返回，只有可能存在且精确集合不完整时才查询Redis
+     */
+    public boolean isRevoked(String jti, Long userId, Date issuedAt) {
+        if (userId != null && issuedAt != null) {
+            Long notBefore = userNotBefore.get(userId);
+            if (notBefore != null && issuedAt.getTime() <= notBefore) {
+                return true;
+            }
+        }
+
+        if (jti == null) {
+            return false;
+        }
+
+        Snapshot current = snapshot;
+        if (!current.bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        if (current.exact.contains(jti)) {
+            return true;
+        }
+        if (current.exactComplete) {
+            return false; // 布隆过滤器误判
+        }
+
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_KEY_PREFIX + jti));
+        } catch (Exception e) {
+            logger.error("查询Redis令牌吊销记录失败，按已吊销处理: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 定期从Redis同步吊销列表，重建本地布隆过滤器
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:30000}",
+               initialDelayString = "${jwt.revocation.sync-interval-ms:30000}")
+    public void sync() {
+        long syncStart = System.currentTimeMillis();
+
+        try {
+            retryPending(syncStart);
+            syncRevokedTokens(syncStart);
+            syncUserNotBefore(syncStart);
+        } catch (Exception e) {
+            logger.warn("同步令牌吊销列表失败，继续使用本地数据: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 重试写入失败的吊销记录，成功后才从待写入列表中移除
+     */
+    private void retryPending(long now) {
+        for (Map.Entry<String, Long> entry : pendingRevocations.entrySet()) {
+            long ttlMs = entry.getValue() - now;
+            if (ttlMs > 0) {
+                writeRevocation(entry.getKey(), entry.getValue(), ttlMs);
+                recentRevocations.put(entry.getKey(), entry.getValue());
+            }
+            pendingRevocations.remove(entry.getKey(), entry.getValue());
+        }
+
+        if (pendingUserNotBefore.isEmpty()) {
+            return;
+        }
+        List<Long> userIds = new ArrayList<>(pendingUserNotBefore.keySet());
+        List<Object> fields = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            fields.add(userId.toString());
+        }
+        // 其他节点可能已经写入了更晚的时间，只覆盖更早的值
+        List<Object> stored = redisTemplate.opsForHash().multiGet(USER_NOT_BEFORE_KEY, fields);
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            Long notBefore = pendingUserNotBefore.get(userIds.get(i));
+            Object current = stored.get(i);
+            if (notBefore != null && (current == null || Long.parseLong(current.toString()) < notBefore)) {
+                entries.put(userIds.get(i).toString(), Long.toString(notBefore));
+            }
+        }
+        if (!entries.isEmpty()) {
+            redisTemplate.opsForHash().putAll(USER_NOT_BEFORE_KEY, entries);
+        }
+        for (Long userId : userIds) {
+            Long notBefore = pendingUserNotBefore.get(userId);
+            if (notBefore != null) {
+                pendingUserNotBefore.remove(userId, notBefore);
+            }
+        }
+    }
+
+    private void syncRevokedTokens(long now) {
+        redisTemplate.opsForZSet().removeRangeByScore(REVOKED_INDEX_KEY, Double.NEGATIVE_INFINITY, now);
+        Set<String> revoked = redisTemplate.opsForZSet().rangeByScore(REVOKED_INDEX_KEY, now, Double.POSITIVE_INFINITY);
+        if (revoked == null) {
+            revoked = Set.of();
+        }
+
+        int capacity = Math.max(expectedRevocations,
+                (revoked.size() + recentRevocations.size() + pendingRevocations.size()) * 2);
+        Snapshot next = new Snapshot(new BloomFilter(capacity, falsePositiveRate), true);
+        for (String jti : revoked) {
+            next.add(jti, exactSetMaxSize);
+        }
+        for (String jti : recentRevocations.keySet()) {
+            next.add(jti, exactSetMaxSize);
+        }
+        for (String jti : pendingRevocations.keySet()) {
+            next.add(jti, exactSetMaxSize);
+        }
+        snapshot = next;
+
+        // 只移除本次已从Redis读到（或已过期）的本地吊销
+        Set<String> synced = revoked;
+        recentRevocations.entrySet().removeIf(entry -> synced.contains(entry.getKey()) || entry.getValue() <= now);
+
+        logger.debug("令牌吊销列表同步完成: {} 条, 精确集合完整: {}", revoked.size(), next.exactComplete);
+    }
+
+    private void syncUserNotBefore(long now) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(USER_NOT_BEFORE_KEY);
+
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            Long userId = Long.valueOf(entry.getKey().toString());
+            long notBefore = Long.parseLong(entry.getValue().toString());
+
+            if (notBefore + maxTokenLifetimeMs < now) {
+                // 该时间点之前签发的令牌都已自然过期，记录可以清除
+                redisTemplate.opsForHash().delete(USER_NOT_BEFORE_KEY, entry.getKey());
+            } else {
+                userNotBefore.merge(userId, notBefore, Math::max);
+            }
+        }
+
+        userNotBefore.values().removeIf(notBefore -> notBefore + maxTokenLifetimeMs < now);
+    }
+
+    /**
+     * 吊销列表的本地快照：布隆过滤器 + 有上限的精确集合
+     */
+    private static class Snapshot {
+        private final BloomFilter bloomFilter;
+        private final Set<String> exact = ConcurrentHashMap.newKeySet();
+        private volatile boolean exactComplete;
+
+        Snapshot(BloomFilter bloomFilter, boolean exactComplete) {
+            this.bloomFilter = bloomFilter;
+            this.exactComplete = exactComplete;
+        }
+
+        void add(String jti, int exactSetMaxSize) {
+            bloomFilter.put(jti);
+            if (exact.size() < exactSetMaxSize) {
+                exact.add(jti);
+            } else {
+                exactComplete = false;
+            }
+        }
+    }
+}
@@ -9,17 +9,20 @@ import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * 认证主体（不可变，可在请求之间缓存共享）
+ */
 public class UserPrincipal implements UserDetails {
     
-    private Long id;
-    private String username;
-    private String email;
-    private String password;
-    private Collection<? extends GrantedAuthority> authorities;
-    private boolean enabled;
-    private boolean accountNonExpired;
-    private boolean accountNonLocked;
-    private boolean credentialsNonExpired;
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private final boolean enabled;
+    private final boolean accountNonExpired;
+    private final boolean accountNonLocked;
+    private final boolean credentialsNonExpired;
     
     public UserPrincipal(Long id, String username, String email, String password, 
                         Collection<? extends GrantedAuthority> authorities, boolean enabled) {
@@ -27,7 +30,7 @@ public class UserPrincipal implements UserDetails {
         this.username = username;
         this.email = email;
         this.password = password;
-        this.authorities = authorities;
+        this.authorities = List.copyOf(authorities);
         this.enabled = enabled;
         this.accountNonExpired = true;
         this.accountNonLocked = true;
@@ -45,6 +48,13 @@ public class UserPrincipal implements UserDetails {
             authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getName()))
         );
         
+        return create(user, authorities);
+    }
+    
+    /**
+     * 使用已构建好的权限列表创建（权限列表由 {@link UserPrincipalStore} 按角色组合共享）
+     */
+    public static UserPrincipal create(UserEntity user, Collection<? extends GrantedAuthority> authorities) {
         boolean enabled = UserEntity.UserStatus.ACTIVE.equals(user.getStatus());
         
         return new UserPrincipal(
@@ -57,6 +67,13 @@ public class UserPrincipal implements UserDetails {
         );
     }
     
+    /**
+     * 返回替换了密码哈希的副本（密码重新加密后使用）
+     */
+    public UserPrincipal withPassword(String newPassword) {
+        return new UserPrincipal(id, username, email, newPassword, authorities, enabled);
+    }
+    
     // Getters
     public Long getId() {
         return id;
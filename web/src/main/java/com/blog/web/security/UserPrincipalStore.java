@@ -0,0 +1,180 @@
+package com.blog.web.security;
+
+import com.blog.core.auth.AuthorizationVersions;
+import com.blog.persistence.entity.RoleEntity;
+import com.blog.persistence.entity.UserEntity;
+import com.blog.persistence.repository.JpaUserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 认证主体缓存
+ *
+ * 按用户ID缓存不可变的 {@link UserPrincipal}，权限列表按角色组合共享，
+ * 相同角色组合的用户引用同一个不可变的权限集合。
+ * 缓存以 {@link AuthorizationVersions} 中的用户版本号和全局版本号判断是否失效，
+ * 加载时使用一次 fetch join 查询，认证路径上不再依赖事务内的懒加载。
+ */
+@Component
+public class UserPrincipalStore {
+
+    @Autowired
+    private JpaUserRepository jpaUserRepository;
+
+    @Autowired
+    private AuthorizationVersions authorizationVersions;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${security.principal-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final Map<Long, CachedPrincipal> principals = new ConcurrentHashMap<>();
+
+    /**
+     * 角色组合 -> 共享的权限列表，全局版本号变化时整体失效
+     */
+    private volatile AuthorityCache authorityCache = new AuthorityCache(0L);
+
+    /**
+     * 根据用户ID获取认证主体
+     */
+    public UserPrincipal getPrincipal(Long userId) {
+        long userVersion = authorizationVersions.getUserVersion(userId);
+        long globalVersion = authorizationVersions.getGlobalVersion();
+
+        CachedPrincipal cached = principals.get(userId);
+        if (cached != null && cached.isValid(userVersion, globalVersion, ttlMs)) {
+            return cached.principal;
+        }
+
+        // 先读取版本号再加载，加载期间发生的变更会使本次写入的缓存在下次访问时失效
+        UserEntity user = jpaUserRepository.findByIdWithRolesAndPermissions(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("用户不存在: " + userId));
+        UserPrincipal principal = build(user, globalVersion);
+        put(userId, new CachedPrincipal(principal, userVersion, globalVersion));
+        return principal;
+    }
+
+    /**
+     * 根据已加载角色和权限的用户实体构建认证主体并写入缓存
+     */
+    public UserPrincipal cache(UserEntity user) {
+        long userVersion = authorizationVersions.getUserVersion(user.getId());
+        long globalVersion = authorizationVersions.getGlobalVersion();
+
+        UserPrincipal principal = build(user, globalVersion);
+        put(user.getId(), new CachedPrincipal(principal, userVersion, globalVersion));
+        return principal;
+    }
+
+    /**
+     * 移除缓存的认证主体
+     */
+    public void evict(Long userId) {
+        principals.remove(userId);
+    }
+
+    public int size() {
+        return principals.size();
+    }
+
+    private UserPrincipal build(UserEntity user, long globalVersion) {
+        return UserPrincipal.create(user, authoritiesFor(user.getRoles(), globalVersion));
+    }
+
+    private List<GrantedAuthority> authoritiesFor(Set<RoleEntity> roles, long globalVersion) {
+        AuthorityCache current = authorityCache;
+        final AuthorityCache cache = current.globalVersion != globalVersion
+                ? (authorityCache = new AuthorityCache(globalVersion))
+                : current;
+
+        String roleKey = roles.stream()
+                .map(RoleEntity::getId)
+                .sorted()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        return cache.byRoleCombination.computeIfAbsent(roleKey, key -> buildAuthorities(roles, cache));
+    }
+
+    private List<GrantedAuthority> buildAuthorities(Set<RoleEntity> roles, AuthorityCache cache) {
+        List<RoleEntity> sortedRoles = new ArrayList<>(roles);
+        sortedRoles.sort(Comparator.comparing(RoleEntity::getId));
+
+        Set<String> names = new LinkedHashSet<>();
+        for (RoleEntity role : sortedRoles) {
+            role.getPermissions().forEach(permission -> names.add(permission.getName()));
+        }
+        // 添加角色权限
+        for (RoleEntity role : sortedRoles) {
+            names.add("ROLE_" + role.getName());
+        }
+
+        List<GrantedAuthority> authorities = new ArrayList<>(names.size());
+        for (String name : names) {
+            authorities.add(cache.authorities.computeIfAbsent(name, SimpleGrantedAuthority::new));
+        }
+        return List.copyOf(authorities);
+    }
+
+    private void put(Long userId, CachedPrincipal entry) {
+        if (principals.size() >= maxSize && !principals.containsKey(userId)) {
+            evictOne();
+        }
+        principals.put(userId, entry);
+    }
+
+    private void evictOne() {
+        Iterator<Long> iterator = principals.keySet().iterator();
+        if (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static final class CachedPrincipal {
+        private final UserPrincipal principal;
+        private final long userVersion;
+        private final long globalVersion;
+        private final long loadedAt;
+
+        CachedPrincipal(UserPrincipal principal, long userVersion, long globalVersion) {
+            this.principal = principal;
+            this.userVersion = userVersion;
+            this.globalVersion = globalVersion;
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+        boolean isValid(long currentUserVersion, long currentGlobalVersion, long ttlMs) {
+            return userVersion == currentUserVersion
+                    && globalVersion == currentGlobalVersion
+                    && System.currentTimeMillis() - loadedAt < ttlMs;
+        }
+    }
+
+    private static final class AuthorityCache {
+        private final long globalVersion;
+        private final Map<String, List<GrantedAuthority>> byRoleCombination = new ConcurrentHashMap<>();
+        private final Map<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+
+        AuthorityCache(long globalVersion) {
+            this.globalVersion = globalVersion;
+        }
+    }
+}
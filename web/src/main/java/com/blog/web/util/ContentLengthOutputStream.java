@@ -0,0 +1,81 @@
+package com.blog.web.util;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 先缓冲、超出上限再直接写响应的输出流
+ *
+ * 输出不超过缓冲区时，结束时设置 Content-Length 一次写出；
+ * 超出后把已缓冲的内容写出，之后直接写入响应（分块传输），每个请求占用的堆内存不超过缓冲区大小。
+ */
+public class ContentLengthOutputStream extends OutputStream {
+
+    private final HttpServletResponse response;
+    private final byte[] buffer;
+    private int size;
+    private OutputStream out;
+    private long count;
+
+    public ContentLengthOutputStream(HttpServletResponse response, int bufferSize) {
+        this.response = response;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        count += len;
+        if (out == null && size + len <= buffer.length) {
+            System.arraycopy(b, off, buffer, size, len);
+            size += len;
+            return;
+        }
+        if (out == null) {
+            spill();
+        }
+        out.write(b, off, len);
+    }
+
+    /**
+     * 是否已开始向客户端写出（之后不能再修改状态码和响应头）
+     */
+    public boolean isCommitted() {
+        return out != null || response.isCommitted();
+    }
+
+    /**
+     * 写出剩余内容；未超出缓冲区时带上 Content-Length
+     */
+    public void finish() throws IOException {
+        if (out == null) {
+            response.setContentLength(size);
+            response.getOutputStream().write(buffer, 0, size);
+            size = 0;
+            response.getOutputStream().flush();
+        } else {
+            out.flush();
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    private void spill() throws IOException {
+        out = response.getOutputStream();
+        out.write(buffer, 0, size);
+        size = 0;
+    }
+
+    @Override
+    public void flush() {
+        // 缓冲阶段不向客户端写出，finish() 时统一处理
+    }
+}
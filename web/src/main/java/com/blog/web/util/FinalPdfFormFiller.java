@@ -19,7 +19,10 @@ import java.io.File;
 /**
  * 最终版PDF表单填充工具
  * 解决所有字体和路径问题
+ *
+ * @deprecated 使用 {@link com.blog.web.pdf.PdfGenerationService}
  */
+@Deprecated
 public class FinalPdfFormFiller {
     
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(FinalPdfFormFiller.class);
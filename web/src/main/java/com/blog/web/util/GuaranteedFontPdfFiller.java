@@ -20,7 +20,10 @@ import java.io.File;
 /**
  * 确保字体正确显示的PDF填充工具
  * 优先保证字体正确，文件大小其次
+ *
+ * @deprecated 使用 {@link com.blog.web.pdf.PdfGenerationService}
  */
+@Deprecated
 public class GuaranteedFontPdfFiller {
     
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(GuaranteedFontPdfFiller.class);
@@ -0,0 +1,146 @@
+package com.blog.web.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量PDF数据的流式读取器，每行数据对应一份文档
+ *
+ * CSV：首行为表头，列名即模板字段名，字段可用双引号包裹
+ * NDJSON：每行一个对象，键为字段名，值按文本处理
+ * 行号从 0 开始计数（不含CSV表头和空行），与批量任务的 offset 对应
+ */
+public class PdfBatchReader {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    /**
+     * 一行数据；解析失败时 data 为 null，error 为原因
+     */
+    public static class Row {
+        private final long index;
+        private final Map<String, String> data;
+        private final String error;
+
+        Row(long index, Map<String, String> data, String error) {
+            this.index = index;
+            this.data = data;
+            this.error = error;
+        }
+
+        public long getIndex() { return index; }
+        public Map<String, String> getData() { return data; }
+        public String getError() { return error; }
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private List<String> csvColumns;
+    private long rowIndex;
+
+    public PdfBatchReader(InputStream input, Format format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 跳过前 count 行（断点续跑），只拆行不解析
+     *
+     * @return 实际跳过的行数
+     */
+    public long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count) {
+            String line = nextLine();
+            if (line == null) {
+                break;
+            }
+            rowIndex++;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * 读取下一行，文件结束时返回 null
+     *
+     * @throws IllegalArgumentException CSV表头格式错误
+     */
+    public Row next() throws IOException {
+        String line = nextLine();
+        if (line == null) {
+            return null;
+        }
+        long index = rowIndex++;
+        try {
+            return new Row(index, format == Format.NDJSON ? parseJson(line) : parseCsv(line), null);
+        } catch (IllegalArgumentException e) {
+            return new Row(index, null, e.getMessage());
+        }
+    }
+
+    private String nextLine() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        if (format == Format.CSV && csvColumns == null) {
+            csvColumns = UserImportReader.splitCsvLine(line).stream().map(String::trim).toList();
+            if (csvColumns.isEmpty() || csvColumns.stream().allMatch(String::isEmpty)) {
+                throw new IllegalArgumentException("CSV表头不能为空");
+            }
+            return nextLine();
+        }
+        return line;
+    }
+
+    private Map<String, String> parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("JSON格式错误");
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("每行必须是一个JSON对象");
+        }
+        Map<String, String> data = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getValue().isNull()) {
+                data.put(field.getKey(), field.getValue().asText());
+            }
+        }
+        return data;
+    }
+
+    private Map<String, String> parseCsv(String line) {
+        List<String> values = UserImportReader.splitCsvLine(line);
+        Map<String, String> data = new LinkedHashMap<>();
+        for (int i = 0; i < csvColumns.size() && i < values.size(); i++) {
+            if (!csvColumns.get(i).isEmpty()) {
+                data.put(csvColumns.get(i), values.get(i));
+            }
+        }
+        return data;
+    }
+}
@@ -7,6 +7,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
 @Component
 public class PermissionChecker {
     
@@ -40,6 +45,36 @@ public class PermissionChecker {
         return userService.hasPermission(userId, resource, action);
     }
     
+    /**
+     * 批量检查指定用户的权限
+     * 一次性加载用户的权限集合，再逐个判断，避免每个权限都查询一次数据库
+     * 
+     * @param permissionKeys resource:action 格式的权限列表，格式不合法的按无权限处理
+     * @return 按请求顺序排列的 权限 -> 是否拥有 映射
+     */
+    public Map<String, Boolean> checkPermissions(Long userId, Collection<String> permissionKeys) {
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        if (permissionKeys == null || permissionKeys.isEmpty()) {
+            return result;
+        }
+        
+        Set<String> granted = userId != null ? userService.getUserPermissionKeys(userId) : Set.of();
+        for (String key : permissionKeys) {
+            if (key == null) {
+                continue;
+            }
+            result.put(key, isValidPermissionKey(key) && granted.contains(key));
+        }
+        return result;
+    }
+    
+    /**
+     * 批量检查当前用户的权限
+     */
+    public Map<String, Boolean> checkPermissions(Collection<String> permissionKeys) {
+        return checkPermissions(getCurrentUserId(), permissionKeys);
+    }
+    
     /**
      * 检查当前用户是否有管理员权限
      */
@@ -94,4 +129,9 @@ public class PermissionChecker {
         Long currentUserId = getCurrentUserId();
         return currentUserId != null && currentUserId.equals(userId);
     }
+    
+    private boolean isValidPermissionKey(String key) {
+        int separator = key.indexOf(':');
+        return separator > 0 && separator == key.lastIndexOf(':') && separator < key.length() - 1;
+    }
 }
\ No newline at end of file
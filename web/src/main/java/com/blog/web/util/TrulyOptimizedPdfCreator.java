@@ -16,7 +16,10 @@ import java.util.Map;
 /**
  * 真正优化的PDF创建工具
  * 解决38MB问题的最终方案
+ *
+ * @deprecated 使用 {@link com.blog.web.pdf.PdfGenerationService}
  */
+@Deprecated
 public class TrulyOptimizedPdfCreator {
     
     /**
@@ -21,7 +21,10 @@ import java.util.Map;
 /**
  * 超级压缩PDF创建工具
  * 目标：将18.7MB压缩到1MB以下
+ *
+ * @deprecated 使用 {@link com.blog.web.pdf.PdfGenerationService}
  */
+@Deprecated
 public class UltraCompressedPdfCreator {
     
     private static final String NOTO_SERIF_LIGHT = "fonts/NotoSerifCJKsc-Light.otf";
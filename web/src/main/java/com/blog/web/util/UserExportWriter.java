@@ -0,0 +1,115 @@
+package com.blog.web.util;
+
+import com.blog.api.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 用户导出的流式写入器，逐个用户写出，不缓存整个结果
+ *
+ * CSV：首行为表头 id,username,email,fullName,status,createdAt,lastLoginAt,roles（roles 以 ; 分隔），
+ * 以 = + - @ 开头的字段加单引号前缀，防止在表格软件中被当作公式执行
+ * NDJSON：每行一个对象，roles 为字符串数组
+ */
+public class UserExportWriter {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final String CSV_HEADER = "id,username,email,fullName,status,createdAt,lastLoginAt,roles";
+
+    private final BufferedWriter writer;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private long count;
+
+    public UserExportWriter(OutputStream output, Format format, ObjectMapper objectMapper) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    public void write(User user) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(toMap(user)));
+        } else {
+            if (count == 0) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            writeCsvLine(user);
+        }
+        writer.write('\n');
+        count++;
+    }
+
+    /**
+     * 结束导出，CSV 在没有任何用户时也输出表头
+     */
+    public void finish() throws IOException {
+        if (format == Format.CSV && count == 0) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    private Map<String, Object> toMap(User user) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", user.getId());
+        map.put("username", user.getUsername());
+        map.put("email", user.getEmail());
+        map.put("fullName", user.getFullName());
+        map.put("status", user.getStatus() != null ? user.getStatus().name() : null);
+        map.put("createdAt", format(user.getCreatedAt()));
+        map.put("lastLoginAt", format(user.getLastLoginAt()));
+        map.put("roles", user.getRoles());
+        return map;
+    }
+
+    private void writeCsvLine(User user) throws IOException {
+        writer.write(String.valueOf(user.getId()));
+        writeCsvField(user.getUsername());
+        writeCsvField(user.getEmail());
+        writeCsvField(user.getFullName());
+        writeCsvField(user.getStatus() != null ? user.getStatus().name() : null);
+        writeCsvField(format(user.getCreatedAt()));
+        writeCsvField(format(user.getLastLoginAt()));
+        writeCsvField(user.getRoles() != null ? String.join(";", user.getRoles()) : null);
+    }
+
+    private void writeCsvField(String value) throws IOException {
+        writer.write(',');
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    private static String format(LocalDateTime time) {
+        return time != null ? time.toString() : null;
+    }
+}
@@ -0,0 +1,209 @@
+package com.blog.web.util;
+
+import com.blog.core.importer.UserImportRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户导入文件的流式读取器，逐行解析，不会把整个文件读入内存
+ *
+ * CSV：首行为表头，支持列 username,email,password,fullName,roles（roles 以 ; 分隔），字段可用双引号包裹
+ * NDJSON：每行一个对象，字段同上，roles 为字符串数组
+ */
+public class UserImportReader {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    /**
+     * 单行解析失败，不影响后续行
+     */
+    public static class LineParseException extends Exception {
+        private final long line;
+
+        public LineParseException(long line, String message) {
+            super(message);
+            this.line = line;
+        }
+
+        public long getLine() {
+            return line;
+        }
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> csvColumns;
+    private long lineNumber;
+
+    public UserImportReader(InputStream input, Format format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 读取下一条记录，文件结束时返回 null
+     */
+    public UserImportRecord next() throws IOException, LineParseException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+
+        if (format == Format.NDJSON) {
+            return parseJson(line);
+        }
+
+        if (csvColumns == null) {
+            csvColumns = parseHeader(line);
+            return next();
+        }
+        return parseCsv(line);
+    }
+
+    private UserImportRecord parseJson(String line) throws LineParseException {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new LineParseException(lineNumber, "JSON格式错误");
+        }
+        if (!node.isObject()) {
+            throw new LineParseException(lineNumber, "每行必须是一个JSON对象");
+        }
+
+        Set<String> roles = new LinkedHashSet<>();
+        JsonNode rolesNode = node.get("roles");
+        if (rolesNode != null && rolesNode.isArray()) {
+            rolesNode.forEach(role -> roles.add(role.asText().trim()));
+        }
+
+        return new UserImportRecord(lineNumber, text(node, "username"), text(node, "email"),
+                node.hasNonNull("password") ? node.get("password").asText() : null,
+                text(node, "fullName"), roles);
+    }
+
+    /**
+     * 表头错误时整个文件无法解析，抛出 IllegalArgumentException
+     */
+    private Map<String, Integer> parseHeader(String line) {
+        List<String> names;
+        try {
+            names = splitCsv(line);
+        } catch (LineParseException e) {
+            throw new IllegalArgumentException("CSV表头格式错误: " + e.getMessage());
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : new String[] {"username", "email", "password"}) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV表头缺少列: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private UserImportRecord parseCsv(String line) throws LineParseException {
+        List<String> values = splitCsv(line);
+
+        Set<String> roles = new LinkedHashSet<>();
+        String rolesValue = column(values, "roles");
+        if (rolesValue != null) {
+            for (String role : rolesValue.split(";")) {
+                if (!role.isBlank()) {
+                    roles.add(role.trim());
+                }
+            }
+        }
+
+        return new UserImportRecord(lineNumber, trim(column(values, "username")), trim(column(values, "email")),
+                column(values, "password"), trim(column(values, "fullname")), roles);
+    }
+
+    private String column(List<String> values, String name) {
+        Integer index = csvColumns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    private List<String> splitCsv(String line) throws LineParseException {
+        try {
+            return splitCsvLine(line);
+        } catch (IllegalArgumentException e) {
+            throw new LineParseException(lineNumber, e.getMessage());
+        }
+    }
+
+    /**
+     * 拆分一行CSV，字段可用双引号包裹，"" 表示一个引号
+     *
+     * @throws IllegalArgumentException 引号未闭合
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("CSV引号未闭合");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText().trim();
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}